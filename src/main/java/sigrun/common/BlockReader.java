@@ -0,0 +1,109 @@
+package sigrun.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Forward reader that fetches a file in large blocks aligned to the block size.
+ * <p/>
+ * Reads are positional, so the position of the channel itself is left untouched. Ranges spanning a block boundary
+ * are assembled from consecutive blocks, and skips landing outside of the current block fetch only the block that
+ * contains the new position.
+ */
+class BlockReader implements SequentialReader {
+    private final FileChannel chan;
+    private final ByteBuffer block;
+    private final int blockSize;
+    private final long end;
+
+    private long blockStart = 0;
+    private long position;
+
+    /**
+     * @param chan      channel to read from
+     * @param position  absolute position of the first byte to read
+     * @param blockSize size of a single read in bytes
+     */
+    BlockReader(FileChannel chan, long position, int blockSize) throws IOException {
+        this(chan, position, chan.size(), blockSize);
+    }
+
+    /**
+     * @param chan      channel to read from
+     * @param position  absolute position of the first byte to read
+     * @param end       absolute position after the last byte available to this reader
+     * @param blockSize size of a single read in bytes
+     */
+    BlockReader(FileChannel chan, long position, long end, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive");
+        }
+
+        this.chan = chan;
+        this.blockSize = blockSize;
+        this.block = ByteBuffer.allocateDirect(blockSize);
+        this.block.limit(0);
+        this.position = position;
+        this.end = end;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public boolean read(byte[] destination, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (position - blockStart < 0 || position - blockStart >= block.limit()) {
+                if (!fill()) {
+                    return false;
+                }
+            }
+
+            final int inBlock = (int) (position - blockStart);
+            final int count = Math.min(length, block.limit() - inBlock);
+
+            block.position(inBlock);
+            block.get(destination, offset, count);
+
+            offset += count;
+            length -= count;
+            position += count;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean skip(long length) {
+        position += length;
+        return position <= end;
+    }
+
+    @Override
+    public void close() {
+        block.limit(0);
+    }
+
+    private boolean fill() throws IOException {
+        if (position >= end) {
+            return false;
+        }
+
+        blockStart = position - position % blockSize;
+        block.clear();
+        block.limit((int) Math.min(blockSize, end - blockStart));
+
+        while (block.hasRemaining()) {
+            if (chan.read(block, blockStart + block.position()) < 0) {
+                break;
+            }
+        }
+
+        block.flip();
+
+        return position - blockStart < block.limit();
+    }
+}
@@ -0,0 +1,585 @@
+package sigrun.common;
+
+import java.util.Arrays;
+
+/**
+ * Trace header that keeps configured fields as primitives.
+ * <p/>
+ * Values live in a single <code>int[]</code> holding only the fields of the format, so a header configured with a
+ * handful of fields takes a few dozen bytes instead of a <code>TraceHeader</code> with boxed values. Which fields are
+ * present depends only on the format, so the presence bitmask and the slot of every field are kept once in a shared
+ * <code>Layout</code>. Compact headers are filled by <code>TraceHeaderReader</code>.
+ */
+public class CompactTraceHeader implements ReadableTraceHeader {
+    private final Layout layout;
+    private final int[] values;
+    private long positionInFile = -1;
+
+    public CompactTraceHeader(Layout layout) {
+        this.layout = layout;
+        this.values = new int[layout.size()];
+    }
+
+    public Layout getLayout() {
+        return layout;
+    }
+
+    public boolean isPresent(TraceHeaderField field) {
+        return layout.isPresent(field);
+    }
+
+    /**
+     * Returns the value of an integer field without boxing.
+     *
+     * @throws IllegalArgumentException if the field is not present or holds raw bytes
+     */
+    public int getValue(TraceHeaderField field) {
+        if (field.getKind() == TraceHeaderField.Kind.BYTES || !layout.isPresent(field)) {
+            throw new IllegalArgumentException("Field " + field + " is not an integer field of the layout");
+        }
+
+        return values[layout.slotOf(field)];
+    }
+
+    /**
+     * Stores a value into a slot of the layout.
+     */
+    public void setValue(int slot, int value) {
+        values[slot] = value;
+    }
+
+    @Override
+    public long getPositionInFile() {
+        return positionInFile;
+    }
+
+    public void setPositionInFile(long positionInFile) {
+        this.positionInFile = positionInFile;
+    }
+
+    private Integer integer(TraceHeaderField field) {
+        final int slot = layout.slotOf(field);
+        return slot < 0 ? null : values[slot];
+    }
+
+    private Short shortValue(TraceHeaderField field) {
+        final int slot = layout.slotOf(field);
+        return slot < 0 ? null : (short) values[slot];
+    }
+
+    /**
+     * Codes of fields missing in the format default to zero, as in <code>TraceHeader</code>.
+     */
+    private short shortOrZero(TraceHeaderField field) {
+        final int slot = layout.slotOf(field);
+        return slot < 0 ? 0 : (short) values[slot];
+    }
+
+    /**
+     * Byte fields missing in the format are six zero bytes, as in <code>TraceHeader</code>.
+     */
+    private byte[] bytes(TraceHeaderField field) {
+        final int slot = layout.slotOf(field);
+        if (slot < 0) {
+            return new byte[6];
+        }
+
+        final byte[] bytes = new byte[layout.lengthOf(field)];
+        final long packed = (long) values[slot] << 32 | (values[slot + 1] & 0xFFFFFFFFL);
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (packed >>> (8 * (bytes.length - 1 - i)));
+        }
+
+        return bytes;
+    }
+
+    @Override
+    public Integer getTraceSequenceNumberWL() {
+        return integer(TraceHeaderField.TRACE_SEQUENCE_NUMBER_WL);
+    }
+
+    @Override
+    public Integer getTraceSequenceNumberWS() {
+        return integer(TraceHeaderField.TRACE_SEQUENCE_NUMBER_WS);
+    }
+
+    @Override
+    public Integer getOriginalFieldRecordNumber() {
+        return integer(TraceHeaderField.ORIGINAL_FIELD_RECORD_NUMBER);
+    }
+
+    @Override
+    public Integer getTraceNumberWOFR() {
+        return integer(TraceHeaderField.TRACE_NUMBER_WOFR);
+    }
+
+    @Override
+    public Integer getEnergySourcePointNumber() {
+        return integer(TraceHeaderField.ENERGY_SOURCE_POINT_NUMBER);
+    }
+
+    @Override
+    public Integer getEnsembleNumber() {
+        return integer(TraceHeaderField.ENSEMBLE_NUMBER);
+    }
+
+    @Override
+    public Integer getTraceNumberWEnsemble() {
+        return integer(TraceHeaderField.TRACE_NUMBER_W_ENSEMBLE);
+    }
+
+    @Override
+    public TraceIdentificationCode getTraceIdentificationCode() {
+        return TraceIdentificationCode.create(shortOrZero(TraceHeaderField.TRACE_IDENTIFICATION_CODE));
+    }
+
+    @Override
+    public Short getNumberOfVerticallySummedTraces() {
+        return shortValue(TraceHeaderField.NUMBER_OF_VERTICALLY_SUMMED_TRACES);
+    }
+
+    @Override
+    public Short getNumberOfHorizontallyStackedTraces() {
+        return shortValue(TraceHeaderField.NUMBER_OF_HORIZONTALLY_STACKED_TRACES);
+    }
+
+    @Override
+    public Short getDataUse() {
+        return shortValue(TraceHeaderField.DATA_USE);
+    }
+
+    @Override
+    public Integer getDistanceFromTheCenterOfSP() {
+        return integer(TraceHeaderField.DISTANCE_FROM_THE_CENTER_OF_SP);
+    }
+
+    @Override
+    public Integer getReceiverGroupElevation() {
+        return integer(TraceHeaderField.RECEIVER_GROUP_ELEVATION);
+    }
+
+    @Override
+    public Integer getSurfaceElevationAtSource() {
+        return integer(TraceHeaderField.SURFACE_ELEVATION_AT_SOURCE);
+    }
+
+    @Override
+    public Integer getSourceDepthBelowSurface() {
+        return integer(TraceHeaderField.SOURCE_DEPTH_BELOW_SURFACE);
+    }
+
+    @Override
+    public Integer getDatumElevationAtReceiverGroup() {
+        return integer(TraceHeaderField.DATUM_ELEVATION_AT_RECEIVER_GROUP);
+    }
+
+    @Override
+    public Integer getDatumElevationAtSource() {
+        return integer(TraceHeaderField.DATUM_ELEVATION_AT_SOURCE);
+    }
+
+    @Override
+    public Integer getWaterDepthAtSource() {
+        return integer(TraceHeaderField.WATER_DEPTH_AT_SOURCE);
+    }
+
+    @Override
+    public Integer getWaterDepthAtGroup() {
+        return integer(TraceHeaderField.WATER_DEPTH_AT_GROUP);
+    }
+
+    @Override
+    public Short getScalarForElevations() {
+        return shortValue(TraceHeaderField.SCALAR_FOR_ELEVATIONS);
+    }
+
+    @Override
+    public Short getScalarForCoordinates() {
+        return shortValue(TraceHeaderField.SCALAR_FOR_COORDINATES);
+    }
+
+    @Override
+    public Integer getSourceX() {
+        return integer(TraceHeaderField.SOURCE_X);
+    }
+
+    @Override
+    public Integer getSourceY() {
+        return integer(TraceHeaderField.SOURCE_Y);
+    }
+
+    @Override
+    public Integer getGroupX() {
+        return integer(TraceHeaderField.GROUP_X);
+    }
+
+    @Override
+    public Integer getGroupY() {
+        return integer(TraceHeaderField.GROUP_Y);
+    }
+
+    @Override
+    public CoordinateUnitsCode getCoordinateUnitsCode() {
+        return CoordinateUnitsCode.create(shortOrZero(TraceHeaderField.COORDINATE_UNITS_CODE));
+    }
+
+    @Override
+    public Short getWeatheringVelocity() {
+        return shortValue(TraceHeaderField.WEATHERING_VELOCITY);
+    }
+
+    @Override
+    public Short getSubweatheringVelocity() {
+        return shortValue(TraceHeaderField.SUBWEATHERING_VELOCITY);
+    }
+
+    @Override
+    public Short getUpholeTimeAtSourceInMs() {
+        return shortValue(TraceHeaderField.UPHOLE_TIME_AT_SOURCE_IN_MS);
+    }
+
+    @Override
+    public Short getUpholeTimeAtGroupInMs() {
+        return shortValue(TraceHeaderField.UPHOLE_TIME_AT_GROUP_IN_MS);
+    }
+
+    @Override
+    public Short getSourceStaticCorrectionInMs() {
+        return shortValue(TraceHeaderField.SOURCE_STATIC_CORRECTION_IN_MS);
+    }
+
+    @Override
+    public Short getGroupStaticCorrectionInMs() {
+        return shortValue(TraceHeaderField.GROUP_STATIC_CORRECTION_IN_MS);
+    }
+
+    @Override
+    public Short getTotalStaticAppliedInMs() {
+        return shortValue(TraceHeaderField.TOTAL_STATIC_APPLIED_IN_MS);
+    }
+
+    @Override
+    public Short getLagTimeA() {
+        return shortValue(TraceHeaderField.LAG_TIME_A);
+    }
+
+    @Override
+    public Short getLagTimeB() {
+        return shortValue(TraceHeaderField.LAG_TIME_B);
+    }
+
+    @Override
+    public Short getDelayRecordingTime() {
+        return shortValue(TraceHeaderField.DELAY_RECORDING_TIME);
+    }
+
+    @Override
+    public Short getMuteTimeStart() {
+        return shortValue(TraceHeaderField.MUTE_TIME_START);
+    }
+
+    @Override
+    public Short getMuteTimeEnd() {
+        return shortValue(TraceHeaderField.MUTE_TIME_END);
+    }
+
+    @Override
+    public Short getNumberOfSamples() {
+        return shortValue(TraceHeaderField.NUMBER_OF_SAMPLES);
+    }
+
+    @Override
+    public Short getSampleIntervalInMcs() {
+        return shortValue(TraceHeaderField.SAMPLE_INTERVAL_IN_MCS);
+    }
+
+    @Override
+    public GainTypeForInstruments getGainTypeForInstruments() {
+        return GainTypeForInstruments.create(shortOrZero(TraceHeaderField.GAIN_TYPE_FOR_INSTRUMENTS));
+    }
+
+    @Override
+    public Short getInstrumentGainConstant() {
+        return shortValue(TraceHeaderField.INSTRUMENT_GAIN_CONSTANT);
+    }
+
+    @Override
+    public Short getInstrumentEarlyOrInitialGain() {
+        return shortValue(TraceHeaderField.INSTRUMENT_EARLY_OR_INITIAL_GAIN);
+    }
+
+    @Override
+    public Short getCorrelated() {
+        return shortValue(TraceHeaderField.CORRELATED);
+    }
+
+    @Override
+    public Short getSweepFrequencyAtStart() {
+        return shortValue(TraceHeaderField.SWEEP_FREQUENCY_AT_START);
+    }
+
+    @Override
+    public Short getSweepFrequencyAtEnd() {
+        return shortValue(TraceHeaderField.SWEEP_FREQUENCY_AT_END);
+    }
+
+    @Override
+    public Short getSweepLengthInMilliseconds() {
+        return shortValue(TraceHeaderField.SWEEP_LENGTH_IN_MILLISECONDS);
+    }
+
+    @Override
+    public Short getSweepType() {
+        return shortValue(TraceHeaderField.SWEEP_TYPE);
+    }
+
+    @Override
+    public Short getSweepTraceTaperLengthAtStartInMilliseconds() {
+        return shortValue(TraceHeaderField.SWEEP_TRACE_TAPER_LENGTH_AT_START_IN_MILLISECONDS);
+    }
+
+    @Override
+    public Short getSweepTraceTaperLengthAtEndInMilliseconds() {
+        return shortValue(TraceHeaderField.SWEEP_TRACE_TAPER_LENGTH_AT_END_IN_MILLISECONDS);
+    }
+
+    @Override
+    public Short getTaperType() {
+        return shortValue(TraceHeaderField.TAPER_TYPE);
+    }
+
+    @Override
+    public Short getAliasFilterFrequency() {
+        return shortValue(TraceHeaderField.ALIAS_FILTER_FREQUENCY);
+    }
+
+    @Override
+    public Short getAliasFilterSlope() {
+        return shortValue(TraceHeaderField.ALIAS_FILTER_SLOPE);
+    }
+
+    @Override
+    public Short getNotchFilterFrequency() {
+        return shortValue(TraceHeaderField.NOTCH_FILTER_FREQUENCY);
+    }
+
+    @Override
+    public Short getNotchFilterSlope() {
+        return shortValue(TraceHeaderField.NOTCH_FILTER_SLOPE);
+    }
+
+    @Override
+    public Short getLowCutFrequency() {
+        return shortValue(TraceHeaderField.LOW_CUT_FREQUENCY);
+    }
+
+    @Override
+    public Short getHighCutFrequency() {
+        return shortValue(TraceHeaderField.HIGH_CUT_FREQUENCY);
+    }
+
+    @Override
+    public Short getLowCutSlope() {
+        return shortValue(TraceHeaderField.LOW_CUT_SLOPE);
+    }
+
+    @Override
+    public Short getHighCutSlope() {
+        return shortValue(TraceHeaderField.HIGH_CUT_SLOPE);
+    }
+
+    @Override
+    public Short getYearDataRecorded() {
+        return shortValue(TraceHeaderField.YEAR_DATA_RECORDED);
+    }
+
+    @Override
+    public Short getDayOfYear() {
+        return shortValue(TraceHeaderField.DAY_OF_YEAR);
+    }
+
+    @Override
+    public Short getHourOfDay() {
+        return shortValue(TraceHeaderField.HOUR_OF_DAY);
+    }
+
+    @Override
+    public Short getMinuteOfHour() {
+        return shortValue(TraceHeaderField.MINUTE_OF_HOUR);
+    }
+
+    @Override
+    public Short getSecondOfMinute() {
+        return shortValue(TraceHeaderField.SECOND_OF_MINUTE);
+    }
+
+    @Override
+    public Short getTimeBasisCode() {
+        return shortValue(TraceHeaderField.TIME_BASIS_CODE);
+    }
+
+    @Override
+    public Short getTraceWeightingFactor() {
+        return shortValue(TraceHeaderField.TRACE_WEIGHTING_FACTOR);
+    }
+
+    @Override
+    public Short getGeophoneGroupNumberOfRollSwitchPositionOne() {
+        return shortValue(TraceHeaderField.GEOPHONE_GROUP_NUMBER_OF_ROLL_SWITCH_POSITION_ONE);
+    }
+
+    @Override
+    public Short getGeophoneGroupNumberOfTraceNumberOneWOFR() {
+        return shortValue(TraceHeaderField.GEOPHONE_GROUP_NUMBER_OF_TRACE_NUMBER_ONE_WOFR);
+    }
+
+    @Override
+    public Short getGeophoneGroupNumberOfLastTraceWOFR() {
+        return shortValue(TraceHeaderField.GEOPHONE_GROUP_NUMBER_OF_LAST_TRACE_WOFR);
+    }
+
+    @Override
+    public Short getGapSize() {
+        return shortValue(TraceHeaderField.GAP_SIZE);
+    }
+
+    @Override
+    public Short getOverTravel() {
+        return shortValue(TraceHeaderField.OVER_TRAVEL);
+    }
+
+    @Override
+    public Integer getxOfCDPPosition() {
+        return integer(TraceHeaderField.X_OF_CDP_POSITION);
+    }
+
+    @Override
+    public Integer getyOfCDPPosition() {
+        return integer(TraceHeaderField.Y_OF_CDP_POSITION);
+    }
+
+    @Override
+    public Integer getInLineNumber() {
+        return integer(TraceHeaderField.IN_LINE_NUMBER);
+    }
+
+    @Override
+    public Integer getCrossLineNumber() {
+        return integer(TraceHeaderField.CROSS_LINE_NUMBER);
+    }
+
+    @Override
+    public Integer getShotpointNumber() {
+        return integer(TraceHeaderField.SHOTPOINT_NUMBER);
+    }
+
+    @Override
+    public Short getScalarForSPNumber() {
+        return shortValue(TraceHeaderField.SCALAR_FOR_SP_NUMBER);
+    }
+
+    @Override
+    public Short getTraceValuesMU() {
+        return shortValue(TraceHeaderField.TRACE_VALUES_MU);
+    }
+
+    @Override
+    public byte[] getTransductionConstant() {
+        return bytes(TraceHeaderField.TRANSDUCTION_CONSTANT);
+    }
+
+    @Override
+    public Short getTransductionUnits() {
+        return shortValue(TraceHeaderField.TRANSDUCTION_UNITS);
+    }
+
+    @Override
+    public Short getDeviceTraceIdentifier() {
+        return shortValue(TraceHeaderField.DEVICE_TRACE_IDENTIFIER);
+    }
+
+    @Override
+    public Short getScalarToBeAppliedToTimes() {
+        return shortValue(TraceHeaderField.SCALAR_TO_BE_APPLIED_TO_TIMES);
+    }
+
+    @Override
+    public Short getSourceTypeOrientation() {
+        return shortValue(TraceHeaderField.SOURCE_TYPE_ORIENTATION);
+    }
+
+    @Override
+    public byte[] getSourceEnergyDirection() {
+        return bytes(TraceHeaderField.SOURCE_ENERGY_DIRECTION);
+    }
+
+    @Override
+    public byte[] getSourceMeasurement() {
+        return bytes(TraceHeaderField.SOURCE_MEASUREMENT);
+    }
+
+    @Override
+    public Short getSourceMeasurementUnit() {
+        return shortValue(TraceHeaderField.SOURCE_MEASUREMENT_UNIT);
+    }
+
+    /**
+     * Fields present in a trace header format and their slots in compact headers.
+     * <p/>
+     * Integer fields take one slot, byte fields of up to eight bytes take two.
+     */
+    public static final class Layout {
+        private static final int FIELD_COUNT = TraceHeaderField.values().length;
+
+        private final long[] presence = new long[(FIELD_COUNT + 63) / 64];
+        private final int[] slots = new int[FIELD_COUNT];
+        private final int[] lengths = new int[FIELD_COUNT];
+        private final int size;
+
+        /**
+         * @param fields  present fields
+         * @param lengths length of every field in bytes
+         */
+        public Layout(TraceHeaderField[] fields, int[] lengths) {
+            Arrays.fill(slots, -1);
+
+            int size = 0;
+            for (int i = 0; i < fields.length; i++) {
+                final int ordinal = fields[i].ordinal();
+                if (fields[i].getKind() == TraceHeaderField.Kind.BYTES && lengths[i] > 8) {
+                    throw new IllegalArgumentException("Field " + fields[i] + " is longer than eight bytes");
+                }
+
+                presence[ordinal >>> 6] |= 1L << ordinal;
+                slots[ordinal] = size;
+                this.lengths[ordinal] = lengths[i];
+                size += fields[i].getKind() == TraceHeaderField.Kind.BYTES ? 2 : 1;
+            }
+
+            this.size = size;
+        }
+
+        public boolean isPresent(TraceHeaderField field) {
+            final int ordinal = field.ordinal();
+            return (presence[ordinal >>> 6] & 1L << ordinal) != 0;
+        }
+
+        /**
+         * Returns the first slot of the field or -1 if it is not present.
+         */
+        public int slotOf(TraceHeaderField field) {
+            return slots[field.ordinal()];
+        }
+
+        public int lengthOf(TraceHeaderField field) {
+            return lengths[field.ordinal()];
+        }
+
+        /**
+         * Returns the number of slots in a compact header.
+         */
+        public int size() {
+            return size;
+        }
+    }
+}
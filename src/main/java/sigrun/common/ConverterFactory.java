@@ -1,21 +1,88 @@
 package sigrun.common;
 
+import sigrun.converters.BulkIBM360Converter;
+import sigrun.converters.BulkIEEEConverter;
+import sigrun.converters.BulkTwosComplementIntConverter;
+import sigrun.converters.BulkTwosComplementShortConverter;
+import sigrun.converters.FixedPointGainConverter;
 import sigrun.converters.IBM360Converter;
 import sigrun.converters.IEEEConverter;
 import sigrun.converters.SeismicValuesConverter;
+import sigrun.converters.TwosComplementByteConverter;
+import sigrun.converters.TwosComplementIntConverter;
+import sigrun.converters.TwosComplementShortConverter;
 
 /**
  * Created by maksenov on 16/01/15.
  */
 public class ConverterFactory {
+    /**
+     * System property that makes <code>getConverter</code> return bulk converters. It is read once, when the class is
+     * loaded.
+     */
+    public static final String BULK_PROPERTY = "sigrun.bulkDecode";
+    private static final boolean BULK = Boolean.getBoolean(BULK_PROPERTY);
+
+    /* Converters hold no state, so a single instance of each is shared by all streams and threads */
+    private static final SeismicValuesConverter IBM = new IBM360Converter();
+    private static final SeismicValuesConverter IEEE = new IEEEConverter();
+    private static final SeismicValuesConverter INT = new TwosComplementIntConverter();
+    private static final SeismicValuesConverter SHORT = new TwosComplementShortConverter();
+    private static final SeismicValuesConverter BYTE = new TwosComplementByteConverter();
+    private static final SeismicValuesConverter FIXED_POINT_GAIN = new FixedPointGainConverter();
+    private static final SeismicValuesConverter BULK_IBM = new BulkIBM360Converter();
+    private static final SeismicValuesConverter BULK_IEEE = new BulkIEEEConverter();
+    private static final SeismicValuesConverter BULK_INT = new BulkTwosComplementIntConverter();
+    private static final SeismicValuesConverter BULK_SHORT = new BulkTwosComplementShortConverter();
+
+    /**
+     * Returns the shared converter for the data sample format.
+     */
     public static SeismicValuesConverter getConverter(DataSample sample) {
+        if (BULK) {
+            return getBulkConverter(sample);
+        }
+
+        return getScalarConverter(sample);
+    }
+
+    private static SeismicValuesConverter getScalarConverter(DataSample sample) {
         switch (sample) {
             case IBM_FP:
-                return new IBM360Converter();
+                return IBM;
             case IEEE_FP:
-                return new IEEEConverter();
+                return IEEE;
+            case TC_4B_I:
+                return INT;
+            case TC_2B_I:
+                return SHORT;
+            case TC_1B_I:
+                return BYTE;
+            case FP_G:
+                return FIXED_POINT_GAIN;
             default:
                 throw new UnsupportedOperationException("Converter is not implemented yet");
         }
     }
+
+    /**
+     * Returns the shared converter that decodes whole traces with bulk copies, or the scalar one if the format has no
+     * bulk variant. One byte integers have none: there is nothing to swap, so their scalar loop is already a single
+     * pass. Fixed-point samples with gain have none either, as bulk swapping gained too little over the scalar loop.
+     * The IBM variant is experimental: it is not reliably faster than the scalar converter.
+     */
+    public static SeismicValuesConverter getBulkConverter(DataSample sample) {
+        switch (sample) {
+            case IBM_FP:
+                return BULK_IBM;
+            case IEEE_FP:
+                return BULK_IEEE;
+            case TC_4B_I:
+                return BULK_INT;
+            case TC_2B_I:
+                return BULK_SHORT;
+            default:
+                return getScalarConverter(sample);
+        }
+    }
 }
@@ -0,0 +1,35 @@
+package sigrun.common;
+
+/**
+ * Accumulates trace headers of a partition of a file and combines partition results.
+ * <p/>
+ * Partitions are processed concurrently, each one by a single thread, so <code>accumulate</code> never sees two
+ * threads working on the same partial result.
+ *
+ * @param <T> type of the partial and final result
+ */
+public interface HeaderReducer<T> {
+    /**
+     * Creates an empty partial result for a partition.
+     */
+    T createPartial();
+
+    /**
+     * Adds a trace header to the partial result. Headers of a partition are passed in trace order.
+     *
+     * @param partial partial result of the partition
+     * @param index   index of the trace in the file
+     * @param header  parsed trace header
+     * @return updated partial result
+     */
+    T accumulate(T partial, long index, TraceHeader header);
+
+    /**
+     * Combines results of two adjacent partitions.
+     *
+     * @param left  result of the partition with lower trace indexes
+     * @param right result of the partition that follows it
+     * @return combined result
+     */
+    T merge(T left, T right);
+}
@@ -0,0 +1,237 @@
+package sigrun.common;
+
+import sigrun.serialization.FormatEntry;
+
+import java.util.Arrays;
+
+/**
+ * Selected header fields of every trace of a file, stored by columns.
+ * <p/>
+ * Every field becomes one primitive array indexed by trace: <code>short[]</code> for 1 and 2 byte fields and
+ * <code>int[]</code> for 4 byte fields. The table is filled by a single parallel scan of raw headers, so neither a
+ * <code>TraceHeader</code> nor a boxed value is created per trace. Column operations are plain loops over these
+ * arrays.
+ */
+public class HeaderTable {
+    private final FormatEntry[] fields;
+    private final int size;
+    private final int[][] intColumns;
+    private final short[][] shortColumns;
+
+    private HeaderTable(FormatEntry[] fields, int size) {
+        this.fields = fields.clone();
+        this.size = size;
+        this.intColumns = new int[fields.length][];
+        this.shortColumns = new short[fields.length][];
+
+        for (int c = 0; c < fields.length; c++) {
+            final int length = fields[c].length();
+            if (fields[c].posStart < 0 || fields[c].posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (length != 1 && length != 2 && length != 4)) {
+                throw new IllegalArgumentException("Field " + fields[c] + " is not an integer field of the trace header");
+            }
+
+            if (length == 4) {
+                intColumns[c] = new int[size];
+            } else {
+                shortColumns[c] = new short[size];
+            }
+        }
+    }
+
+    /**
+     * Loads the fields of all traces.
+     *
+     * @param scanner scanner over the file
+     * @param fields  header entries to load, 1, 2 or 4 bytes wide
+     * @return filled table
+     */
+    public static HeaderTable load(ParallelHeaderScanner scanner, FormatEntry... fields) {
+        if (scanner.getNumberOfTraces() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("File of " + scanner.getNumberOfTraces() + " traces is too large");
+        }
+
+        final HeaderTable table = new HeaderTable(fields, (int) scanner.getNumberOfTraces());
+
+        /* Partitions write disjoint ranges of the same arrays, the scanner publishes them when it merges */
+        return scanner.scanRaw(new RawHeaderReducer<HeaderTable>() {
+            @Override
+            public HeaderTable createPartial() {
+                return table;
+            }
+
+            @Override
+            public HeaderTable accumulate(HeaderTable partial, long index, long position, byte[] header) {
+                table.fill((int) index, header);
+                return table;
+            }
+
+            @Override
+            public HeaderTable merge(HeaderTable left, HeaderTable right) {
+                return table;
+            }
+        });
+    }
+
+    private void fill(int trace, byte[] header) {
+        for (int c = 0; c < fields.length; c++) {
+            final int value = fields[c].readInt(header, 0);
+            if (intColumns[c] != null) {
+                intColumns[c][trace] = value;
+            } else {
+                shortColumns[c][trace] = (short) value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of traces.
+     */
+    public int size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return fields.length;
+    }
+
+    public FormatEntry getField(int column) {
+        return fields[column];
+    }
+
+    /**
+     * Returns the value of a field of a trace.
+     */
+    public int get(int column, int trace) {
+        return intColumns[column] != null ? intColumns[column][trace] : shortColumns[column][trace];
+    }
+
+    /**
+     * Returns the backing array of a 4 byte field. The array is not copied.
+     *
+     * @throws IllegalArgumentException if the field is narrower
+     */
+    public int[] getIntColumn(int column) {
+        if (intColumns[column] == null) {
+            throw new IllegalArgumentException("Field " + fields[column] + " is stored as short");
+        }
+
+        return intColumns[column];
+    }
+
+    /**
+     * Returns the backing array of a 1 or 2 byte field. The array is not copied.
+     *
+     * @throws IllegalArgumentException if the field is wider
+     */
+    public short[] getShortColumn(int column) {
+        if (shortColumns[column] == null) {
+            throw new IllegalArgumentException("Field " + fields[column] + " is stored as int");
+        }
+
+        return shortColumns[column];
+    }
+
+    /**
+     * Returns a copy of a column widened to <code>int</code>.
+     */
+    public int[] toIntArray(int column) {
+        if (intColumns[column] != null) {
+            return intColumns[column].clone();
+        }
+
+        final short[] source = shortColumns[column];
+        final int[] result = new int[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = source[i];
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns the minimal value of a column or <code>Integer.MAX_VALUE</code> for an empty table.
+     */
+    public int min(int column) {
+        int min = Integer.MAX_VALUE;
+
+        if (intColumns[column] != null) {
+            final int[] values = intColumns[column];
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, values[i]);
+            }
+        } else {
+            final short[] values = shortColumns[column];
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, values[i]);
+            }
+        }
+
+        return min;
+    }
+
+    /**
+     * Returns the maximal value of a column or <code>Integer.MIN_VALUE</code> for an empty table.
+     */
+    public int max(int column) {
+        int max = Integer.MIN_VALUE;
+
+        if (intColumns[column] != null) {
+            final int[] values = intColumns[column];
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, values[i]);
+            }
+        } else {
+            final short[] values = shortColumns[column];
+            for (int i = 0; i < size; i++) {
+                max = Math.max(max, values[i]);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Returns differences of adjacent values, <code>diff[i] = value[i + 1] - value[i]</code>.
+     */
+    public int[] diff(int column) {
+        final int[] diff = new int[Math.max(0, size - 1)];
+
+        if (intColumns[column] != null) {
+            final int[] values = intColumns[column];
+            for (int i = 0; i < diff.length; i++) {
+                diff[i] = values[i + 1] - values[i];
+            }
+        } else {
+            final short[] values = shortColumns[column];
+            for (int i = 0; i < diff.length; i++) {
+                diff[i] = values[i + 1] - values[i];
+            }
+        }
+
+        return diff;
+    }
+
+    /**
+     * Finds runs of equal adjacent values, e.g. the traces of every inline of a file sorted by inlines.
+     *
+     * @return index of the first trace of every run, followed by <code>size()</code>
+     */
+    public int[] runs(int column) {
+        int[] starts = new int[16];
+        int count = 0;
+
+        for (int i = 0; i < size; i++) {
+            if (i == 0 || get(column, i) != get(column, i - 1)) {
+                if (count + 1 == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = i;
+            }
+        }
+
+        starts[count] = size;
+
+        return Arrays.copyOf(starts, count + 1);
+    }
+}
@@ -1,21 +1,27 @@
 package sigrun.common;
 
-import sigrun.converters.SeismicValuesConverter;
-
 /**
  * Created by maksenov on 15/01/15.
  */
 public class LiteSeismicTrace {
+    /* Samples are never decoded for a lite trace, so all of them share one placeholder */
+    private static final float[] NO_VALUES = new float[1];
+
     private final TraceHeader header;
-    private final float[] values;
 
-    public static LiteSeismicTrace create(final TraceHeader header, DataSample sample) {
-        SeismicValuesConverter converter = ConverterFactory.getConverter(sample);
+    public static LiteSeismicTrace create(final TraceHeader header) {
         return new LiteSeismicTrace(header);
     }
 
+    /**
+     * @deprecated the data sample format is not used, call <code>create(TraceHeader)</code>
+     */
+    @Deprecated
+    public static LiteSeismicTrace create(final TraceHeader header, DataSample sample) {
+        return create(header);
+    }
+
     private LiteSeismicTrace(TraceHeader header) {
-        values = new float[1];
         this.header = header;
     }
 
@@ -32,6 +38,6 @@ public class LiteSeismicTrace {
     }
 
     public float[] getValues() {
-        return values;
+        return NO_VALUES;
     }
 }
@@ -0,0 +1,269 @@
+package sigrun.common;
+
+import sigrun.serialization.FormatEntry;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap store of header fields addressed by <code>long</code> trace indexes.
+ * <p/>
+ * Values live in a memory-mapped file, so the store is limited by disk rather than by the heap and the garbage
+ * collector never sees them. The file is a header page followed by chunks of a fixed number of traces; a chunk holds
+ * one <code>int</code> segment per field, so a scan of one field stays sequential within a chunk. Chunks are mapped
+ * as the store grows and stay mapped until the store becomes unreachable.
+ * <p/>
+ * Traces are appended by a single thread. Reads of traces below <code>size()</code> may run concurrently with each
+ * other but not with appends.
+ */
+public class MappedHeaderStore implements Closeable {
+    private static final int MAGIC = 0x53474853; /* SGHS */
+    private static final int VERSION = 1;
+    private static final int PAGE_SIZE = 4096;
+    private static final int MAX_CHUNK_BITS = 22;
+    private static final int SCAN_BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel chan;
+    private final FormatEntry[] fields;
+    private final int chunkBits;
+    private final int chunkMask;
+    private final long chunkBytes;
+    /* Column segments of every mapped chunk */
+    private final List<IntBuffer[]> chunks = new ArrayList<IntBuffer[]>();
+    private final List<MappedByteBuffer> mappings = new ArrayList<MappedByteBuffer>();
+    private final int[] row;
+    private long size;
+
+    private MappedHeaderStore(RandomAccessFile file, FormatEntry[] fields, long size) throws IOException {
+        if (fields.length == 0 || 4 + 8 * fields.length + 16 > PAGE_SIZE) {
+            throw new IllegalArgumentException("Store needs between one and " + (PAGE_SIZE - 20) / 8 + " fields");
+        }
+
+        for (FormatEntry field : fields) {
+            final int length = field.length();
+            if (field.posStart < 0 || field.posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (length != 1 && length != 2 && length != 4)) {
+                throw new IllegalArgumentException("Field " + field + " is not an integer field of the trace header");
+            }
+        }
+
+        this.file = file;
+        this.chan = file.getChannel();
+        this.fields = fields.clone();
+        this.row = new int[fields.length];
+        this.size = size;
+
+        /* A chunk has to be mappable as a whole */
+        int bits = MAX_CHUNK_BITS;
+        while (((long) 4 * fields.length << bits) > Integer.MAX_VALUE) {
+            bits--;
+        }
+        this.chunkBits = bits;
+        this.chunkMask = (1 << bits) - 1;
+        this.chunkBytes = (long) 4 * fields.length << bits;
+
+        for (long mapped = 0; mapped < size; mapped += 1L << chunkBits) {
+            mapChunk();
+        }
+    }
+
+    /**
+     * Creates an empty store, replacing the file if it exists.
+     *
+     * @param storeFile file that backs the store
+     * @param fields    header entries to store, 1, 2 or 4 bytes wide
+     */
+    public static MappedHeaderStore create(File storeFile, FormatEntry... fields) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+        file.setLength(0);
+
+        final MappedHeaderStore store = new MappedHeaderStore(file, fields, 0);
+        store.writePage();
+
+        return store;
+    }
+
+    /**
+     * Creates an empty store backed by a temporary file that is deleted when the JVM exits.
+     */
+    public static MappedHeaderStore createTemp(FormatEntry... fields) throws IOException {
+        final File temp = File.createTempFile("sigrun", ".hdr");
+        temp.deleteOnExit();
+
+        return create(temp, fields);
+    }
+
+    /**
+     * Opens a store written earlier. Appends continue after the last flushed trace.
+     */
+    public static MappedHeaderStore open(File storeFile) throws IOException {
+        final RandomAccessFile file = new RandomAccessFile(storeFile, "rw");
+
+        try {
+            final ByteBuffer page = ByteBuffer.allocate(PAGE_SIZE);
+            file.getChannel().read(page, 0);
+            page.flip();
+
+            if (page.remaining() < 20 || page.getInt() != MAGIC || page.getInt() != VERSION) {
+                throw new SEGYStreamException(storeFile + " is not a header store of this version");
+            }
+
+            final long size = page.getLong();
+            final FormatEntry[] fields = new FormatEntry[page.getInt()];
+            for (int c = 0; c < fields.length; c++) {
+                fields[c] = FormatEntry.create(page.getInt(), page.getInt());
+            }
+
+            return new MappedHeaderStore(file, fields, size);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        } catch (RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends the fields of every trace of the stream in a single sequential pass. Traces may vary in length.
+     *
+     * @param stream stream over the file to index
+     * @param store  store with the fields to extract
+     * @return the store
+     */
+    public static MappedHeaderStore scan(SEGYStream stream, MappedHeaderStore store) throws IOException {
+        final RawTraceWalker walker = new RawTraceWalker(stream, SCAN_BLOCK_SIZE);
+
+        while (walker.next()) {
+            store.append(walker.header());
+        }
+        store.flush();
+
+        return store;
+    }
+
+    private void writePage() throws IOException {
+        final ByteBuffer page = ByteBuffer.allocate(20 + 8 * fields.length);
+        page.putInt(MAGIC).putInt(VERSION).putLong(size).putInt(fields.length);
+        for (FormatEntry field : fields) {
+            page.putInt(field.posStart).putInt(field.posEnd);
+        }
+        page.flip();
+
+        while (page.hasRemaining()) {
+            chan.write(page, page.position());
+        }
+    }
+
+    private void mapChunk() throws IOException {
+        final long position = PAGE_SIZE + chunks.size() * chunkBytes;
+        final MappedByteBuffer chunk = chan.map(FileChannel.MapMode.READ_WRITE, position, chunkBytes);
+
+        final IntBuffer[] columns = new IntBuffer[fields.length];
+        final int segment = (int) (chunkBytes / fields.length);
+        for (int c = 0; c < fields.length; c++) {
+            chunk.limit((c + 1) * segment).position(c * segment);
+            columns[c] = chunk.slice().asIntBuffer();
+        }
+
+        chunks.add(columns);
+        mappings.add(chunk);
+    }
+
+    /**
+     * Extracts the fields from a raw trace header and appends them as the next trace.
+     *
+     * @return index of the appended trace
+     */
+    public long append(byte[] header) throws IOException {
+        for (int c = 0; c < fields.length; c++) {
+            row[c] = fields[c].readInt(header, 0);
+        }
+
+        return appendRow(row);
+    }
+
+    /**
+     * Appends the next trace.
+     *
+     * @param values value of every field in the order of the store
+     * @return index of the appended trace
+     */
+    public long appendRow(int... values) throws IOException {
+        if (values.length != fields.length) {
+            throw new IllegalArgumentException("Expected " + fields.length + " values, got " + values.length);
+        }
+
+        final int chunk = (int) (size >>> chunkBits);
+        if (chunk == chunks.size()) {
+            mapChunk();
+        }
+
+        final IntBuffer[] columns = chunks.get(chunk);
+        final int slot = (int) (size & chunkMask);
+        for (int c = 0; c < values.length; c++) {
+            columns[c].put(slot, values[c]);
+        }
+
+        return size++;
+    }
+
+    /**
+     * Returns the value of a field of a trace.
+     */
+    public int get(int column, long trace) {
+        if (trace < 0 || trace >= size) {
+            throw new IndexOutOfBoundsException("Trace index " + trace + " is out of range [0, " + size + ")");
+        }
+
+        return chunks.get((int) (trace >>> chunkBits))[column].get((int) (trace & chunkMask));
+    }
+
+    /**
+     * Returns the number of stored traces.
+     */
+    public long size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return fields.length;
+    }
+
+    public FormatEntry getField(int column) {
+        return fields[column];
+    }
+
+    /**
+     * Records the number of traces in the file and forces mapped values to disk.
+     */
+    public void flush() throws IOException {
+        for (MappedByteBuffer mapping : mappings) {
+            mapping.force();
+        }
+
+        writePage();
+        chan.force(false);
+    }
+
+    /**
+     * Flushes the store and closes its file. Mapped chunks are released by the garbage collector.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            file.close();
+        }
+    }
+}
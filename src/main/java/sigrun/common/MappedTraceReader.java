@@ -0,0 +1,229 @@
+package sigrun.common;
+
+import sigrun.serialization.TraceHeaderReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Random access reader for fixed-length SEG-Y files.
+ * <p/>
+ * The trace area of the file is mapped into memory through a small sliding set of <code>MappedByteBuffer</code>
+ * windows, each of them holding a whole number of traces, so files larger than 2 GB can be addressed and no trace
+ * ever spans two windows. Once a window is mapped, reading a header or samples costs neither a system call nor an
+ * allocation (apart from the returned <code>TraceHeader</code> itself).
+ * <p/>
+ * Instances are not thread-safe.
+ */
+public class MappedTraceReader implements Closeable {
+    public static final int DEFAULT_WINDOW_SIZE = 256 * 1024 * 1024;
+    public static final int DEFAULT_MAX_WINDOWS = 8;
+
+    private final FileChannel chan;
+    private final TraceHeaderReader traceHeaderReader;
+    private final long headerLength;
+    private final long traceLength;
+    private final int dataLength;
+    private final long numberOfTraces;
+    private final long tracesPerWindow;
+
+    private final MappedByteBuffer[] windows;
+    private final long[] windowIds;
+    private final long[] windowUsage;
+    private long usageCounter = 0;
+    private int lastSlot = -1;
+
+    private final byte[] headerBytes = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+
+    public MappedTraceReader(SEGYStream stream, long samples) {
+        this(stream, samples, DEFAULT_WINDOW_SIZE, DEFAULT_MAX_WINDOWS);
+    }
+
+    /**
+     * Creates a reader over the traces of the stream.
+     *
+     * @param stream     opened SEG-Y stream
+     * @param samples    number of samples in every trace
+     * @param windowSize maximal size of a single mapped window in bytes
+     * @param maxWindows maximal number of windows mapped at the same time
+     * @throws IllegalArgumentException if the file does not consist of fixed-length traces
+     */
+    public MappedTraceReader(SEGYStream stream, long samples, int windowSize, int maxWindows) {
+        if (!stream.isIdeaFile(samples)) {
+            throw new IllegalArgumentException("File is not a fixed-length SEGY with " + samples + " samples per trace");
+        }
+
+        if (windowSize <= 0 || maxWindows <= 0) {
+            throw new IllegalArgumentException("Window size and number of windows must be positive");
+        }
+
+        this.chan = stream.getChannel();
+        this.traceHeaderReader = stream.getTraceHeaderReader();
+        this.headerLength = stream.getHeaderLength();
+        this.traceLength = stream.getTraceLength(samples);
+        this.dataLength = (int) (traceLength - TraceHeader.TRACE_HEADER_LENGTH);
+        this.numberOfTraces = stream.getNumberOfTrace(samples);
+        this.tracesPerWindow = Math.max(1, windowSize / traceLength);
+
+        if (tracesPerWindow * traceLength > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trace is too long to be mapped");
+        }
+
+        this.windows = new MappedByteBuffer[maxWindows];
+        this.windowIds = new long[maxWindows];
+        this.windowUsage = new long[maxWindows];
+    }
+
+    public long getNumberOfTraces() {
+        return numberOfTraces;
+    }
+
+    public long getTraceLength() {
+        return traceLength;
+    }
+
+    /**
+     * Returns the length of the sample data of a single trace in bytes.
+     *
+     * @return length of trace data
+     */
+    public int getDataLength() {
+        return dataLength;
+    }
+
+    /**
+     * Reads and parses the header of the trace.
+     *
+     * @param index index of the trace starting from zero
+     * @return parsed trace header
+     */
+    public TraceHeader header(long index) {
+        readHeaderBytes(index, headerBytes);
+
+        final TraceHeader header = traceHeaderReader.read(headerBytes);
+        header.setPositionInFile(headerLength + index * traceLength);
+
+        return header;
+    }
+
+    /**
+     * Copies raw header bytes of the trace.
+     *
+     * @param index       index of the trace starting from zero
+     * @param destination array of at least <code>TraceHeader.TRACE_HEADER_LENGTH</code> bytes
+     */
+    public void readHeaderBytes(long index, byte[] destination) {
+        final MappedByteBuffer window = window(index);
+        window.position(offsetInWindow(index));
+        window.get(destination, 0, TraceHeader.TRACE_HEADER_LENGTH);
+    }
+
+    /**
+     * Copies raw sample bytes of the trace.
+     *
+     * @param index       index of the trace starting from zero
+     * @param destination array of at least <code>getDataLength()</code> bytes
+     */
+    public void readSampleBytes(long index, byte[] destination) {
+        readSampleBytes(index, destination, 0);
+    }
+
+    public void readSampleBytes(long index, byte[] destination, int offset) {
+        final MappedByteBuffer window = window(index);
+        window.position(offsetInWindow(index) + TraceHeader.TRACE_HEADER_LENGTH);
+        window.get(destination, offset, dataLength);
+    }
+
+    /**
+     * Reads a big-endian 4 byte value at the given position of the trace.
+     *
+     * @param index  index of the trace starting from zero
+     * @param offset offset from the beginning of the trace header in bytes
+     * @return value at the position
+     */
+    public int getTraceInt(long index, int offset) {
+        checkOffset(offset, 4);
+        return window(index).getInt(offsetInWindow(index) + offset);
+    }
+
+    /**
+     * Reads a big-endian 2 byte value at the given position of the trace.
+     *
+     * @param index  index of the trace starting from zero
+     * @param offset offset from the beginning of the trace header in bytes
+     * @return value at the position
+     */
+    public short getTraceShort(long index, int offset) {
+        checkOffset(offset, 2);
+        return window(index).getShort(offsetInWindow(index) + offset);
+    }
+
+    private void checkOffset(int offset, int width) {
+        if (offset < 0 || offset + width > traceLength) {
+            throw new IndexOutOfBoundsException("Offset " + offset + " is out of trace bounds");
+        }
+    }
+
+    private int offsetInWindow(long index) {
+        return (int) ((index % tracesPerWindow) * traceLength);
+    }
+
+    private MappedByteBuffer window(long index) {
+        if (index < 0 || index >= numberOfTraces) {
+            throw new IndexOutOfBoundsException("Trace index " + index + " is out of range [0, " + numberOfTraces + ")");
+        }
+
+        final long id = index / tracesPerWindow;
+
+        if (lastSlot >= 0 && windowIds[lastSlot] == id && windows[lastSlot] != null) {
+            return windows[lastSlot];
+        }
+
+        int victim = 0;
+        for (int i = 0; i < windows.length; i++) {
+            if (windows[i] == null) {
+                victim = i;
+                break;
+            }
+
+            if (windowIds[i] == id) {
+                windowUsage[i] = ++usageCounter;
+                lastSlot = i;
+                return windows[i];
+            }
+
+            if (windowUsage[i] < windowUsage[victim]) {
+                victim = i;
+            }
+        }
+
+        final long firstTrace = id * tracesPerWindow;
+        final long size = Math.min(tracesPerWindow, numberOfTraces - firstTrace) * traceLength;
+
+        try {
+            windows[victim] = chan.map(FileChannel.MapMode.READ_ONLY, headerLength + firstTrace * traceLength, size);
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to map traces starting from " + firstTrace, e);
+        }
+
+        windowIds[victim] = id;
+        windowUsage[victim] = ++usageCounter;
+        lastSlot = victim;
+
+        return windows[victim];
+    }
+
+    /**
+     * Releases references to the mapped windows. The underlying channel is owned by the stream and stays open.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = null;
+        }
+
+        lastSlot = -1;
+    }
+}
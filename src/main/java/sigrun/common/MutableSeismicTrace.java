@@ -0,0 +1,81 @@
+package sigrun.common;
+
+import sigrun.converters.SeismicValuesConverter;
+
+/**
+ * Seismic trace whose sample array is reused from trace to trace.
+ * <p/>
+ * Only the first <code>getLength()</code> elements of <code>getValues()</code> belong to the current trace. The array
+ * is replaced by a larger one only when a trace does not fit into it, so a stream of equally long traces is decoded
+ * without allocations.
+ */
+public class MutableSeismicTrace {
+    private TraceHeader header;
+    private float[] values;
+    private int length;
+    private float min;
+    private float max;
+
+    /**
+     * @param values initial sample array, may be null to allocate one on the first trace
+     */
+    public MutableSeismicTrace(float[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Decodes trace samples, then takes their min and max values.
+     *
+     * @param header    header of the trace
+     * @param bytes     raw sample bytes
+     * @param count     number of samples
+     * @param converter converter for the data sample format of the file
+     */
+    public void fill(TraceHeader header, byte[] bytes, int count, SeismicValuesConverter converter) {
+        if (values == null || values.length < count) {
+            values = new float[count];
+        }
+
+        converter.convert(bytes, 0, values, count);
+
+        /*
+         * A second loop over the decoded samples: converters are shared by all callers and only decode. It runs right
+         * after decoding, so a trace that fits the CPU cache is not fetched from memory again.
+         */
+        float min = count > 0 ? values[0] : 0;
+        float max = min;
+        for (int i = 1; i < count; i++) {
+            final float value = values[i];
+            if (value < min) {
+                min = value;
+            } else if (value > max) {
+                max = value;
+            }
+        }
+
+        this.header = header;
+        this.length = count;
+        this.min = min;
+        this.max = max;
+    }
+
+    public TraceHeader getHeader() {
+        return header;
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public float getMin() {
+        return min;
+    }
+
+    public float getMax() {
+        return max;
+    }
+}
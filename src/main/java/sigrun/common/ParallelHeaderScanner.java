@@ -0,0 +1,201 @@
+package sigrun.common;
+
+import sigrun.serialization.TraceHeaderReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Scans trace headers of a fixed-length SEG-Y file on several threads.
+ * <p/>
+ * Trace offsets of such files are computable, so the traces are split into contiguous partitions. Every partition
+ * is read with positional reads, and partition results are merged in trace order by a <code>HeaderReducer</code>,
+ * which receives parsed headers, or by a <code>RawHeaderReducer</code>, which receives header bytes.
+ */
+public class ParallelHeaderScanner {
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+    private static final int PARTITIONS_PER_THREAD = 4;
+
+    private final FileChannel chan;
+    private final SEGYStream stream;
+    private final long headerLength;
+    private final long traceLength;
+    private final long numberOfTraces;
+    private final int threads;
+    private final int blockSize;
+
+    public ParallelHeaderScanner(SEGYStream stream, long samples) {
+        this(stream, samples, Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * @param stream    opened SEG-Y stream
+     * @param samples   number of samples in every trace
+     * @param threads   number of worker threads
+     * @param blockSize preferred size of a single read; traces longer than half of it are read header only
+     * @throws IllegalArgumentException if the file does not consist of fixed-length traces
+     */
+    public ParallelHeaderScanner(SEGYStream stream, long samples, int threads, int blockSize) {
+        if (!stream.isIdeaFile(samples)) {
+            throw new IllegalArgumentException("File is not a fixed-length SEGY with " + samples + " samples per trace");
+        }
+
+        if (threads <= 0 || blockSize <= 0) {
+            throw new IllegalArgumentException("Number of threads and block size must be positive");
+        }
+
+        this.stream = stream;
+        this.chan = stream.getChannel();
+        this.headerLength = stream.getHeaderLength();
+        this.traceLength = stream.getTraceLength(samples);
+        this.numberOfTraces = stream.getNumberOfTrace(samples);
+        this.threads = threads;
+        this.blockSize = blockSize;
+    }
+
+    public SEGYStream getStream() {
+        return stream;
+    }
+
+    public long getNumberOfTraces() {
+        return numberOfTraces;
+    }
+
+    /**
+     * Scans all traces on a thread pool created for this call.
+     */
+    public <T> T scan(HeaderReducer<T> reducer) {
+        return scanRaw(parsing(reducer));
+    }
+
+    /**
+     * Scans all traces on the given executor.
+     */
+    public <T> T scan(HeaderReducer<T> reducer, ExecutorService executor) {
+        return scanRaw(parsing(reducer), executor);
+    }
+
+    /**
+     * Scans raw headers of all traces on a thread pool created for this call.
+     */
+    public <T> T scanRaw(RawHeaderReducer<T> reducer) {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            return scanRaw(reducer, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wraps a reducer of parsed headers. The header reader keeps no state while parsing, so it is shared by all
+     * partitions.
+     */
+    private <T> RawHeaderReducer<T> parsing(final HeaderReducer<T> reducer) {
+        final TraceHeaderReader reader = stream.getTraceHeaderReader();
+
+        return new RawHeaderReducer<T>() {
+            @Override
+            public T createPartial() {
+                return reducer.createPartial();
+            }
+
+            @Override
+            public T accumulate(T partial, long index, long position, byte[] header) {
+                final TraceHeader parsed = reader.read(header);
+                parsed.setPositionInFile(position);
+
+                return reducer.accumulate(partial, index, parsed);
+            }
+
+            @Override
+            public T merge(T left, T right) {
+                return reducer.merge(left, right);
+            }
+        };
+    }
+
+    /**
+     * Scans raw headers of all traces on the given executor.
+     */
+    public <T> T scanRaw(final RawHeaderReducer<T> reducer, ExecutorService executor) {
+        final long partitions = Math.max(1, Math.min(numberOfTraces, (long) threads * PARTITIONS_PER_THREAD));
+        final List<Future<T>> futures = new ArrayList<Future<T>>((int) partitions);
+
+        for (long p = 0; p < partitions; p++) {
+            final long from = numberOfTraces * p / partitions;
+            final long to = numberOfTraces * (p + 1) / partitions;
+
+            futures.add(executor.submit(new Callable<T>() {
+                @Override
+                public T call() throws IOException {
+                    return scanPartition(reducer, from, to);
+                }
+            }));
+        }
+
+        T result = null;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                final T partial = futures.get(i).get();
+                result = i == 0 ? partial : reducer.merge(result, partial);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SEGYStreamException("Interrupted while scanning trace headers", e);
+        } catch (ExecutionException e) {
+            throw new SEGYStreamException("Unable to scan trace headers", e.getCause());
+        } finally {
+            for (Future<T> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        return result;
+    }
+
+    private <T> T scanPartition(RawHeaderReducer<T> reducer, long from, long to) throws IOException {
+        final byte[] headerBytes = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+
+        /* Short traces are read in whole blocks, long ones header only */
+        final int tracesPerRead = (int) Math.max(1, blockSize / traceLength);
+        final ByteBuffer buffer = ByteBuffer.allocate(tracesPerRead == 1
+                ? TraceHeader.TRACE_HEADER_LENGTH
+                : (int) (tracesPerRead * traceLength));
+
+        T partial = reducer.createPartial();
+
+        for (long first = from; first < to; first += tracesPerRead) {
+            final int count = (int) Math.min(tracesPerRead, to - first);
+            final long start = headerLength + first * traceLength;
+
+            buffer.clear();
+            if (tracesPerRead > 1) {
+                buffer.limit((int) ((count - 1) * traceLength + TraceHeader.TRACE_HEADER_LENGTH));
+            }
+
+            while (buffer.hasRemaining()) {
+                if (chan.read(buffer, start + buffer.position()) < 0) {
+                    throw new SEGYStreamException("Unexpected end of file at trace " + first);
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(buffer.array(), (int) (i * traceLength), headerBytes, 0, headerBytes.length);
+
+                partial = reducer.accumulate(partial, first + i, start + i * traceLength, headerBytes);
+            }
+        }
+
+        return partial;
+    }
+}
@@ -0,0 +1,215 @@
+package sigrun.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forward reader whose blocks are fetched by a dedicated I/O thread.
+ * <p/>
+ * The thread fills a bounded ring of direct buffers ahead of the consumer, so disk latency overlaps with parsing on
+ * the consumer side. The file is read sequentially from the start position to the end; skipped ranges are read too
+ * and simply dropped by the consumer.
+ */
+class PrefetchingReader implements SequentialReader {
+    private static final Logger log = LoggerFactory.getLogger(PrefetchingReader.class);
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    /* The I/O thread is never interrupted, since interrupting a read would close the channel */
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final BlockingQueue<ByteBuffer> free;
+    private final BlockingQueue<ByteBuffer> filled;
+    private final Thread ioThread;
+    private volatile IOException failure;
+    private volatile boolean closed = false;
+
+    private ByteBuffer current;
+    private long position;
+
+    /**
+     * @param chan      channel to read from
+     * @param position  absolute position of the first byte to read
+     * @param blockSize size of a single read in bytes
+     * @param depth     number of buffers in the ring
+     */
+    PrefetchingReader(final FileChannel chan, final long position, final int blockSize, int depth) {
+        if (blockSize <= 0 || depth < 2) {
+            throw new IllegalArgumentException("Block size must be positive and at least two buffers are required");
+        }
+
+        this.position = position;
+        this.free = new ArrayBlockingQueue<ByteBuffer>(depth);
+        this.filled = new ArrayBlockingQueue<ByteBuffer>(depth + 1);
+
+        for (int i = 0; i < depth; i++) {
+            free.add(ByteBuffer.allocateDirect(blockSize));
+        }
+
+        this.ioThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                fetch(chan, position, blockSize);
+            }
+        }, "sigrun-prefetch");
+        this.ioThread.setDaemon(true);
+        this.ioThread.start();
+    }
+
+    /**
+     * Reads blocks until the end of file, a failure or <code>close</code>. However the loop ends, the end marker is
+     * queued last, so the consumer never waits for a block that will not come.
+     */
+    private void fetch(FileChannel chan, long position, int blockSize) {
+        try {
+            /* The first read ends at a block boundary, all following reads are aligned */
+            long next = position;
+            long limit = position - position % blockSize + blockSize;
+
+            while (!closed) {
+                final ByteBuffer buffer = free.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (buffer == null) {
+                    continue;
+                }
+
+                buffer.clear();
+                buffer.limit((int) (limit - next));
+
+                while (buffer.hasRemaining()) {
+                    if (chan.read(buffer, next + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+
+                buffer.flip();
+                if (buffer.limit() == 0) {
+                    break;
+                }
+
+                while (!filled.offer(buffer, POLL_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+                    if (closed) {
+                        return;
+                    }
+                }
+
+                next += buffer.limit();
+                limit = next + blockSize;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            fail(e);
+        } catch (Throwable e) {
+            fail(new IOException("Prefetching failed: " + e, e));
+        } finally {
+            /* The consumer may hold all other buffers, but the queue has room for one more */
+            filled.offer(END);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (!closed) {
+            log.error(e.getLocalizedMessage());
+            failure = e;
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public boolean read(byte[] destination, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!ensureCurrent()) {
+                return false;
+            }
+
+            final int count = Math.min(length, current.remaining());
+            current.get(destination, offset, count);
+
+            offset += count;
+            length -= count;
+            position += count;
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean skip(long length) throws IOException {
+        while (length > 0) {
+            if (!ensureCurrent()) {
+                return false;
+            }
+
+            final int count = (int) Math.min(length, current.remaining());
+            current.position(current.position() + count);
+
+            length -= count;
+            position += count;
+        }
+
+        return true;
+    }
+
+    /**
+     * Makes sure the current buffer has bytes left, taking the next filled buffer from the I/O thread if needed.
+     */
+    private boolean ensureCurrent() throws IOException {
+        if (current != null && current.hasRemaining()) {
+            return true;
+        }
+
+        if (current == END) {
+            return false;
+        }
+
+        if (current != null) {
+            free.offer(current);
+        }
+
+        try {
+            current = filled.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the next block");
+        }
+
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Stops the I/O thread and waits for it to finish. The thread notices the request within the poll interval or
+     * after the read in progress completes.
+     */
+    @Override
+    public void close() {
+        closed = true;
+
+        try {
+            ioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        free.clear();
+        filled.clear();
+        current = END;
+    }
+}
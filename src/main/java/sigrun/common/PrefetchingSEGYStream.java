@@ -0,0 +1,37 @@
+package sigrun.common;
+
+import sigrun.serialization.BinaryHeaderReader;
+import sigrun.serialization.TextHeaderReader;
+import sigrun.serialization.TraceHeaderReader;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+
+/**
+ * SEG-Y stream whose forward-only iteration is fed by a background I/O thread.
+ * <p/>
+ * The thread reads the file sequentially into a bounded ring of direct buffers while the caller parses traces, so
+ * I/O and decoding overlap. Random access methods of the stream are not affected. <code>close()</code> stops the
+ * thread before closing the channel.
+ */
+public class PrefetchingSEGYStream extends SEGYStream {
+    public static final int DEFAULT_BLOCK_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_DEPTH = 4;
+
+    protected PrefetchingSEGYStream(FileChannel chan,
+                                    TextHeaderReader textHeaderReader,
+                                    BinaryHeaderReader binaryHeaderReader,
+                                    TraceHeaderReader traceHeaderReader,
+                                    Collection<ParseProgressListener> listeners,
+                                    int blockSize,
+                                    int depth) {
+        super(chan, textHeaderReader, binaryHeaderReader, traceHeaderReader, listeners);
+
+        try {
+            useSequentialReader(new PrefetchingReader(chan, chan.position(), blockSize, depth));
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to start prefetching", e);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package sigrun.common;
+
+/**
+ * Accumulates raw trace headers of a partition of a file and combines partition results.
+ * <p/>
+ * Unlike <code>HeaderReducer</code> it receives the header bytes as they are stored in the file, so reducers that
+ * need a few fields do not pay for parsing the whole header. The same threading rules apply.
+ *
+ * @param <T> type of the partial and final result
+ */
+public interface RawHeaderReducer<T> {
+    /**
+     * Creates an empty partial result for a partition.
+     */
+    T createPartial();
+
+    /**
+     * Adds a trace header to the partial result. Headers of a partition are passed in trace order.
+     *
+     * @param partial  partial result of the partition
+     * @param index    index of the trace in the file
+     * @param position absolute position of the header in the file
+     * @param header   raw header bytes, valid only during the call
+     * @return updated partial result
+     */
+    T accumulate(T partial, long index, long position, byte[] header);
+
+    /**
+     * Combines results of two adjacent partitions.
+     *
+     * @param left  result of the partition with lower trace indexes
+     * @param right result of the partition that follows it
+     * @return combined result
+     */
+    T merge(T left, T right);
+}
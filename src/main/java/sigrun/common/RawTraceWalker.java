@@ -0,0 +1,78 @@
+package sigrun.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sigrun.serialization.FormatEntry;
+
+import java.io.IOException;
+
+/**
+ * Walks raw trace headers of a file from the first trace to the last one.
+ * <p/>
+ * Every trace is located from the number of samples in its own header, so traces may vary in length. The file is
+ * fetched in large blocks and trace data is skipped without being copied.
+ */
+class RawTraceWalker {
+    private static final Logger log = LoggerFactory.getLogger(RawTraceWalker.class);
+
+    private final BlockReader reader;
+    private final FormatEntry samplesEntry;
+    private final int sampleSize;
+    private final byte[] header = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+
+    private long position = -1;
+    private int samples = 0;
+
+    RawTraceWalker(SEGYStream stream, int blockSize) throws IOException {
+        this.reader = new BlockReader(stream.getChannel(), stream.getHeaderLength(), blockSize);
+        this.samplesEntry = stream.getTraceHeaderReader().format.numberOfSamplesFormat;
+        this.sampleSize = stream.getBinaryHeader().getDataSampleCode().getSize();
+    }
+
+    /**
+     * Moves to the next trace.
+     *
+     * @return false if there are no complete traces left
+     */
+    boolean next() throws IOException {
+        if (position >= 0 && !reader.skip((long) sampleSize * samples)) {
+            log.warn("Last trace at position " + position + " is truncated");
+            return false;
+        }
+
+        final long start = reader.position();
+        if (!reader.read(header, 0, header.length)) {
+            return false;
+        }
+
+        position = start;
+        samples = samplesEntry.readInt(header, 0);
+
+        if (samples < 0) {
+            throw new SEGYStreamException("Negative number of samples in trace at position " + position);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns raw bytes of the current trace header.
+     */
+    byte[] header() {
+        return header;
+    }
+
+    /**
+     * Returns absolute position of the current trace header.
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of samples of the current trace.
+     */
+    int samples() {
+        return samples;
+    }
+}
@@ -0,0 +1,186 @@
+package sigrun.common;
+
+/**
+ * Read access to the values of a trace header.
+ * <p/>
+ * Getters return null for fields that are not configured in the trace header format, except for code fields that
+ * default to the code zero and byte fields that default to six zero bytes.
+ */
+public interface ReadableTraceHeader {
+    /**
+     * Returns absolute position of the header in the file or -1 if it is unknown.
+     */
+    long getPositionInFile();
+
+    Integer getTraceSequenceNumberWL();
+
+    Integer getTraceSequenceNumberWS();
+
+    Integer getOriginalFieldRecordNumber();
+
+    Integer getTraceNumberWOFR();
+
+    Integer getEnergySourcePointNumber();
+
+    Integer getEnsembleNumber();
+
+    Integer getTraceNumberWEnsemble();
+
+    TraceIdentificationCode getTraceIdentificationCode();
+
+    Short getNumberOfVerticallySummedTraces();
+
+    Short getNumberOfHorizontallyStackedTraces();
+
+    Short getDataUse();
+
+    Integer getDistanceFromTheCenterOfSP();
+
+    Integer getReceiverGroupElevation();
+
+    Integer getSurfaceElevationAtSource();
+
+    Integer getSourceDepthBelowSurface();
+
+    Integer getDatumElevationAtReceiverGroup();
+
+    Integer getDatumElevationAtSource();
+
+    Integer getWaterDepthAtSource();
+
+    Integer getWaterDepthAtGroup();
+
+    Short getScalarForElevations();
+
+    Short getScalarForCoordinates();
+
+    Integer getSourceX();
+
+    Integer getSourceY();
+
+    Integer getGroupX();
+
+    Integer getGroupY();
+
+    CoordinateUnitsCode getCoordinateUnitsCode();
+
+    Short getWeatheringVelocity();
+
+    Short getSubweatheringVelocity();
+
+    Short getUpholeTimeAtSourceInMs();
+
+    Short getUpholeTimeAtGroupInMs();
+
+    Short getSourceStaticCorrectionInMs();
+
+    Short getGroupStaticCorrectionInMs();
+
+    Short getTotalStaticAppliedInMs();
+
+    Short getLagTimeA();
+
+    Short getLagTimeB();
+
+    Short getDelayRecordingTime();
+
+    Short getMuteTimeStart();
+
+    Short getMuteTimeEnd();
+
+    Short getNumberOfSamples();
+
+    Short getSampleIntervalInMcs();
+
+    GainTypeForInstruments getGainTypeForInstruments();
+
+    Short getInstrumentGainConstant();
+
+    Short getInstrumentEarlyOrInitialGain();
+
+    Short getCorrelated();
+
+    Short getSweepFrequencyAtStart();
+
+    Short getSweepFrequencyAtEnd();
+
+    Short getSweepLengthInMilliseconds();
+
+    Short getSweepType();
+
+    Short getSweepTraceTaperLengthAtStartInMilliseconds();
+
+    Short getSweepTraceTaperLengthAtEndInMilliseconds();
+
+    Short getTaperType();
+
+    Short getAliasFilterFrequency();
+
+    Short getAliasFilterSlope();
+
+    Short getNotchFilterFrequency();
+
+    Short getNotchFilterSlope();
+
+    Short getLowCutFrequency();
+
+    Short getHighCutFrequency();
+
+    Short getLowCutSlope();
+
+    Short getHighCutSlope();
+
+    Short getYearDataRecorded();
+
+    Short getDayOfYear();
+
+    Short getHourOfDay();
+
+    Short getMinuteOfHour();
+
+    Short getSecondOfMinute();
+
+    Short getTimeBasisCode();
+
+    Short getTraceWeightingFactor();
+
+    Short getGeophoneGroupNumberOfRollSwitchPositionOne();
+
+    Short getGeophoneGroupNumberOfTraceNumberOneWOFR();
+
+    Short getGeophoneGroupNumberOfLastTraceWOFR();
+
+    Short getGapSize();
+
+    Short getOverTravel();
+
+    Integer getxOfCDPPosition();
+
+    Integer getyOfCDPPosition();
+
+    Integer getInLineNumber();
+
+    Integer getCrossLineNumber();
+
+    Integer getShotpointNumber();
+
+    Short getScalarForSPNumber();
+
+    Short getTraceValuesMU();
+
+    byte[] getTransductionConstant();
+
+    Short getTransductionUnits();
+
+    Short getDeviceTraceIdentifier();
+
+    Short getScalarToBeAppliedToTimes();
+
+    Short getSourceTypeOrientation();
+
+    byte[] getSourceEnergyDirection();
+
+    byte[] getSourceMeasurement();
+
+    Short getSourceMeasurementUnit();
+}
@@ -2,6 +2,7 @@ package sigrun.common;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sigrun.converters.SeismicValuesConverter;
 import sigrun.serialization.BinaryHeaderReader;
 import sigrun.serialization.SEGYFormatException;
 import sigrun.serialization.TextHeaderReader;
@@ -12,9 +13,12 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 //import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -22,6 +26,13 @@ import java.util.Set;
  */
 public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
     private static final Logger log = LoggerFactory.getLogger(SEGYStream.class);
+    public static final int DEFAULT_READ_AHEAD_BLOCK_SIZE = 16 * 1024 * 1024;
+    public static final int MAX_COALESCED_READ = 1024 * 1024;
+    /* Largest run of unwanted bytes read between two headers to save a read */
+    public static final int MAX_COALESCED_GAP = 64 * 1024;
+    public static final int HEADER_CACHE_SIZE = 256;
+    /* Largest offset table, i.e. number of traces plus one, that fits a Java array */
+    private static final int MAX_TRACE_OFFSETS = Integer.MAX_VALUE - 8;
 	private final FileChannel chan;
     private final TraceHeaderReader traceHeaderReader;
     private TextHeader textHeader;
@@ -30,6 +41,27 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
     private long headerLength = 0; /*YZ, the length of TextHeader + BinaeryHeader*/
     private Set<ParseProgressListener> listeners = new HashSet<ParseProgressListener>();
     private LiteSeismicTrace nextTrace;
+    private SequentialReader sequentialReader;
+    private final byte[] headerBytes = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+    private final ByteBuffer headerBuf = ByteBuffer.wrap(headerBytes);
+    private byte[] dataBytes = new byte[0];
+    private ByteBuffer dataBuf = ByteBuffer.wrap(dataBytes);
+    private volatile SeismicValuesConverter converter;
+    /* Positions of all trace headers followed by the end of the last trace, built on demand */
+    private volatile long[] traceOffsets;
+    /* Raw headers recently read by getTraceHeaders, keyed by position, least recently used first */
+    private final Map<Long, byte[]> headerCache = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > HEADER_CACHE_SIZE;
+        }
+    };
+    private final ThreadLocal<ReadScratch> readScratch = new ThreadLocal<ReadScratch>() {
+        @Override
+        protected ReadScratch initialValue() {
+            return new ReadScratch();
+        }
+    };
 
 	protected SEGYStream(FileChannel chan,
                          TextHeaderReader textHeaderReader,
@@ -79,6 +111,10 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
     }
 
     private boolean tryReadTrace() {
+        if (sequentialReader != null) {
+            return tryReadBufferedTrace();
+        }
+
         ByteBuffer traceBuf = ByteBuffer.allocate(TraceHeader.TRACE_HEADER_LENGTH);
 
         try {
@@ -113,7 +149,7 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
             increasePosition(TraceHeader.TRACE_HEADER_LENGTH + dataLength);
             */
 
-            this.nextTrace = LiteSeismicTrace.create(header, binaryHeader.getDataSampleCode());
+            this.nextTrace = LiteSeismicTrace.create(header);
             notifyProgressListeners(currPos+dataLength);
 
             return true;
@@ -124,6 +160,187 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
         }
     }
 
+    private boolean tryReadBufferedTrace() {
+        try {
+            if (!chan.isOpen()) {
+                return false;
+            }
+
+            final long headerPos = sequentialReader.position();
+            if (!sequentialReader.read(headerBytes, 0, TraceHeader.TRACE_HEADER_LENGTH)) {
+                log.info("Not enough bytes for next trace. Closing.");
+                chan.close();
+                return false;
+            }
+
+            final TraceHeader header = traceHeaderReader.read(headerBytes);
+            header.setPositionInFile(headerPos);
+            final int dataLength = binaryHeader.getDataSampleCode().getSize() * header.getNumberOfSamples();
+
+            if (!sequentialReader.skip(dataLength)) {
+                log.info("Not enough bytes to read trace data. Looks like file is corrupted. Exiting.");
+                chan.close();
+                return false;
+            }
+
+            this.nextTrace = LiteSeismicTrace.create(header);
+            notifyProgressListeners(sequentialReader.position());
+
+            return true;
+        } catch (IOException e) {
+            log.error(e.getLocalizedMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Reads next trace with its samples into the reusable trace.
+     */
+    private boolean tryReadSamples(MutableSeismicTrace target, SeismicValuesConverter converter) {
+        try {
+            if (!chan.isOpen()) {
+                return false;
+            }
+
+            final long headerPos = currentPosition();
+            if (!readFully(headerBytes, headerBuf, TraceHeader.TRACE_HEADER_LENGTH)) {
+                log.info("Not enough bytes for next trace. Closing.");
+                chan.close();
+                return false;
+            }
+
+            final TraceHeader header = traceHeaderReader.read(headerBytes);
+            header.setPositionInFile(headerPos);
+            final int samples = header.getNumberOfSamples();
+            final int dataLength = binaryHeader.getDataSampleCode().getSize() * samples;
+
+            if (dataBytes.length < dataLength) {
+                dataBytes = new byte[dataLength];
+                dataBuf = ByteBuffer.wrap(dataBytes);
+            }
+
+            if (!readFully(dataBytes, dataBuf, dataLength)) {
+                log.info("Not enough bytes to read trace data. Looks like file is corrupted. Exiting.");
+                chan.close();
+                return false;
+            }
+
+            target.fill(header, dataBytes, samples, converter);
+            notifyProgressListeners(headerPos + TraceHeader.TRACE_HEADER_LENGTH + dataLength);
+
+            return true;
+        } catch (IOException e) {
+            log.error(e.getLocalizedMessage());
+
+            return false;
+        }
+    }
+
+    /**
+     * Reads next trace header into the header buffer without parsing it and skips the samples.
+     */
+    private boolean tryReadRawHeader() {
+        try {
+            if (!chan.isOpen()) {
+                return false;
+            }
+
+            if (!readFully(headerBytes, headerBuf, TraceHeader.TRACE_HEADER_LENGTH)) {
+                log.info("Not enough bytes for next trace. Closing.");
+                chan.close();
+                return false;
+            }
+
+            final int samples = traceHeaderReader.format.numberOfSamplesFormat.readInt(headerBytes, 0);
+            final int dataLength = binaryHeader.getDataSampleCode().getSize() * samples;
+
+            if (!skipFully(dataLength)) {
+                log.info("Not enough bytes to read trace data. Looks like file is corrupted. Exiting.");
+                chan.close();
+                return false;
+            }
+
+            notifyProgressListeners(currentPosition());
+
+            return true;
+        } catch (IOException e) {
+            log.error(e.getLocalizedMessage());
+
+            return false;
+        }
+    }
+
+    private boolean skipFully(long length) throws IOException {
+        if (sequentialReader != null) {
+            return sequentialReader.skip(length);
+        }
+
+        final long next = chan.position() + length;
+        chan.position(next);
+
+        return next <= chan.size();
+    }
+
+    /**
+     * Reads exactly <code>length</code> bytes from the block reader or from the channel.
+     *
+     * @param buffer buffer wrapping the destination array, used when reading from the channel
+     */
+    private boolean readFully(byte[] destination, ByteBuffer buffer, int length) throws IOException {
+        if (sequentialReader != null) {
+            return sequentialReader.read(destination, 0, length);
+        }
+
+        buffer.clear();
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (chan.read(buffer) < 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Switches the forward-only iteration to block read-ahead mode.
+     * <p/>
+     * In this mode the file is fetched in aligned blocks of the given size and as many traces as a block holds are
+     * parsed from memory, so a sequential pass costs one read per block instead of a read and a seek per trace.
+     * The iteration continues from the current position of the stream.
+     *
+     * @param blockSize size of a single read in bytes, zero or negative value switches read-ahead off
+     */
+    public void setReadAheadBlockSize(int blockSize) {
+        try {
+            if (blockSize > 0) {
+                useSequentialReader(new BlockReader(chan, currentPosition(), blockSize));
+            } else {
+                useSequentialReader(null);
+            }
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to switch read-ahead mode", e);
+        }
+    }
+
+    /**
+     * Replaces the source of bytes for the forward-only iteration. The channel is moved to the position reached by
+     * the previous reader, so null falls back to plain channel reads from the same point.
+     */
+    void useSequentialReader(SequentialReader reader) throws IOException {
+        if (sequentialReader != null) {
+            chan.position(sequentialReader.position());
+            sequentialReader.close();
+        }
+
+        sequentialReader = reader;
+    }
+
+    private long currentPosition() throws IOException {
+        return sequentialReader != null ? sequentialReader.position() : chan.position();
+    }
+
     /*YZ, add some interfaces for SEGY trace parser*/
     public long getFileSize() {
         long res = -1;
@@ -137,7 +354,6 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
 
     public long getTraceLength(long samples) {
         long dataLength = binaryHeader.getDataSampleCode().getSize() * samples;
-        long fileLen = getFileSize();
         long traceLength = TraceHeader.TRACE_HEADER_LENGTH + dataLength;
         return traceLength;
     }
@@ -150,6 +366,9 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
 
 
     public long getNumberOfTrace(long samples) {
+        if (traceOffsets != null) {
+            return traceOffsets.length - 1;
+        }
         if(!isIdeaFile(samples)) {
             System.out.println("File size error");
             return -1;
@@ -212,6 +431,434 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
       
     } 
 
+    /**
+     * Reads the header of a trace without touching the position of the stream.
+     * <p/>
+     * Unlike <code>getTraceHeader</code> this method uses positional reads and per-thread buffers, so any number of
+     * threads may call it concurrently on the same stream.
+     *
+     * @param index   index of the trace starting from zero
+     * @param samples number of samples in every trace
+     * @return parsed header
+     */
+    public TraceHeader readTraceHeader(long index, long samples) {
+        final ReadScratch scratch = readScratch.get();
+        final long headerPos = headerLength + getTraceLength(samples) * index;
+
+        readAt(scratch.headerBuf, TraceHeader.TRACE_HEADER_LENGTH, headerPos);
+
+        final TraceHeader header = traceHeaderReader.read(scratch.header);
+        header.setPositionInFile(headerPos);
+
+        return header;
+    }
+
+    /**
+     * Reads raw headers of consecutive traces without touching the position of the stream. Traces spanning up to
+     * <code>MAX_COALESCED_READ</code> bytes are fetched with a single read. Safe for concurrent use.
+     *
+     * @param first       index of the first trace starting from zero
+     * @param count       number of traces
+     * @param samples     number of samples in every trace
+     * @param destination array receiving the headers one after another
+     */
+    public void readRawTraceHeaders(long first, int count, long samples, byte[] destination) {
+        if (count <= 0) {
+            return;
+        }
+
+        final long traceLength = getTraceLength(samples);
+        final long start = headerLength + traceLength * first;
+        final long span = (count - 1) * traceLength + TraceHeader.TRACE_HEADER_LENGTH;
+
+        if (span <= MAX_COALESCED_READ) {
+            final ByteBuffer buffer = ByteBuffer.allocate((int) span);
+            readAt(buffer, (int) span, start);
+
+            for (int i = 0; i < count; i++) {
+                System.arraycopy(buffer.array(), (int) (i * traceLength), destination,
+                        i * TraceHeader.TRACE_HEADER_LENGTH, TraceHeader.TRACE_HEADER_LENGTH);
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                final ByteBuffer buffer = ByteBuffer.wrap(destination, i * TraceHeader.TRACE_HEADER_LENGTH,
+                        TraceHeader.TRACE_HEADER_LENGTH).slice();
+                readAt(buffer, TraceHeader.TRACE_HEADER_LENGTH, start + i * traceLength);
+            }
+        }
+    }
+
+    /**
+     * Reads headers of several traces of a fixed-length file without touching the position of the stream.
+     * <p/>
+     * Indexes may come in any order and repeat. Every header is read once, neighbouring headers are fetched with a
+     * single read as described in <code>getTraceHeaders(long[])</code>, and headers read recently are taken from a
+     * small cache. Safe for concurrent use.
+     *
+     * @param indices indexes of traces starting from zero
+     * @param samples number of samples in every trace
+     * @return parsed headers in the order of indexes
+     */
+    public TraceHeader[] getTraceHeaders(long[] indices, long samples) {
+        final long traceLength = getTraceLength(samples);
+        final long traceCount = (getFileSize() - headerLength) / traceLength;
+        final long[] positions = new long[indices.length];
+
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] < 0 || indices[i] >= traceCount) {
+                throw new IndexOutOfBoundsException("Trace index " + indices[i] + " is out of range [0, "
+                        + traceCount + ")");
+            }
+            positions[i] = headerLength + traceLength * indices[i];
+        }
+
+        return readTraceHeaders(positions);
+    }
+
+    /**
+     * Reads headers of several traces, which may vary in length.
+     * <p/>
+     * A file that holds a whole number of traces of the length given by the first trace header is taken to be of
+     * fixed length and addressed by arithmetic, see <code>getTraceHeaders(long[], long)</code>; other files are
+     * addressed through the offset table, which is built by a pass over all headers on first use.
+     * <p/>
+     * Indexes may come in any order and repeat. Headers are read in file order, once each; a header starting less
+     * than <code>MAX_COALESCED_GAP</code> bytes after the previous one is fetched with the same read as long as the
+     * read stays within <code>MAX_COALESCED_READ</code> bytes, so adjacent traces cost a single read. The last
+     * <code>HEADER_CACHE_SIZE</code> headers read this way are kept and are not read again. Safe for concurrent use.
+     *
+     * @param indices indexes of traces starting from zero
+     * @return parsed headers in the order of indexes
+     */
+    public TraceHeader[] getTraceHeaders(long[] indices) {
+        if (traceOffsets == null) {
+            final long samples = getFirstTraceSamples();
+            if (samples >= 0 && isIdeaFile(samples)) {
+                return getTraceHeaders(indices, samples);
+            }
+        }
+
+        final long[] positions = new long[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            positions[i] = getTraceOffset(indices[i]);
+        }
+
+        return readTraceHeaders(positions);
+    }
+
+    /**
+     * Returns the number of samples stated in the header of the first trace, or -1 if the file holds no trace header.
+     */
+    private long getFirstTraceSamples() {
+        if (getFileSize() < headerLength + TraceHeader.TRACE_HEADER_LENGTH) {
+            return -1;
+        }
+
+        final ReadScratch scratch = readScratch.get();
+        readAt(scratch.headerBuf, TraceHeader.TRACE_HEADER_LENGTH, headerLength);
+
+        return traceHeaderReader.format.numberOfSamplesFormat.readInt(scratch.header, 0);
+    }
+
+    private TraceHeader[] readTraceHeaders(long[] positions) {
+        final long[] sorted = positions.clone();
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+
+        final byte[][] raw = new byte[count][];
+        synchronized (headerCache) {
+            for (int k = 0; k < count; k++) {
+                raw[k] = headerCache.get(sorted[k]);
+            }
+        }
+
+        int start = 0;
+        while (start < count) {
+            if (raw[start] != null) {
+                start++;
+                continue;
+            }
+
+            /* Extend the read over following missing headers while the gaps and the read stay small */
+            int end = start + 1;
+            while (end < count && raw[end] == null
+                    && sorted[end] - sorted[end - 1] - TraceHeader.TRACE_HEADER_LENGTH <= MAX_COALESCED_GAP
+                    && sorted[end] + TraceHeader.TRACE_HEADER_LENGTH - sorted[start] <= MAX_COALESCED_READ) {
+                end++;
+            }
+
+            final int span = (int) (sorted[end - 1] + TraceHeader.TRACE_HEADER_LENGTH - sorted[start]);
+            final ByteBuffer buffer = ByteBuffer.allocate(span);
+            readAt(buffer, span, sorted[start]);
+
+            synchronized (headerCache) {
+                for (int k = start; k < end; k++) {
+                    raw[k] = Arrays.copyOfRange(buffer.array(), (int) (sorted[k] - sorted[start]),
+                            (int) (sorted[k] - sorted[start]) + TraceHeader.TRACE_HEADER_LENGTH);
+                    headerCache.put(sorted[k], raw[k]);
+                }
+            }
+
+            start = end;
+        }
+
+        final TraceHeader[] headers = new TraceHeader[positions.length];
+        for (int i = 0; i < positions.length; i++) {
+            headers[i] = traceHeaderReader.read(raw[Arrays.binarySearch(sorted, 0, count, positions[i])]);
+            headers[i].setPositionInFile(positions[i]);
+        }
+
+        return headers;
+    }
+
+    /**
+     * Reads and decodes samples of a trace without touching the position of the stream. Safe for concurrent use.
+     *
+     * @param index       index of the trace starting from zero
+     * @param samples     number of samples in every trace
+     * @param destination array of at least <code>samples</code> elements
+     * @return number of decoded samples
+     */
+    public int readTraceSamples(long index, long samples, float[] destination) {
+        if (samples < 0 || samples > destination.length) {
+            throw new IllegalArgumentException("Traces have " + samples + " samples, destination holds "
+                    + destination.length);
+        }
+
+        final long traceLength = getTraceLength(samples);
+        final long traceCount = (getFileSize() - headerLength) / traceLength;
+        if (index < 0 || index >= traceCount) {
+            throw new IndexOutOfBoundsException("Trace index " + index + " is out of range [0, " + traceCount + ")");
+        }
+
+        final ReadScratch scratch = readScratch.get();
+        final int dataLength = (int) (traceLength - TraceHeader.TRACE_HEADER_LENGTH);
+
+        scratch.ensureData(dataLength);
+        readAt(scratch.dataBuf, dataLength, headerLength + traceLength * index + TraceHeader.TRACE_HEADER_LENGTH);
+
+        getConverter().convert(scratch.data, 0, destination, (int) samples);
+
+        return (int) samples;
+    }
+
+    /**
+     * Locates every trace of the file in a single sequential pass, using the number of samples from each trace header.
+     * <p/>
+     * Afterwards traces are addressed by index in constant time even if their lengths vary, see
+     * <code>getTraceHeader(long)</code> and <code>readTraceSamples(long, float[])</code>. The table takes eight bytes
+     * per trace, and files of more than <code>Integer.MAX_VALUE - 9</code> traces are rejected. Calling the method
+     * again rebuilds the table.
+     *
+     * @return number of traces in the file
+     */
+    public synchronized long buildTraceOffsets() {
+        long[] offsets = new long[1024];
+        int count = 0;
+        long end = headerLength;
+
+        try {
+            final RawTraceWalker walker = new RawTraceWalker(this, DEFAULT_READ_AHEAD_BLOCK_SIZE);
+            final int sampleSize = binaryHeader.getDataSampleCode().getSize();
+
+            while (walker.next()) {
+                if (count + 1 == offsets.length) {
+                    if (offsets.length == MAX_TRACE_OFFSETS) {
+                        throw new SEGYStreamException("File has more than " + (MAX_TRACE_OFFSETS - 1)
+                                + " traces, too many for an offset table");
+                    }
+                    offsets = Arrays.copyOf(offsets, (int) Math.min(MAX_TRACE_OFFSETS, offsets.length * 2L));
+                }
+                offsets[count++] = walker.position();
+                end = walker.position() + TraceHeader.TRACE_HEADER_LENGTH + (long) sampleSize * walker.samples();
+            }
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to build trace offsets", e);
+        }
+
+        /* A truncated last trace is not counted */
+        if (end > getFileSize()) {
+            end = offsets[--count];
+        }
+
+        offsets[count] = end;
+        traceOffsets = Arrays.copyOf(offsets, count + 1);
+
+        return count;
+    }
+
+    /**
+     * Passes raw headers of all traces to the reducer in a single sequential pass, as one partition.
+     * <p/>
+     * This is the counterpart of <code>ParallelHeaderScanner.scanRaw</code> for files whose traces vary in length.
+     * Reads are positional, so the position of the stream is left untouched.
+     *
+     * @return result of the reducer
+     */
+    public <T> T scanRawHeaders(RawHeaderReducer<T> reducer) {
+        return scanRawHeaders(reducer, Long.MAX_VALUE);
+    }
+
+    /**
+     * Passes raw headers of at most <code>limit</code> leading traces to the reducer, see
+     * <code>scanRawHeaders(RawHeaderReducer)</code>.
+     */
+    public <T> T scanRawHeaders(RawHeaderReducer<T> reducer, long limit) {
+        T partial = reducer.createPartial();
+        long index = 0;
+
+        try {
+            final RawTraceWalker walker = new RawTraceWalker(this, DEFAULT_READ_AHEAD_BLOCK_SIZE);
+
+            while (index < limit && walker.next()) {
+                partial = reducer.accumulate(partial, index++, walker.position(), walker.header());
+            }
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to scan trace headers", e);
+        }
+
+        return partial;
+    }
+
+    private long[] getTraceOffsets() {
+        long[] offsets = traceOffsets;
+        if (offsets == null) {
+            /* Checked again under the lock, so threads arriving together scan the file once */
+            synchronized (this) {
+                offsets = traceOffsets;
+                if (offsets == null) {
+                    buildTraceOffsets();
+                    offsets = traceOffsets;
+                }
+            }
+        }
+
+        return offsets;
+    }
+
+    /**
+     * Returns the number of traces, building the offset table if needed. Works on files with traces of varying length.
+     */
+    public long getNumberOfTrace() {
+        return getTraceOffsets().length - 1;
+    }
+
+    /**
+     * Returns the absolute position of a trace header, building the offset table if needed.
+     */
+    public long getTraceOffset(long index) {
+        final long[] offsets = getTraceOffsets();
+        if (index < 0 || index >= offsets.length - 1) {
+            throw new IndexOutOfBoundsException("Trace index " + index + " is out of range [0, "
+                    + (offsets.length - 1) + ")");
+        }
+
+        return offsets[(int) index];
+    }
+
+    /**
+     * Returns the number of samples in a trace, building the offset table if needed.
+     */
+    public int getNumberOfSamples(long index) {
+        final long headerPos = getTraceOffset(index);
+        final long dataLength = traceOffsets[(int) index + 1] - headerPos - TraceHeader.TRACE_HEADER_LENGTH;
+
+        return (int) (dataLength / binaryHeader.getDataSampleCode().getSize());
+    }
+
+    /**
+     * Reads the header of a trace located through the offset table, so traces may vary in length. Safe for
+     * concurrent use.
+     *
+     * @param index index of the trace starting from zero
+     * @return parsed header
+     */
+    public TraceHeader getTraceHeader(long index) {
+        final ReadScratch scratch = readScratch.get();
+        final long headerPos = getTraceOffset(index);
+
+        readAt(scratch.headerBuf, TraceHeader.TRACE_HEADER_LENGTH, headerPos);
+
+        final TraceHeader header = traceHeaderReader.read(scratch.header);
+        header.setPositionInFile(headerPos);
+
+        return header;
+    }
+
+    /**
+     * Reads and decodes samples of a trace located through the offset table. Safe for concurrent use.
+     *
+     * @param index       index of the trace starting from zero
+     * @param destination array of at least <code>getNumberOfSamples(index)</code> elements
+     * @return number of decoded samples
+     */
+    public int readTraceSamples(long index, float[] destination) {
+        final ReadScratch scratch = readScratch.get();
+        final int samples = getNumberOfSamples(index);
+        final int dataLength = samples * binaryHeader.getDataSampleCode().getSize();
+
+        if (destination.length < samples) {
+            throw new IllegalArgumentException("Trace " + index + " has " + samples + " samples, destination holds "
+                    + destination.length);
+        }
+
+        scratch.ensureData(dataLength);
+        readAt(scratch.dataBuf, dataLength, getTraceOffset(index) + TraceHeader.TRACE_HEADER_LENGTH);
+
+        getConverter().convert(scratch.data, 0, destination, samples);
+
+        return samples;
+    }
+
+    private void readAt(ByteBuffer buffer, int length, long position) {
+        buffer.clear();
+        buffer.limit(length);
+
+        try {
+            while (buffer.hasRemaining()) {
+                if (chan.read(buffer, position + buffer.position()) < 0) {
+                    throw new SEGYStreamException("Unexpected end of file at position " + position);
+                }
+            }
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to read at position " + position, e);
+        }
+    }
+
+    /**
+     * Returns the converter for the data sample format of the file.
+     */
+    SeismicValuesConverter getConverter() {
+        if (converter == null) {
+            converter = ConverterFactory.getConverter(binaryHeader.getDataSampleCode());
+        }
+
+        return converter;
+    }
+
+    /**
+     * Buffers owned by a single thread for positional reads.
+     */
+    private static class ReadScratch {
+        private final byte[] header = new byte[TraceHeader.TRACE_HEADER_LENGTH];
+        private final ByteBuffer headerBuf = ByteBuffer.wrap(header);
+        private byte[] data = new byte[0];
+        private ByteBuffer dataBuf = ByteBuffer.wrap(data);
+
+        private void ensureData(int length) {
+            if (data.length < length) {
+                data = new byte[length];
+                dataBuf = ByteBuffer.wrap(data);
+            }
+        }
+    }
+
     public boolean seekAbs(long absPos) {
         try {
             if (!chan.isOpen()) {
@@ -291,11 +938,143 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
         return this.position;
     }
 
+    /**
+     * Returns the length of the text and binary headers, i.e. the offset of the first trace in the file.
+     *
+     * @return offset of the first trace header
+     */
+    public long getHeaderLength() {
+        return headerLength;
+    }
+
+    FileChannel getChannel() {
+        return chan;
+    }
+
+    TraceHeaderReader getTraceHeaderReader() {
+        return traceHeaderReader;
+    }
+
     @Override
     public Iterator<LiteSeismicTrace> iterator() {
         return new SeismicTraceIterator(this);
     }
 
+    /**
+     * Returns a forward-only view of the stream that decodes samples of every trace.
+     * <p/>
+     * All traces are decoded into the same <code>MutableSeismicTrace</code> instance, so a trace returned by the
+     * iterator is valid only until the next call of <code>next()</code>. Like the stream itself, the view may be
+     * iterated only once.
+     *
+     * @param buffer array to decode samples to, may be null to allocate one on the first trace
+     * @return iterable over traces with samples
+     */
+    public Iterable<MutableSeismicTrace> traces(final float[] buffer) {
+        final SeismicValuesConverter converter = getConverter();
+
+        return new Iterable<MutableSeismicTrace>() {
+            @Override
+            public Iterator<MutableSeismicTrace> iterator() {
+                return new SampleTraceIterator(new MutableSeismicTrace(buffer), converter);
+            }
+        };
+    }
+
+    /**
+     * Returns a forward-only view of the stream over raw trace headers.
+     * <p/>
+     * Headers are not parsed into <code>TraceHeader</code> objects: every header is read into the same buffer and
+     * exposed through the same <code>TraceHeaderView</code>, so the iteration allocates nothing per trace. A view
+     * returned by the iterator is valid only until the next call of <code>next()</code>.
+     *
+     * @return iterable over header views
+     */
+    public Iterable<TraceHeaderView> headerViews() {
+        return new Iterable<TraceHeaderView>() {
+            @Override
+            public Iterator<TraceHeaderView> iterator() {
+                return new HeaderViewIterator(new TraceHeaderView(traceHeaderReader.format).wrap(headerBytes));
+            }
+        };
+    }
+
+    private class HeaderViewIterator implements Iterator<TraceHeaderView> {
+        private final TraceHeaderView view;
+        private boolean ready = false;
+
+        private HeaderViewIterator(TraceHeaderView view) {
+            this.view = view;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                ready = tryReadRawHeader();
+            }
+
+            return ready;
+        }
+
+        @Override
+        public TraceHeaderView next() {
+            if (hasNext()) {
+                ready = false;
+
+                return view;
+            }
+
+            return null;
+        }
+
+        /**
+         * Not implemented.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Operation is not supported");
+        }
+    }
+
+    private class SampleTraceIterator implements Iterator<MutableSeismicTrace> {
+        private final MutableSeismicTrace trace;
+        private final SeismicValuesConverter converter;
+        private boolean ready = false;
+
+        private SampleTraceIterator(MutableSeismicTrace trace, SeismicValuesConverter converter) {
+            this.trace = trace;
+            this.converter = converter;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!ready) {
+                ready = tryReadSamples(trace, converter);
+            }
+
+            return ready;
+        }
+
+        @Override
+        public MutableSeismicTrace next() {
+            if (hasNext()) {
+                ready = false;
+
+                return trace;
+            }
+
+            return null;
+        }
+
+        /**
+         * Not implemented.
+         */
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Operation is not supported");
+        }
+    }
+
     private class SeismicTraceIterator implements Iterator<LiteSeismicTrace> {
         private final SEGYStream parent;
 
@@ -334,6 +1113,14 @@ public class SEGYStream implements Iterable<LiteSeismicTrace>, Closeable {
     }
 
     public void close() throws IOException {
+        synchronized (headerCache) {
+            headerCache.clear();
+        }
+
+        if (sequentialReader != null) {
+            sequentialReader.close();
+        }
+
         this.chan.close();
     }
 }
@@ -47,4 +47,21 @@ public class SEGYStreamFactory {
     public SEGYStream makeStream(FileInputStream fileInputStream, Collection<ParseProgressListener> listeners) {
         return new SEGYStream(fileInputStream.getChannel(), textHeaderReader, binaryHeaderReader, traceHeaderReader, listeners);
     }
+
+    public SEGYStream makePrefetchingStream(FileChannel chan) {
+        return makePrefetchingStream(chan, Collections.<ParseProgressListener>emptySet(),
+                PrefetchingSEGYStream.DEFAULT_BLOCK_SIZE, PrefetchingSEGYStream.DEFAULT_DEPTH);
+    }
+
+    /**
+     * Creates a stream whose iteration is fed by a background I/O thread.
+     *
+     * @param blockSize size of a single read in bytes
+     * @param depth     number of blocks the I/O thread may read ahead of the consumer
+     */
+    public SEGYStream makePrefetchingStream(FileChannel chan, Collection<ParseProgressListener> listeners,
+                                            int blockSize, int depth) {
+        return new PrefetchingSEGYStream(chan, textHeaderReader, binaryHeaderReader, traceHeaderReader, listeners,
+                blockSize, depth);
+    }
 }
@@ -15,10 +15,38 @@ public class SeismicTrace {
         SeismicValuesConverter converter = ConverterFactory.getConverter(sample);
         final float[] values = converter.convert(bytes);
 
-        float min = values[0];
-        float max = values[0];
+        return create(header, values, values.length);
+    }
+
+    /**
+     * Decodes samples into the given array, so the trace object is the only allocation.
+     *
+     * @param header    header of the trace
+     * @param bytes     raw sample bytes
+     * @param count     number of samples
+     * @param converter converter resolved once per stream, see <code>ConverterFactory</code>
+     * @param values    array of exactly <code>count</code> elements that becomes the trace values, or null to
+     *                  allocate one
+     */
+    public static SeismicTrace create(final TraceHeader header, byte[] bytes, int count,
+                                      SeismicValuesConverter converter, float[] values) {
+        if (values == null) {
+            values = new float[count];
+        } else if (values.length != count) {
+            throw new IllegalArgumentException("Array of " + values.length + " elements cannot hold " + count
+                    + " samples");
+        }
+
+        converter.convert(bytes, 0, values, count);
+
+        return create(header, values, count);
+    }
+
+    private static SeismicTrace create(TraceHeader header, float[] values, int count) {
+        float min = count > 0 ? values[0] : 0;
+        float max = min;
 
-        for (int i = 1; i < values.length; i++) {
+        for (int i = 1; i < count; i++) {
             min = Math.min(min, values[i]);
             max = Math.max(max, values[i]);
         }
@@ -0,0 +1,32 @@
+package sigrun.common;
+
+import java.io.IOException;
+
+/**
+ * Forward-only source of file bytes used by the iterators of <code>SEGYStream</code>.
+ */
+interface SequentialReader {
+    /**
+     * Returns absolute position of the next byte in the file.
+     */
+    long position();
+
+    /**
+     * Reads exactly <code>length</code> bytes.
+     *
+     * @return false if the end of the file has been reached before all bytes were read
+     */
+    boolean read(byte[] destination, int offset, int length) throws IOException;
+
+    /**
+     * Moves the position forward.
+     *
+     * @return false if the new position is beyond the end of the file
+     */
+    boolean skip(long length) throws IOException;
+
+    /**
+     * Releases resources held by the reader. The channel itself is left open.
+     */
+    void close();
+}
@@ -0,0 +1,289 @@
+package sigrun.common;
+
+import sigrun.converters.SeismicValuesConverter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Extracts inlines, crosslines and time slices of a 3D survey.
+ * <p/>
+ * Geometry comes from a <code>TraceIndex</code> holding inline and crossline numbers, so no trace header is parsed
+ * while reading. Traces of a line are fetched in file order and neighbouring traces are merged into a single read, so
+ * an inline of a file sorted by inlines costs one read. A time slice reads just one sample per trace.
+ * <p/>
+ * Reads are positional, so a reader may be shared between threads and used alongside the stream. Traces of lines may
+ * be kept in a <code>TraceCache</code>, so lines viewed again are served from memory.
+ */
+public class SliceReader {
+    /* Upper bound for a single coalesced read */
+    private static final int MAX_READ = 8 * 1024 * 1024;
+
+    private final FileChannel chan;
+    private final SeismicValuesConverter converter;
+    private final TraceIndex index;
+    private final int samples;
+    private final int sampleSize;
+    private final long traceLength;
+    private final TraceCache cache;
+
+    private final int[] inlines;
+    private final int[] crosslines;
+    /* Trace index for every (inline, crossline) cell, -1 if there is no trace */
+    private final int[] cells;
+
+    /**
+     * @param stream       stream opened over the indexed file
+     * @param index        index of the file
+     * @param inlineColumn column of the index holding inline numbers
+     * @param xlineColumn  column of the index holding crossline numbers
+     * @param samples      number of samples in every trace
+     */
+    public SliceReader(SEGYStream stream, TraceIndex index, int inlineColumn, int xlineColumn, int samples) {
+        this(stream, index, inlineColumn, xlineColumn, samples, null);
+    }
+
+    /**
+     * @param cache cache of traces of the same file shared with other readers, or null
+     */
+    public SliceReader(SEGYStream stream, TraceIndex index, int inlineColumn, int xlineColumn, int samples,
+                       TraceCache cache) {
+        if (index.size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Index of " + index.size() + " traces is too large");
+        }
+
+        this.chan = stream.getChannel();
+        this.converter = stream.getConverter();
+        this.index = index;
+        this.samples = samples;
+        this.sampleSize = stream.getBinaryHeader().getDataSampleCode().getSize();
+        this.traceLength = stream.getTraceLength(samples);
+        this.cache = cache;
+
+        final int size = (int) index.size();
+        final int[] inlineValues = new int[size];
+        final int[] xlineValues = new int[size];
+        for (int i = 0; i < size; i++) {
+            inlineValues[i] = index.getValue(inlineColumn, i);
+            xlineValues[i] = index.getValue(xlineColumn, i);
+        }
+
+        this.inlines = distinct(inlineValues);
+        this.crosslines = distinct(xlineValues);
+
+        this.cells = new int[inlines.length * crosslines.length];
+        Arrays.fill(cells, -1);
+        for (int i = 0; i < size; i++) {
+            final int cell = Arrays.binarySearch(inlines, inlineValues[i]) * crosslines.length
+                    + Arrays.binarySearch(crosslines, xlineValues[i]);
+            if (cells[cell] < 0) {
+                cells[cell] = i;
+            }
+        }
+    }
+
+    private static int[] distinct(int[] values) {
+        final int[] sorted = values.clone();
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+
+        return Arrays.copyOf(sorted, count);
+    }
+
+    /**
+     * Returns sorted inline numbers of the survey, the rows of a time slice.
+     */
+    public int[] getInlines() {
+        return inlines.clone();
+    }
+
+    /**
+     * Returns sorted crossline numbers of the survey, the columns of a time slice.
+     */
+    public int[] getCrosslines() {
+        return crosslines.clone();
+    }
+
+    /**
+     * Reads all traces of an inline.
+     *
+     * @return one row per crossline of <code>getCrosslines()</code>, null where the survey has no trace
+     */
+    public float[][] readInline(int inline) {
+        final int row = Arrays.binarySearch(inlines, inline);
+        if (row < 0) {
+            throw new IllegalArgumentException("No inline " + inline + " in the survey");
+        }
+
+        final int[] traces = new int[crosslines.length];
+        for (int c = 0; c < crosslines.length; c++) {
+            traces[c] = cells[row * crosslines.length + c];
+        }
+
+        return readTraces(traces);
+    }
+
+    /**
+     * Reads all traces of a crossline.
+     *
+     * @return one row per inline of <code>getInlines()</code>, null where the survey has no trace
+     */
+    public float[][] readCrossline(int crossline) {
+        final int column = Arrays.binarySearch(crosslines, crossline);
+        if (column < 0) {
+            throw new IllegalArgumentException("No crossline " + crossline + " in the survey");
+        }
+
+        final int[] traces = new int[inlines.length];
+        for (int r = 0; r < inlines.length; r++) {
+            traces[r] = cells[r * crosslines.length + column];
+        }
+
+        return readTraces(traces);
+    }
+
+    /**
+     * Reads one sample of every trace.
+     *
+     * @param sample index of the sample starting from zero
+     * @return values indexed by inline and crossline position, NaN where the survey has no trace
+     */
+    public float[][] readTimeSlice(int sample) {
+        if (sample < 0 || sample >= samples) {
+            throw new IndexOutOfBoundsException("Sample " + sample + " is out of range [0, " + samples + ")");
+        }
+
+        final float[][] slice = new float[inlines.length][crosslines.length];
+        final byte[] bytes = new byte[sampleSize];
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final float[] value = new float[1];
+
+        /* Visit cells in file order, so the disk is swept once */
+        final long[] order = order(cells);
+        for (long entry : order) {
+            final int cell = (int) entry;
+            final int trace = (int) (entry >>> 32);
+
+            read(buffer, sampleSize, index.getOffset(trace) + TraceHeader.TRACE_HEADER_LENGTH
+                    + (long) sample * sampleSize);
+            converter.convert(bytes, 0, value, 1);
+
+            slice[cell / crosslines.length][cell % crosslines.length] = value[0];
+        }
+
+        for (int cell = 0; cell < cells.length; cell++) {
+            if (cells[cell] < 0) {
+                slice[cell / crosslines.length][cell % crosslines.length] = Float.NaN;
+            }
+        }
+
+        return slice;
+    }
+
+    /**
+     * Reads the traces into rows of the result, merging traces that are adjacent in the file into a single read.
+     * Cached traces are copied from memory and only the others are read.
+     */
+    private float[][] readTraces(int[] traces) {
+        final float[][] rows = new float[traces.length][];
+        final long[] order = order(cache == null ? traces : fromCache(traces, rows));
+        final int tracesPerRead = (int) Math.max(1, MAX_READ / traceLength);
+        final byte[] bytes = new byte[(int) (Math.min(tracesPerRead, order.length) * traceLength)];
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        int start = 0;
+        while (start < order.length) {
+            final long position = index.getOffset((int) (order[start] >>> 32));
+
+            int end = start + 1;
+            while (end < order.length && end - start < tracesPerRead
+                    && index.getOffset((int) (order[end] >>> 32)) == position + (end - start) * traceLength) {
+                end++;
+            }
+
+            read(buffer, (int) ((end - start) * traceLength), position);
+
+            for (int k = start; k < end; k++) {
+                final float[] values = new float[samples];
+                converter.convert(bytes, (int) ((k - start) * traceLength) + TraceHeader.TRACE_HEADER_LENGTH,
+                        values, samples);
+                rows[(int) order[k]] = values;
+
+                if (cache != null) {
+                    cache.put(order[k] >>> 32, values, samples);
+                }
+            }
+
+            start = end;
+        }
+
+        return rows;
+    }
+
+    /**
+     * Fills rows of cached traces.
+     *
+     * @return traces still to be read, -1 in slots filled from the cache
+     */
+    private int[] fromCache(int[] traces, float[][] rows) {
+        final int[] missing = traces.clone();
+
+        float[] values = null;
+        for (int slot = 0; slot < traces.length; slot++) {
+            if (traces[slot] >= 0) {
+                if (values == null) {
+                    values = new float[samples];
+                }
+                if (cache.get(traces[slot], values) >= 0) {
+                    rows[slot] = values;
+                    missing[slot] = -1;
+                    values = null;
+                }
+            }
+        }
+
+        return missing;
+    }
+
+    /**
+     * Packs trace index and slot of every present trace into a long and sorts them by trace index, which is the file
+     * order of an index.
+     */
+    private static long[] order(int[] traces) {
+        int count = 0;
+        final long[] order = new long[traces.length];
+        for (int slot = 0; slot < traces.length; slot++) {
+            if (traces[slot] >= 0) {
+                order[count++] = ((long) traces[slot] << 32) | slot;
+            }
+        }
+
+        final long[] result = Arrays.copyOf(order, count);
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    private void read(ByteBuffer buffer, int length, long position) {
+        buffer.clear();
+        buffer.limit(length);
+
+        try {
+            while (buffer.hasRemaining()) {
+                if (chan.read(buffer, position + buffer.position()) < 0) {
+                    throw new SEGYStreamException("Unexpected end of file at position " + position);
+                }
+            }
+        } catch (IOException e) {
+            throw new SEGYStreamException("Unable to read at position " + position, e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package sigrun.common;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps decoded samples of recently read traces in memory outside of the Java heap.
+ * <p/>
+ * Samples are stored in pages of direct memory grouped into slabs, which are allocated as the cache fills up to a
+ * fixed byte budget. A trace of a fixed-length file takes exactly one page; traces of other files take as many pages
+ * of <code>DEFAULT_PAGE_SIZE</code> samples as they need. When the budget is spent, the least recently used traces
+ * are evicted.
+ * <p/>
+ * The cache may be shared between threads. Lookups and insertions are serialised, but misses read the file outside
+ * of the lock, so a slow read never blocks hits of other threads. Two threads missing the same trace at once both
+ * read it.
+ */
+public class TraceCache {
+    /* Samples per page when traces vary in length */
+    public static final int DEFAULT_PAGE_SIZE = 1024;
+    private static final int MAX_SLAB_SIZE = 64 * 1024 * 1024;
+
+    private final SEGYStream stream;
+    /* Samples in every trace, or -1 when traces are located through the offset table of the stream */
+    private final long samples;
+    private final int pageSize;
+    private final int pageCount;
+    private final int pagesPerSlab;
+    private final FloatBuffer[] slabs;
+
+    /* Released pages, and the number of pages handed out at least once */
+    private int[] freePages = new int[16];
+    private int freeCount;
+    private int pageLimit;
+    /* Traces in access order, the least recently used first */
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Creates a cache for a fixed-length file.
+     *
+     * @param stream  opened SEG-Y stream
+     * @param samples number of samples in every trace
+     * @param budget  maximum number of bytes holding samples
+     */
+    public TraceCache(SEGYStream stream, long samples, long budget) {
+        this(stream, samples, (int) Math.min(Integer.MAX_VALUE, samples), budget);
+    }
+
+    /**
+     * Creates a cache for a file whose traces may vary in length. Traces are located through the offset table of the
+     * stream, see <code>SEGYStream.buildTraceOffsets()</code>.
+     *
+     * @param stream opened SEG-Y stream
+     * @param budget maximum number of bytes holding samples
+     */
+    public TraceCache(SEGYStream stream, long budget) {
+        this(stream, -1, DEFAULT_PAGE_SIZE, budget);
+    }
+
+    private TraceCache(SEGYStream stream, long samples, int pageSize, long budget) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Traces of " + samples + " samples can not be cached");
+        }
+
+        final long pageBytes = pageSize * 4L;
+        if (budget < pageBytes) {
+            throw new IllegalArgumentException("Budget of " + budget + " bytes is less than a page of " + pageBytes
+                    + " bytes");
+        }
+
+        this.stream = stream;
+        this.samples = samples;
+        this.pageSize = pageSize;
+        this.pageCount = (int) Math.min(Integer.MAX_VALUE, budget / pageBytes);
+        this.pagesPerSlab = (int) Math.max(1, MAX_SLAB_SIZE / pageBytes);
+        this.slabs = new FloatBuffer[(int) (((long) pageCount + pagesPerSlab - 1) / pagesPerSlab)];
+    }
+
+    /**
+     * Copies samples of a trace into the destination, reading and caching the trace if it is not in memory.
+     *
+     * @param index       index of the trace starting from zero
+     * @param destination array large enough for all samples of the trace
+     * @return number of samples
+     */
+    public int readTraceSamples(long index, float[] destination) {
+        final int cached = get(index, destination);
+        if (cached >= 0) {
+            return cached;
+        }
+
+        final int count = samples >= 0
+                ? stream.readTraceSamples(index, samples, destination)
+                : stream.readTraceSamples(index, destination);
+        put(index, destination, count);
+
+        return count;
+    }
+
+    /**
+     * Copies cached samples of a trace into the destination, counting a hit or a miss.
+     *
+     * @return number of samples, or -1 if the trace is not in memory
+     */
+    public int get(long index, float[] destination) {
+        synchronized (entries) {
+            final Entry entry = entries.get(index);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return -1;
+            }
+
+            final int count = entry.count;
+            if (destination.length < count) {
+                throw new IllegalArgumentException("Trace " + index + " has " + count + " samples, destination holds "
+                        + destination.length);
+            }
+
+            for (int p = 0; p < entry.pages.length; p++) {
+                final int offset = p * pageSize;
+                page(entry.pages[p]).get(destination, offset, Math.min(pageSize, count - offset));
+            }
+            hits.incrementAndGet();
+
+            return count;
+        }
+    }
+
+    /**
+     * Stores samples of a trace, evicting least recently used traces to make room. A trace larger than the whole
+     * budget is not stored.
+     *
+     * @param index  index of the trace starting from zero
+     * @param values samples of the trace
+     * @param count  number of samples
+     */
+    public void put(long index, float[] values, int count) {
+        final int needed = (int) (((long) count + pageSize - 1) / pageSize);
+        if (needed > pageCount) {
+            return;
+        }
+
+        synchronized (entries) {
+            release(entries.remove(index));
+
+            while (freeCount + (pageCount - pageLimit) < needed) {
+                final Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+                final Entry entry = eldest.next().getValue();
+                eldest.remove();
+                release(entry);
+                evictions.incrementAndGet();
+            }
+
+            final int[] pages = new int[needed];
+            for (int p = 0; p < needed; p++) {
+                pages[p] = freeCount > 0 ? freePages[--freeCount] : pageLimit++;
+
+                final int offset = p * pageSize;
+                page(pages[p]).put(values, offset, Math.min(pageSize, count - offset));
+            }
+
+            entries.put(index, new Entry(pages, count));
+        }
+    }
+
+    /**
+     * Returns a buffer positioned at the start of a page, allocating its slab on first use. Called under the lock.
+     */
+    private FloatBuffer page(int page) {
+        final int slab = page / pagesPerSlab;
+        if (slabs[slab] == null) {
+            final long pages = Math.min(pagesPerSlab, pageCount - (long) slab * pagesPerSlab);
+            slabs[slab] = ByteBuffer.allocateDirect((int) (pages * pageSize * 4))
+                    .order(ByteOrder.nativeOrder()).asFloatBuffer();
+        }
+
+        final FloatBuffer buffer = slabs[slab];
+        buffer.clear();
+        buffer.position((page % pagesPerSlab) * pageSize);
+
+        return buffer;
+    }
+
+    private void release(Entry entry) {
+        if (entry == null) {
+            return;
+        }
+
+        if (freeCount + entry.pages.length > freePages.length) {
+            freePages = Arrays.copyOf(freePages, Math.max(freeCount + entry.pages.length, freePages.length * 2));
+        }
+        for (int page : entry.pages) {
+            freePages[freeCount++] = page;
+        }
+    }
+
+    /**
+     * Drops all traces. Slabs are kept for reuse.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+            freeCount = 0;
+            pageLimit = 0;
+        }
+    }
+
+    /**
+     * Returns the number of cached traces.
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of bytes taken by cached samples, counted in whole pages.
+     */
+    public long getUsedBytes() {
+        synchronized (entries) {
+            return (long) (pageLimit - freeCount) * pageSize * 4;
+        }
+    }
+
+    /**
+     * Returns the budget rounded down to whole pages.
+     */
+    public long getCapacityBytes() {
+        return (long) pageCount * pageSize * 4;
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TraceCache{" +
+                "traces=" + size() +
+                ", usedBytes=" + getUsedBytes() +
+                ", capacityBytes=" + getCapacityBytes() +
+                ", hits=" + hits.get() +
+                ", misses=" + misses.get() +
+                ", evictions=" + evictions.get() +
+                '}';
+    }
+
+    private static class Entry {
+        private final int[] pages;
+        private final int count;
+
+        private Entry(int[] pages, int count) {
+            this.pages = pages;
+            this.count = count;
+        }
+    }
+}
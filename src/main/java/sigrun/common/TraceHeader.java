@@ -7,7 +7,7 @@ import static sigrun.converters.ByteANumberConverter.byteAToShort;
 import static sigrun.converters.NumberByteAConverter.shortToByteA;
 
 @SuppressWarnings({"RedundantIfStatement", "UnusedDeclaration", "ConstantConditions"})
-public class TraceHeader {
+public class TraceHeader implements ReadableTraceHeader {
     @Reportable(value = "Position In File")
     private transient long positionInFile = -1;
 
@@ -0,0 +1,115 @@
+package sigrun.common;
+
+/**
+ * Fields of a trace header that can be configured in a <code>TraceHeaderFormat</code>, in the order they are parsed.
+ */
+public enum TraceHeaderField {
+    TRACE_SEQUENCE_NUMBER_WL(Kind.INT),
+    TRACE_SEQUENCE_NUMBER_WS(Kind.INT),
+    ORIGINAL_FIELD_RECORD_NUMBER(Kind.INT),
+    TRACE_NUMBER_WOFR(Kind.INT),
+    ENERGY_SOURCE_POINT_NUMBER(Kind.INT),
+    ENSEMBLE_NUMBER(Kind.INT),
+    TRACE_NUMBER_W_ENSEMBLE(Kind.INT),
+    TRACE_IDENTIFICATION_CODE(Kind.SHORT),
+    NUMBER_OF_VERTICALLY_SUMMED_TRACES(Kind.SHORT),
+    NUMBER_OF_HORIZONTALLY_STACKED_TRACES(Kind.SHORT),
+    DATA_USE(Kind.SHORT),
+    DISTANCE_FROM_THE_CENTER_OF_SP(Kind.INT),
+    RECEIVER_GROUP_ELEVATION(Kind.INT),
+    SURFACE_ELEVATION_AT_SOURCE(Kind.INT),
+    SOURCE_DEPTH_BELOW_SURFACE(Kind.INT),
+    DATUM_ELEVATION_AT_RECEIVER_GROUP(Kind.INT),
+    DATUM_ELEVATION_AT_SOURCE(Kind.INT),
+    WATER_DEPTH_AT_SOURCE(Kind.INT),
+    WATER_DEPTH_AT_GROUP(Kind.INT),
+    SCALAR_FOR_ELEVATIONS(Kind.SHORT),
+    SCALAR_FOR_COORDINATES(Kind.SHORT),
+    SOURCE_X(Kind.INT),
+    SOURCE_Y(Kind.INT),
+    GROUP_X(Kind.INT),
+    GROUP_Y(Kind.INT),
+    COORDINATE_UNITS_CODE(Kind.SHORT),
+    WEATHERING_VELOCITY(Kind.SHORT),
+    SUBWEATHERING_VELOCITY(Kind.SHORT),
+    UPHOLE_TIME_AT_SOURCE_IN_MS(Kind.SHORT),
+    UPHOLE_TIME_AT_GROUP_IN_MS(Kind.SHORT),
+    SOURCE_STATIC_CORRECTION_IN_MS(Kind.SHORT),
+    GROUP_STATIC_CORRECTION_IN_MS(Kind.SHORT),
+    TOTAL_STATIC_APPLIED_IN_MS(Kind.SHORT),
+    LAG_TIME_A(Kind.SHORT),
+    LAG_TIME_B(Kind.SHORT),
+    DELAY_RECORDING_TIME(Kind.SHORT),
+    MUTE_TIME_START(Kind.SHORT),
+    MUTE_TIME_END(Kind.SHORT),
+    NUMBER_OF_SAMPLES(Kind.SHORT),
+    SAMPLE_INTERVAL_IN_MCS(Kind.SHORT),
+    GAIN_TYPE_FOR_INSTRUMENTS(Kind.SHORT),
+    INSTRUMENT_GAIN_CONSTANT(Kind.SHORT),
+    INSTRUMENT_EARLY_OR_INITIAL_GAIN(Kind.SHORT),
+    CORRELATED(Kind.SHORT),
+    SWEEP_FREQUENCY_AT_START(Kind.SHORT),
+    SWEEP_FREQUENCY_AT_END(Kind.SHORT),
+    SWEEP_LENGTH_IN_MILLISECONDS(Kind.SHORT),
+    SWEEP_TYPE(Kind.SHORT),
+    SWEEP_TRACE_TAPER_LENGTH_AT_START_IN_MILLISECONDS(Kind.SHORT),
+    SWEEP_TRACE_TAPER_LENGTH_AT_END_IN_MILLISECONDS(Kind.SHORT),
+    TAPER_TYPE(Kind.SHORT),
+    ALIAS_FILTER_FREQUENCY(Kind.SHORT),
+    ALIAS_FILTER_SLOPE(Kind.SHORT),
+    NOTCH_FILTER_FREQUENCY(Kind.SHORT),
+    NOTCH_FILTER_SLOPE(Kind.SHORT),
+    LOW_CUT_FREQUENCY(Kind.SHORT),
+    HIGH_CUT_FREQUENCY(Kind.SHORT),
+    LOW_CUT_SLOPE(Kind.SHORT),
+    HIGH_CUT_SLOPE(Kind.SHORT),
+    YEAR_DATA_RECORDED(Kind.SHORT),
+    DAY_OF_YEAR(Kind.SHORT),
+    HOUR_OF_DAY(Kind.SHORT),
+    MINUTE_OF_HOUR(Kind.SHORT),
+    SECOND_OF_MINUTE(Kind.SHORT),
+    TIME_BASIS_CODE(Kind.SHORT),
+    TRACE_WEIGHTING_FACTOR(Kind.SHORT),
+    GEOPHONE_GROUP_NUMBER_OF_ROLL_SWITCH_POSITION_ONE(Kind.SHORT),
+    GEOPHONE_GROUP_NUMBER_OF_TRACE_NUMBER_ONE_WOFR(Kind.SHORT),
+    GEOPHONE_GROUP_NUMBER_OF_LAST_TRACE_WOFR(Kind.SHORT),
+    GAP_SIZE(Kind.SHORT),
+    OVER_TRAVEL(Kind.SHORT),
+    X_OF_CDP_POSITION(Kind.INT),
+    Y_OF_CDP_POSITION(Kind.INT),
+    IN_LINE_NUMBER(Kind.INT),
+    CROSS_LINE_NUMBER(Kind.INT),
+    SHOTPOINT_NUMBER(Kind.INT),
+    SCALAR_FOR_SP_NUMBER(Kind.SHORT),
+    TRACE_VALUES_MU(Kind.SHORT),
+    TRANSDUCTION_CONSTANT(Kind.BYTES),
+    TRANSDUCTION_UNITS(Kind.SHORT),
+    DEVICE_TRACE_IDENTIFIER(Kind.SHORT),
+    SCALAR_TO_BE_APPLIED_TO_TIMES(Kind.SHORT),
+    SOURCE_TYPE_ORIENTATION(Kind.SHORT),
+    SOURCE_ENERGY_DIRECTION(Kind.BYTES),
+    SOURCE_MEASUREMENT(Kind.BYTES),
+    SOURCE_MEASUREMENT_UNIT(Kind.SHORT);
+
+    /**
+     * Representation of a field in the header.
+     */
+    public enum Kind {
+        /** 4 byte two's complement integer */
+        INT,
+        /** 2 byte two's complement integer, also used for codes */
+        SHORT,
+        /** Raw bytes */
+        BYTES
+    }
+
+    private final Kind kind;
+
+    TraceHeaderField(Kind kind) {
+        this.kind = kind;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,437 @@
+package sigrun.common;
+
+import sigrun.serialization.FormatEntry;
+import sigrun.serialization.SEGYFormatException;
+import sigrun.serialization.TraceHeaderFormat;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight view of a raw trace header.
+ * <p/>
+ * The view decodes a field only when its getter is called, using the offsets of the <code>TraceHeaderFormat</code>,
+ * and returns primitives instead of boxed values. It is pointed at the next header with <code>wrap</code>, so a
+ * header scan allocates nothing per trace. Getters of fields missing in the format throw
+ * <code>SEGYFormatException</code>.
+ * <p/>
+ * Values are read in the byte order of the wrapped buffer, which should be big-endian. A view is not thread-safe and
+ * is valid only while the wrapped bytes stay unchanged.
+ */
+public class TraceHeaderView {
+    private final TraceHeaderFormat format;
+    private ByteBuffer buffer;
+    private int base;
+    private byte[] array;
+    private ByteBuffer arrayBuffer;
+
+    public TraceHeaderView(TraceHeaderFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Points the view at a header stored in a buffer.
+     *
+     * @param buffer buffer holding the header
+     * @param offset absolute index of the first header byte in the buffer
+     * @return this view
+     */
+    public TraceHeaderView wrap(ByteBuffer buffer, int offset) {
+        if (offset < 0 || offset + TraceHeader.TRACE_HEADER_LENGTH > buffer.limit()) {
+            throw new IndexOutOfBoundsException("Header at " + offset + " does not fit into the buffer");
+        }
+
+        this.buffer = buffer;
+        this.base = offset;
+
+        return this;
+    }
+
+    /**
+     * Points the view at a header stored at the start of an array. The array wrapper is reused as long as the same
+     * array is passed.
+     *
+     * @return this view
+     */
+    public TraceHeaderView wrap(byte[] header) {
+        if (header != array) {
+            array = header;
+            arrayBuffer = ByteBuffer.wrap(header);
+        }
+
+        return wrap(arrayBuffer, 0);
+    }
+
+    public TraceHeaderFormat getFormat() {
+        return format;
+    }
+
+    private int position(FormatEntry entry) {
+        if (entry == null) {
+            throw new SEGYFormatException("Field is not defined in the trace header format");
+        }
+
+        return base + entry.posStart;
+    }
+
+    private byte[] bytes(FormatEntry entry, byte[] destination) {
+        final int position = position(entry);
+        for (int i = 0; i < entry.length(); i++) {
+            destination[i] = buffer.get(position + i);
+        }
+
+        return destination;
+    }
+
+    public int getTraceSequenceNumberWL() {
+        return buffer.getInt(position(format.traceSequenceNumberWLFormat));
+    }
+
+    public int getTraceSequenceNumberWS() {
+        return buffer.getInt(position(format.traceSequenceNumberWSFormat));
+    }
+
+    public int getOriginalFieldRecordNumber() {
+        return buffer.getInt(position(format.originalFieldRecordNumberFormat));
+    }
+
+    public int getTraceNumberWOFR() {
+        return buffer.getInt(position(format.traceNumberWOFRFormat));
+    }
+
+    public int getEnergySourcePointNumber() {
+        return buffer.getInt(position(format.energySourcePointNumberFormat));
+    }
+
+    public int getEnsembleNumber() {
+        return buffer.getInt(position(format.ensembleNumberFormat));
+    }
+
+    public int getTraceNumberWEnsemble() {
+        return buffer.getInt(position(format.traceNumberWEnsembleFormat));
+    }
+
+    public TraceIdentificationCode getTraceIdentificationCode() {
+        return TraceIdentificationCode.create(buffer.getShort(position(format.traceIdentificationCodeFormat)));
+    }
+
+    public short getNumberOfVerticallySummedTraces() {
+        return buffer.getShort(position(format.numberOfVerticallySummedTracesFormat));
+    }
+
+    public short getNumberOfHorizontallyStackedTraces() {
+        return buffer.getShort(position(format.numberOfHorizontallyStackedTracesFormat));
+    }
+
+    public short getDataUse() {
+        return buffer.getShort(position(format.dataUseFormat));
+    }
+
+    public int getDistanceFromTheCenterOfSP() {
+        return buffer.getInt(position(format.distanceFromTheCenterOfSPFormat));
+    }
+
+    public int getReceiverGroupElevation() {
+        return buffer.getInt(position(format.receiverGroupElevationFormat));
+    }
+
+    public int getSurfaceElevationAtSource() {
+        return buffer.getInt(position(format.surfaceElevationAtSourceFormat));
+    }
+
+    public int getSourceDepthBelowSurface() {
+        return buffer.getInt(position(format.sourceDepthBelowSurfaceFormat));
+    }
+
+    public int getDatumElevationAtReceiverGroup() {
+        return buffer.getInt(position(format.datumElevationAtReceiverGroupFormat));
+    }
+
+    public int getDatumElevationAtSource() {
+        return buffer.getInt(position(format.datumElevationAtSourceFormat));
+    }
+
+    public int getWaterDepthAtSource() {
+        return buffer.getInt(position(format.waterDepthAtSourceFormat));
+    }
+
+    public int getWaterDepthAtGroup() {
+        return buffer.getInt(position(format.waterDepthAtGroupFormat));
+    }
+
+    public short getScalarForElevations() {
+        return buffer.getShort(position(format.scalarForElevationsFormat));
+    }
+
+    public short getScalarForCoordinates() {
+        return buffer.getShort(position(format.scalarForCoordinatesFormat));
+    }
+
+    public int getSourceX() {
+        return buffer.getInt(position(format.sourceXFormat));
+    }
+
+    public int getSourceY() {
+        return buffer.getInt(position(format.sourceYFormat));
+    }
+
+    public int getGroupX() {
+        return buffer.getInt(position(format.groupXFormat));
+    }
+
+    public int getGroupY() {
+        return buffer.getInt(position(format.groupYFormat));
+    }
+
+    public CoordinateUnitsCode getCoordinateUnitsCode() {
+        return CoordinateUnitsCode.create(buffer.getShort(position(format.coordinateUnitsCodeFormat)));
+    }
+
+    public short getWeatheringVelocity() {
+        return buffer.getShort(position(format.weatheringVelocityFormat));
+    }
+
+    public short getSubweatheringVelocity() {
+        return buffer.getShort(position(format.subweatheringVelocityFormat));
+    }
+
+    public short getUpholeTimeAtSourceInMs() {
+        return buffer.getShort(position(format.upholeTimeAtSourceInMsFormat));
+    }
+
+    public short getUpholeTimeAtGroupInMs() {
+        return buffer.getShort(position(format.upholeTimeAtGroupInMsFormat));
+    }
+
+    public short getSourceStaticCorrectionInMs() {
+        return buffer.getShort(position(format.sourceStaticCorrectionInMsFormat));
+    }
+
+    public short getGroupStaticCorrectionInMs() {
+        return buffer.getShort(position(format.groupStaticCorrectionInMsFormat));
+    }
+
+    public short getTotalStaticAppliedInMs() {
+        return buffer.getShort(position(format.totalStaticAppliedInMsFormat));
+    }
+
+    public short getLagTimeA() {
+        return buffer.getShort(position(format.lagTimeAFormat));
+    }
+
+    public short getLagTimeB() {
+        return buffer.getShort(position(format.lagTimeBFormat));
+    }
+
+    public short getDelayRecordingTime() {
+        return buffer.getShort(position(format.delayRecordingTimeFormat));
+    }
+
+    public short getMuteTimeStart() {
+        return buffer.getShort(position(format.muteTimeStartFormat));
+    }
+
+    public short getMuteTimeEnd() {
+        return buffer.getShort(position(format.muteTimeEndFormat));
+    }
+
+    public short getNumberOfSamples() {
+        return buffer.getShort(position(format.numberOfSamplesFormat));
+    }
+
+    public short getSampleIntervalInMcs() {
+        return buffer.getShort(position(format.sampleIntervalInMcsFormat));
+    }
+
+    public GainTypeForInstruments getGainTypeForInstruments() {
+        return GainTypeForInstruments.create(buffer.getShort(position(format.gainTypeForInstrumentsFormat)));
+    }
+
+    public short getInstrumentGainConstant() {
+        return buffer.getShort(position(format.instrumentGainConstantFormat));
+    }
+
+    public short getInstrumentEarlyOrInitialGain() {
+        return buffer.getShort(position(format.instrumentEarlyOrInitialGainFormat));
+    }
+
+    public short getCorrelated() {
+        return buffer.getShort(position(format.correlatedFormat));
+    }
+
+    public short getSweepFrequencyAtStart() {
+        return buffer.getShort(position(format.sweepFrequencyAtStartFormat));
+    }
+
+    public short getSweepFrequencyAtEnd() {
+        return buffer.getShort(position(format.sweepFrequencyAtEndFormat));
+    }
+
+    public short getSweepLengthInMilliseconds() {
+        return buffer.getShort(position(format.sweepLengthInMillisecondsFormat));
+    }
+
+    public short getSweepType() {
+        return buffer.getShort(position(format.sweepTypeFormat));
+    }
+
+    public short getSweepTraceTaperLengthAtStartInMilliseconds() {
+        return buffer.getShort(position(format.sweepTraceTaperLengthAtStartInMillisecondsFormat));
+    }
+
+    public short getSweepTraceTaperLengthAtEndInMilliseconds() {
+        return buffer.getShort(position(format.sweepTraceTaperLengthAtEndInMillisecondsFormat));
+    }
+
+    public short getTaperType() {
+        return buffer.getShort(position(format.taperTypeFormat));
+    }
+
+    public short getAliasFilterFrequency() {
+        return buffer.getShort(position(format.aliasFilterFrequencyFormat));
+    }
+
+    public short getAliasFilterSlope() {
+        return buffer.getShort(position(format.aliasFilterSlopeFormat));
+    }
+
+    public short getNotchFilterFrequency() {
+        return buffer.getShort(position(format.notchFilterFrequencyFormat));
+    }
+
+    public short getNotchFilterSlope() {
+        return buffer.getShort(position(format.notchFilterSlopeFormat));
+    }
+
+    public short getLowCutFrequency() {
+        return buffer.getShort(position(format.lowCutFrequencyFormat));
+    }
+
+    public short getHighCutFrequency() {
+        return buffer.getShort(position(format.highCutFrequencyFormat));
+    }
+
+    public short getLowCutSlope() {
+        return buffer.getShort(position(format.lowCutSlopeFormat));
+    }
+
+    public short getHighCutSlope() {
+        return buffer.getShort(position(format.highCutSlopeFormat));
+    }
+
+    public short getYearDataRecorded() {
+        return buffer.getShort(position(format.yearDataRecordedFormat));
+    }
+
+    public short getDayOfYear() {
+        return buffer.getShort(position(format.dayOfYearFormat));
+    }
+
+    public short getHourOfDay() {
+        return buffer.getShort(position(format.hourOfDayFormat));
+    }
+
+    public short getMinuteOfHour() {
+        return buffer.getShort(position(format.minuteOfHourFormat));
+    }
+
+    public short getSecondOfMinute() {
+        return buffer.getShort(position(format.secondOfMinuteFormat));
+    }
+
+    public short getTimeBasisCode() {
+        return buffer.getShort(position(format.timeBasisCodeFormat));
+    }
+
+    public short getTraceWeightingFactor() {
+        return buffer.getShort(position(format.traceWeightingFactorFormat));
+    }
+
+    public short getGeophoneGroupNumberOfRollSwitchPositionOne() {
+        return buffer.getShort(position(format.geophoneGroupNumberOfRollSwitchPositionOneFormat));
+    }
+
+    public short getGeophoneGroupNumberOfTraceNumberOneWOFR() {
+        return buffer.getShort(position(format.geophoneGroupNumberOfTraceNumberOneWOFRFormat));
+    }
+
+    public short getGeophoneGroupNumberOfLastTraceWOFR() {
+        return buffer.getShort(position(format.geophoneGroupNumberOfLastTraceWOFRFormat));
+    }
+
+    public short getGapSize() {
+        return buffer.getShort(position(format.gapSizeFormat));
+    }
+
+    public short getOverTravel() {
+        return buffer.getShort(position(format.overTravelFormat));
+    }
+
+    public int getxOfCDPPosition() {
+        return buffer.getInt(position(format.xOfCDPPositionFormat));
+    }
+
+    public int getyOfCDPPosition() {
+        return buffer.getInt(position(format.yOfCDPPositionFormat));
+    }
+
+    public int getInLineNumber() {
+        return buffer.getInt(position(format.inLineNumberFormat));
+    }
+
+    public int getCrossLineNumber() {
+        return buffer.getInt(position(format.crossLineNumberFormat));
+    }
+
+    public int getShotpointNumber() {
+        return buffer.getInt(position(format.shotpointNumberFormat));
+    }
+
+    public short getScalarForSPNumber() {
+        return buffer.getShort(position(format.scalarForSPNumberFormat));
+    }
+
+    public short getTraceValuesMU() {
+        return buffer.getShort(position(format.traceValuesMUFormat));
+    }
+
+    /**
+     * Copies the raw bytes of the field into the destination and returns it.
+     */
+    public byte[] getTransductionConstant(byte[] destination) {
+        return bytes(format.transductionConstantFormat, destination);
+    }
+
+    public short getTransductionUnits() {
+        return buffer.getShort(position(format.transductionUnitsFormat));
+    }
+
+    public short getDeviceTraceIdentifier() {
+        return buffer.getShort(position(format.deviceTraceIdentifierFormat));
+    }
+
+    public short getScalarToBeAppliedToTimes() {
+        return buffer.getShort(position(format.scalarToBeAppliedToTimesFormat));
+    }
+
+    public short getSourceTypeOrientation() {
+        return buffer.getShort(position(format.sourceTypeOrientationFormat));
+    }
+
+    /**
+     * Copies the raw bytes of the field into the destination and returns it.
+     */
+    public byte[] getSourceEnergyDirection(byte[] destination) {
+        return bytes(format.sourceEnergyDirectionFormat, destination);
+    }
+
+    /**
+     * Copies the raw bytes of the field into the destination and returns it.
+     */
+    public byte[] getSourceMeasurement(byte[] destination) {
+        return bytes(format.sourceMeasurementFormat, destination);
+    }
+
+    public short getSourceMeasurementUnit() {
+        return buffer.getShort(position(format.sourceMeasurementUnitFormat));
+    }
+}
@@ -0,0 +1,267 @@
+package sigrun.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sigrun.serialization.FormatEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Persistent index of trace positions and selected header keys of a SEG-Y file.
+ * <p/>
+ * The index is stored next to the file in a sidecar (<code>file.sgy.idx</code>) as primitive columns: the byte
+ * offset of every trace followed by one column per key. The sidecar is stamped with the size and modification time
+ * of the SEG-Y file and ignored when they do not match. Loading maps the columns into memory, so it does not depend
+ * on the number of traces.
+ */
+public class TraceIndex {
+    private static final Logger log = LoggerFactory.getLogger(TraceIndex.class);
+
+    public static final String EXTENSION = ".idx";
+    private static final int MAGIC = 0x53474958; /* SGIX */
+    private static final int VERSION = 1;
+    private static final int BLOCK_SIZE = 4 * 1024 * 1024;
+
+    private final FormatEntry[] keys;
+    private final long size;
+    private final LongBuffer offsets;
+    private final IntBuffer[] columns;
+
+    private TraceIndex(FormatEntry[] keys, long size, LongBuffer offsets, IntBuffer[] columns) {
+        this.keys = keys;
+        this.size = size;
+        this.offsets = offsets;
+        this.columns = columns;
+    }
+
+    public static File sidecarFor(File source) {
+        return new File(source.getPath() + EXTENSION);
+    }
+
+    /**
+     * Loads the sidecar of the file, building it first if it is missing, stale or holds other keys.
+     *
+     * @param stream stream opened over the source file
+     * @param source SEG-Y file
+     * @param keys   header entries to index, 1, 2 or 4 bytes wide
+     * @return loaded index
+     */
+    public static TraceIndex open(SEGYStream stream, File source, FormatEntry... keys) throws IOException {
+        final TraceIndex index = load(source);
+
+        if (index != null && Arrays.equals(index.keys, keys)) {
+            return index;
+        }
+
+        return build(stream, source, keys);
+    }
+
+    /**
+     * Scans all trace headers of the file and writes the sidecar.
+     * <p/>
+     * Every trace is located from the number of samples in its own header, so files with traces of varying length
+     * are indexed too.
+     *
+     * @param stream stream opened over the source file
+     * @param source SEG-Y file
+     * @param keys   header entries to index, 1, 2 or 4 bytes wide
+     * @return loaded index
+     */
+    public static TraceIndex build(SEGYStream stream, File source, FormatEntry... keys) throws IOException {
+        for (FormatEntry key : keys) {
+            if (key.posStart < 0 || key.posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (key.length() != 1 && key.length() != 2 && key.length() != 4)) {
+                throw new IllegalArgumentException("Key " + key + " is not an integer field of the trace header");
+            }
+        }
+
+        final RawTraceWalker walker = new RawTraceWalker(stream, BLOCK_SIZE);
+
+        long[] offsets = new long[1024];
+        int[][] values = new int[keys.length][offsets.length];
+        int count = 0;
+
+        while (walker.next()) {
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+                for (int k = 0; k < keys.length; k++) {
+                    values[k] = Arrays.copyOf(values[k], count * 2);
+                }
+            }
+
+            offsets[count] = walker.position();
+            for (int k = 0; k < keys.length; k++) {
+                values[k][count] = keys[k].readInt(walker.header(), 0);
+            }
+            count++;
+        }
+
+        write(sidecarFor(source), source, keys, offsets, values, count);
+
+        final TraceIndex index = load(source);
+        if (index == null) {
+            throw new SEGYStreamException("Unable to load index that has just been written for " + source);
+        }
+
+        return index;
+    }
+
+    private static void write(File sidecar, File source, FormatEntry[] keys, long[] offsets, int[][] values,
+                              int count) throws IOException {
+        final File temp = new File(sidecar.getPath() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16));
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            out.writeLong(count);
+            out.writeInt(keys.length);
+            for (FormatEntry key : keys) {
+                out.writeInt(key.posStart);
+                out.writeInt(key.posEnd);
+            }
+
+            /* Align the columns to 8 bytes */
+            while (out.size() % 8 != 0) {
+                out.writeByte(0);
+            }
+
+            for (int i = 0; i < count; i++) {
+                out.writeLong(offsets[i]);
+            }
+
+            for (int[] column : values) {
+                for (int i = 0; i < count; i++) {
+                    out.writeInt(column[i]);
+                }
+            }
+        } finally {
+            out.close();
+        }
+
+        if (sidecar.exists() && !sidecar.delete()) {
+            throw new IOException("Unable to replace " + sidecar);
+        }
+
+        if (!temp.renameTo(sidecar)) {
+            throw new IOException("Unable to rename " + temp + " to " + sidecar);
+        }
+    }
+
+    /**
+     * Maps the sidecar of the file into memory.
+     *
+     * @param source SEG-Y file
+     * @return loaded index or null if the sidecar is missing or does not match the file
+     */
+    public static TraceIndex load(File source) throws IOException {
+        final File sidecar = sidecarFor(source);
+        if (!sidecar.exists()) {
+            return null;
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(sidecar, "r");
+        try {
+            final FileChannel chan = file.getChannel();
+            final ByteBuffer prefix = ByteBuffer.allocate(36);
+            chan.read(prefix, 0);
+            prefix.flip();
+
+            if (prefix.remaining() < 36 || prefix.getInt() != MAGIC || prefix.getInt() != VERSION) {
+                log.warn("Ignoring " + sidecar + ", it is not a trace index of this version");
+                return null;
+            }
+
+            if (prefix.getLong() != source.length() || prefix.getLong() != source.lastModified()) {
+                log.info("Ignoring " + sidecar + ", it does not match size or modification time of " + source);
+                return null;
+            }
+
+            final long size = prefix.getLong();
+            final FormatEntry[] keys = new FormatEntry[prefix.getInt()];
+            final ByteBuffer keyBuffer = ByteBuffer.allocate(keys.length * 8);
+            chan.read(keyBuffer, 36);
+            keyBuffer.flip();
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = FormatEntry.create(keyBuffer.getInt(), keyBuffer.getInt());
+            }
+
+            long position = 36 + keys.length * 8;
+            position += (8 - position % 8) % 8;
+
+            final LongBuffer offsets = map(chan, position, size * 8).asLongBuffer();
+            position += size * 8;
+
+            final IntBuffer[] columns = new IntBuffer[keys.length];
+            for (int k = 0; k < keys.length; k++) {
+                columns[k] = map(chan, position, size * 4).asIntBuffer();
+                position += size * 4;
+            }
+
+            return new TraceIndex(keys, size, offsets, columns);
+        } finally {
+            /* Mappings stay valid after the channel is closed */
+            file.close();
+        }
+    }
+
+    private static ByteBuffer map(FileChannel chan, long position, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new SEGYStreamException("Index column of " + length + " bytes is too large to be mapped");
+        }
+
+        return chan.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    /**
+     * Returns the number of indexed traces.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the absolute position of the trace header in the SEG-Y file.
+     */
+    public long getOffset(long trace) {
+        return offsets.get(checkIndex(trace));
+    }
+
+    public int getColumnCount() {
+        return keys.length;
+    }
+
+    public FormatEntry getKey(int column) {
+        return keys[column];
+    }
+
+    /**
+     * Returns the value of an indexed header key.
+     *
+     * @param column index of the key in the order it was given to the builder
+     * @param trace  index of the trace
+     */
+    public int getValue(int column, long trace) {
+        return columns[column].get(checkIndex(trace));
+    }
+
+    private int checkIndex(long trace) {
+        if (trace < 0 || trace >= size) {
+            throw new IndexOutOfBoundsException("Trace index " + trace + " is out of range [0, " + size + ")");
+        }
+
+        return (int) trace;
+    }
+}
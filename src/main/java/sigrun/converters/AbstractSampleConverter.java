@@ -0,0 +1,84 @@
+package sigrun.converters;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Base class for converters of fixed-size big-endian samples.
+ */
+public abstract class AbstractSampleConverter implements SeismicValuesConverter {
+    private final int sampleSize;
+
+    protected AbstractSampleConverter(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    @Override
+    public float[] convert(byte[] bytes) {
+        if (bytes == null) {
+            throw new IllegalArgumentException("Bytes array cannot be null");
+        }
+
+        if ((bytes.length % sampleSize) != 0) {
+            throw new IllegalArgumentException("Byte array has wrong length");
+        }
+
+        float[] result = new float[bytes.length / sampleSize];
+        convert(bytes, 0, result, result.length);
+
+        return result;
+    }
+
+    /**
+     * Converts samples from the current position of the source, advancing it past the converted samples.
+     *
+     * @param source            buffer positioned at the first sample, read in the byte order of the buffer
+     * @param destination       array for converted values
+     * @param destinationOffset index of the first converted value in the destination
+     * @param count             number of samples
+     */
+    public void convert(ByteBuffer source, float[] destination, int destinationOffset, int count) {
+        final int position = source.position();
+        final int length = count * sampleSize;
+
+        if (source.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+
+        if (source.hasArray() && source.order() == ByteOrder.BIG_ENDIAN) {
+            convert(source.array(), source.arrayOffset() + position, destination, destinationOffset, count);
+        } else {
+            convert(source, position, destination, destinationOffset, count);
+        }
+
+        source.position(position + length);
+    }
+
+    /**
+     * Converts a range of big-endian samples.
+     *
+     * @param source            raw bytes
+     * @param sourceOffset      offset of the first sample in bytes
+     * @param destination       array for converted values
+     * @param destinationOffset index of the first converted value in the destination
+     * @param count             number of samples
+     */
+    public abstract void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset,
+                                    int count);
+
+    /**
+     * Converts samples read with absolute gets starting at the given position of the buffer.
+     */
+    protected abstract void convert(ByteBuffer source, int position, float[] destination, int destinationOffset,
+                                    int count);
+
+    @Override
+    public void convert(byte[] source, int offset, float[] destination, int count) {
+        convert(source, offset, destination, 0, count);
+    }
+}
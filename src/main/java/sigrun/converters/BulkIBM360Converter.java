@@ -0,0 +1,35 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * IBM360 converter that decodes whole ranges in two passes.
+ * <p/>
+ * The first pass copies a chunk of words into an <code>int</code> scratch array with a bulk big-endian view, which the
+ * JVM turns into a wide copy with byte swapping instead of assembling every word from four bytes. The second pass
+ * converts the words with the branch-free kernel of <code>IBM360Converter</code>, a loop without loads of bytes that
+ * the JIT compiles into straight-line code. Words stay integers until they are converted, so every bit of them
+ * reaches the kernel.
+ * <p/>
+ * Experimental: decoding time is dominated by the kernel, which both converters share, so measured speed-ups over
+ * <code>IBM360Converter</code> vary between none and about twofold from run to run.
+ */
+public class BulkIBM360Converter extends IBM360Converter {
+    @Override
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        BulkScratch.checkRange(destination, destinationOffset, count);
+
+        final IntBuffer words = ByteBuffer.wrap(source, sourceOffset, count * INT_SIZE).asIntBuffer();
+        final int[] scratch = BulkScratch.ints();
+
+        for (int done = 0; done < count; done += BulkScratch.CHUNK) {
+            final int chunk = Math.min(BulkScratch.CHUNK, count - done);
+            words.get(scratch, 0, chunk);
+
+            for (int i = 0, j = destinationOffset + done; i < chunk; i++, j++) {
+                destination[j] = Float.intBitsToFloat(convert(scratch[i]));
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * IEEE converter that decodes whole ranges with a bulk big-endian view instead of assembling every sample from four
+ * bytes. The JVM performs such copies as wide moves with byte swapping.
+ */
+public class BulkIEEEConverter extends IEEEConverter {
+    @Override
+    public void convert(byte[] source, int offset, float[] destination, int count) {
+        ByteBuffer.wrap(source, offset, count * FLOAT_SIZE).asFloatBuffer().get(destination, 0, count);
+    }
+}
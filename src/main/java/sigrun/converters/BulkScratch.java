@@ -0,0 +1,46 @@
+package sigrun.converters;
+
+/**
+ * Per-thread scratch arrays of the bulk converters.
+ * <p/>
+ * A bulk converter byte-swaps a chunk of samples into a primitive array of their own width with a big-endian view of
+ * the source, then converts that array into floats. Converters are shared between threads, so the arrays can not be
+ * fields of the converters.
+ */
+final class BulkScratch {
+    /* Samples swapped per bulk copy */
+    static final int CHUNK = 4096;
+
+    private static final ThreadLocal<int[]> INTS = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[CHUNK];
+        }
+    };
+    private static final ThreadLocal<short[]> SHORTS = new ThreadLocal<short[]>() {
+        @Override
+        protected short[] initialValue() {
+            return new short[CHUNK];
+        }
+    };
+
+    private BulkScratch() {
+    }
+
+    static int[] ints() {
+        return INTS.get();
+    }
+
+    static short[] shorts() {
+        return SHORTS.get();
+    }
+
+    /**
+     * Checks the destination range up front, so that a bad range fails before anything is written.
+     */
+    static void checkRange(float[] destination, int destinationOffset, int count) {
+        if (destinationOffset < 0 || count < 0 || destinationOffset + count > destination.length) {
+            throw new IndexOutOfBoundsException("Range of " + count + " values does not fit the destination");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Two's complement 4 byte converter that byte-swaps chunks of samples with a bulk big-endian view before widening
+ * them to floats.
+ */
+public class BulkTwosComplementIntConverter extends TwosComplementIntConverter {
+    @Override
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        BulkScratch.checkRange(destination, destinationOffset, count);
+
+        final IntBuffer words = ByteBuffer.wrap(source, sourceOffset, count * INT_SIZE).asIntBuffer();
+        final int[] scratch = BulkScratch.ints();
+
+        for (int done = 0; done < count; done += BulkScratch.CHUNK) {
+            final int chunk = Math.min(BulkScratch.CHUNK, count - done);
+            words.get(scratch, 0, chunk);
+
+            for (int i = 0, j = destinationOffset + done; i < chunk; i++, j++) {
+                destination[j] = scratch[i];
+            }
+        }
+    }
+}
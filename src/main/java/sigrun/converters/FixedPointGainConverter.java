@@ -0,0 +1,34 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts 4 byte fixed-point samples with gain.
+ * <p/>
+ * The first byte of a sample is zero, the second one holds the gain exponent <code>G</code> and the last two hold a
+ * two's complement mantissa <code>M</code>. The value is <code>M * 2^-G</code>.
+ */
+public class FixedPointGainConverter extends AbstractSampleConverter {
+    public FixedPointGainConverter() {
+        super(INT_SIZE);
+    }
+
+    private static float value(int gain, int mantissa) {
+        return Math.scalb((float) mantissa, -gain);
+    }
+
+    @Override
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, sourceOffset += INT_SIZE) {
+            final int mantissa = (short) (source[sourceOffset + 2] << 8 | (source[sourceOffset + 3] & 0xFF));
+            destination[i] = value(source[sourceOffset + 1] & 0xFF, mantissa);
+        }
+    }
+
+    @Override
+    protected void convert(ByteBuffer source, int position, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, position += INT_SIZE) {
+            destination[i] = value(source.get(position + 1) & 0xFF, source.getShort(position + 2));
+        }
+    }
+}
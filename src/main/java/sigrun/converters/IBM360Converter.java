@@ -1,6 +1,8 @@
 package sigrun.converters;
 
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
 
 /**
  * Class that converts IBM360 single precision floating point to IEEE 754 floating point.
@@ -10,33 +12,23 @@ public class IBM360Converter implements SeismicValuesConverter {
     public static final int IBM_EXPO_MASK = 0x7F000000;
     public static final int IBM_FRAC_MASK = 0x00FFFFFF;
 
+    /**
+     * Converts bits of an IBM float to bits of an IEEE float.
+     * <p/>
+     * The fraction is normalized in a single step by its number of leading zeros, so the cost does not depend on the
+     * value. Denormals, underflow and overflow follow the classic loop-based algorithm bit for bit.
+     */
     public static int convert(int bits) {
-        int to;
-
-        int sign;
-        int exp;
-        int fraction;
-
-        final long ibmValue = bits & 0xffffffffl;
-
-        sign = (int) ((ibmValue & IBM_SIGN_MASK) >>> 31);
-        exp = (int) ((ibmValue & IBM_EXPO_MASK) >>> 24);
-        fraction = (int) ((ibmValue & IBM_FRAC_MASK) << 8);
+        int fraction = (bits & IBM_FRAC_MASK) << 8;
+        final int sign = bits & IBM_SIGN_MASK;
 
         if (fraction == 0) { /* short-circuit for zero */
-            exp = 0;
-            to = (fraction >>> 9) | (exp << 23) | (sign << 31);
-
-            return to;
+            return sign;
         }
 
-        exp = (exp << 2) - 130;
-
-        while (fraction > 0)
-        {
-            --exp;
-            fraction <<= 1;
-        }
+        final int shift = Integer.numberOfLeadingZeros(fraction);
+        int exp = ((bits & IBM_EXPO_MASK) >>> 22) - 130 - shift;
+        fraction <<= shift;
 
         if (exp <= 0) {
             if (exp < -24) /* complete underflow - return properly signed zero */
@@ -51,9 +43,7 @@ public class IBM360Converter implements SeismicValuesConverter {
             fraction <<= 1;
         }
 
-        to = (fraction >>> 9) | (exp << 23) | (sign << 31);
-        return to;
-
+        return (fraction >>> 9) | (exp << 23) | sign;
     }
 
     @Override
@@ -67,12 +57,80 @@ public class IBM360Converter implements SeismicValuesConverter {
         }
 
         float[] result = new float[bytes.length / FLOAT_SIZE];
+        convert(bytes, 0, result, result.length);
 
-        ByteBuffer bits = ByteBuffer.wrap(bytes);
-        for (int i = 0; i < result.length; i++) {
-            result[i] = Float.intBitsToFloat(convert(bits.getInt()));
+        return result;
+    }
+
+    @Override
+    public void convert(byte[] source, int offset, float[] destination, int count) {
+        convert(source, offset, destination, 0, count);
+    }
+
+    /**
+     * Converts a range of big-endian IBM floats.
+     *
+     * @param source            raw bytes
+     * @param sourceOffset      offset of the first value in bytes
+     * @param destination       array for converted values
+     * @param destinationOffset index of the first converted value in the destination
+     * @param count             number of values
+     */
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        if (sourceOffset < 0 || destinationOffset < 0 || count < 0 || sourceOffset + count * INT_SIZE > source.length
+                || destinationOffset + count > destination.length) {
+            throw new IndexOutOfBoundsException("Range of " + count + " values does not fit the arrays");
         }
 
-        return result;
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, sourceOffset += INT_SIZE) {
+            final int bits = source[sourceOffset] << 24 | (source[sourceOffset + 1] & 0xFF) << 16
+                    | (source[sourceOffset + 2] & 0xFF) << 8 | (source[sourceOffset + 3] & 0xFF);
+            destination[i] = Float.intBitsToFloat(convert(bits));
+        }
+    }
+
+    /**
+     * Converts IBM floats from the current position of the source, advancing it by four bytes per value. Values are
+     * read in the byte order of the buffer, which is big-endian unless changed.
+     *
+     * @param source            buffer positioned at the first value
+     * @param destination       array for converted values
+     * @param destinationOffset index of the first converted value in the destination
+     * @param count             number of values
+     */
+    public void convert(ByteBuffer source, float[] destination, int destinationOffset, int count) {
+        if (source.remaining() < count * INT_SIZE) {
+            throw new BufferUnderflowException();
+        }
+
+        int position = source.position();
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, position += INT_SIZE) {
+            destination[i] = Float.intBitsToFloat(convert(source.getInt(position)));
+        }
+
+        source.position(position);
+    }
+
+    /**
+     * Converts as many IBM floats as fit both buffers, advancing both of them.
+     *
+     * @return number of converted values
+     */
+    public int convert(ByteBuffer source, FloatBuffer destination) {
+        final int count = Math.min(source.remaining() / INT_SIZE, destination.remaining());
+
+        if (destination.hasArray()) {
+            final int offset = destination.arrayOffset() + destination.position();
+            convert(source, destination.array(), offset, count);
+            destination.position(destination.position() + count);
+        } else {
+            int position = source.position();
+            for (int i = 0; i < count; i++, position += INT_SIZE) {
+                destination.put(Float.intBitsToFloat(convert(source.getInt(position))));
+            }
+            source.position(position);
+        }
+
+        return count;
     }
 }
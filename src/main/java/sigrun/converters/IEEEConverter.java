@@ -1,8 +1,5 @@
 package sigrun.converters;
 
-import java.nio.ByteBuffer;
-import java.nio.FloatBuffer;
-
 /**
  * Created by maksenov on 17/01/15.
  */
@@ -18,13 +15,17 @@ public class IEEEConverter implements SeismicValuesConverter {
         }
 
         float[] result = new float[bytes.length / FLOAT_SIZE];
+        convert(bytes, 0, result, result.length);
 
-        FloatBuffer floatBuffer = ByteBuffer.wrap(bytes).asFloatBuffer();
+        return result;
+    }
 
-        for (int i = 0; i < result.length; i++) {
-            result[i] = floatBuffer.get();
+    @Override
+    public void convert(byte[] source, int offset, float[] destination, int count) {
+        for (int i = 0; i < count; i++, offset += FLOAT_SIZE) {
+            final int bits = source[offset] << 24 | (source[offset + 1] & 0xFF) << 16
+                    | (source[offset + 2] & 0xFF) << 8 | (source[offset + 3] & 0xFF);
+            destination[i] = Float.intBitsToFloat(bits);
         }
-
-        return result;
     }
 }
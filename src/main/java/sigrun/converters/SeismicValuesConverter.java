@@ -11,4 +11,14 @@ public interface SeismicValuesConverter {
 
 
     float[] convert(byte[] bytes);
+
+    /**
+     * Converts samples into an existing array without allocating.
+     *
+     * @param source      source array of bytes
+     * @param offset      offset of the first sample in the source array
+     * @param destination array to store converted values to
+     * @param count       number of samples to convert
+     */
+    void convert(byte[] source, int offset, float[] destination, int count);
 }
@@ -0,0 +1,26 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts 1 byte two's complement integer samples.
+ */
+public class TwosComplementByteConverter extends AbstractSampleConverter {
+    public TwosComplementByteConverter() {
+        super(1);
+    }
+
+    @Override
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, sourceOffset++) {
+            destination[i] = source[sourceOffset];
+        }
+    }
+
+    @Override
+    protected void convert(ByteBuffer source, int position, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, position++) {
+            destination[i] = source.get(position);
+        }
+    }
+}
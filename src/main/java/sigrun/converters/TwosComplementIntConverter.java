@@ -0,0 +1,27 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts 4 byte two's complement integer samples.
+ */
+public class TwosComplementIntConverter extends AbstractSampleConverter {
+    public TwosComplementIntConverter() {
+        super(INT_SIZE);
+    }
+
+    @Override
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, sourceOffset += INT_SIZE) {
+            destination[i] = source[sourceOffset] << 24 | (source[sourceOffset + 1] & 0xFF) << 16
+                    | (source[sourceOffset + 2] & 0xFF) << 8 | (source[sourceOffset + 3] & 0xFF);
+        }
+    }
+
+    @Override
+    protected void convert(ByteBuffer source, int position, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, position += INT_SIZE) {
+            destination[i] = source.getInt(position);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Converts 2 byte two's complement integer samples.
+ */
+public class TwosComplementShortConverter extends AbstractSampleConverter {
+    public TwosComplementShortConverter() {
+        super(SHORT_SIZE);
+    }
+
+    @Override
+    public void convert(byte[] source, int sourceOffset, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, sourceOffset += SHORT_SIZE) {
+            destination[i] = (short) (source[sourceOffset] << 8 | (source[sourceOffset + 1] & 0xFF));
+        }
+    }
+
+    @Override
+    protected void convert(ByteBuffer source, int position, float[] destination, int destinationOffset, int count) {
+        for (int i = destinationOffset, end = destinationOffset + count; i < end; i++, position += SHORT_SIZE) {
+            destination[i] = source.getShort(position);
+        }
+    }
+}
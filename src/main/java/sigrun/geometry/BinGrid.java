@@ -0,0 +1,210 @@
+package sigrun.geometry;
+
+/**
+ * Affine transform between inline/crossline numbers and coordinates of a regular survey, as fitted by
+ * <code>BinGridFitter</code>:
+ * <pre>
+ * x = x0 + inline * xPerInline + crossline * xPerCrossline
+ * y = y0 + inline * yPerInline + crossline * yPerCrossline
+ * </pre>
+ * Conversions allocate nothing; the ones returning two values fill an array of the caller. The grid is immutable and
+ * may be shared between threads.
+ */
+public class BinGrid {
+    private final double x0;
+    private final double y0;
+    private final double xPerInline;
+    private final double xPerCrossline;
+    private final double yPerInline;
+    private final double yPerCrossline;
+    /* Rows of the inverse of the 2x2 part of the transform */
+    private final double inlinePerX;
+    private final double inlinePerY;
+    private final double crosslinePerX;
+    private final double crosslinePerY;
+
+    private final int inlineOrigin;
+    private final int inlineIncrement;
+    private final int crosslineOrigin;
+    private final int crosslineIncrement;
+
+    private final double tolerance;
+    private final int sampleCount;
+    private final double rmsResidual;
+    private final double maxResidual;
+    private final long[] deviations;
+
+    BinGrid(double[] x, double[] y, int inlineOrigin, int inlineIncrement, int crosslineOrigin,
+            int crosslineIncrement, double tolerance, int sampleCount, double rmsResidual, double maxResidual,
+            long[] deviations) {
+        this.x0 = x[0];
+        this.xPerInline = x[1];
+        this.xPerCrossline = x[2];
+        this.y0 = y[0];
+        this.yPerInline = y[1];
+        this.yPerCrossline = y[2];
+
+        /* Checked by the fitter to be far from zero */
+        final double determinant = xPerInline * yPerCrossline - xPerCrossline * yPerInline;
+        this.inlinePerX = yPerCrossline / determinant;
+        this.inlinePerY = -xPerCrossline / determinant;
+        this.crosslinePerX = -yPerInline / determinant;
+        this.crosslinePerY = xPerInline / determinant;
+
+        this.inlineOrigin = inlineOrigin;
+        this.inlineIncrement = inlineIncrement;
+        this.crosslineOrigin = crosslineOrigin;
+        this.crosslineIncrement = crosslineIncrement;
+        this.tolerance = tolerance;
+        this.sampleCount = sampleCount;
+        this.rmsResidual = rmsResidual;
+        this.maxResidual = maxResidual;
+        this.deviations = deviations;
+    }
+
+    public double toX(double inline, double crossline) {
+        return x0 + inline * xPerInline + crossline * xPerCrossline;
+    }
+
+    public double toY(double inline, double crossline) {
+        return y0 + inline * yPerInline + crossline * yPerCrossline;
+    }
+
+    /**
+     * Stores coordinates of a bin centre in the first two elements of <code>xy</code>.
+     */
+    public void toXY(double inline, double crossline, double[] xy) {
+        xy[0] = toX(inline, crossline);
+        xy[1] = toY(inline, crossline);
+    }
+
+    /**
+     * Stores fractional inline and crossline numbers of a point in the first two elements of <code>bin</code>.
+     */
+    public void toBin(double x, double y, double[] bin) {
+        bin[0] = inlineAt(x, y);
+        bin[1] = crosslineAt(x, y);
+    }
+
+    public double inlineAt(double x, double y) {
+        return (x - x0) * inlinePerX + (y - y0) * inlinePerY;
+    }
+
+    public double crosslineAt(double x, double y) {
+        return (x - x0) * crosslinePerX + (y - y0) * crosslinePerY;
+    }
+
+    /**
+     * Returns the inline of the bin holding a point, i.e. the nearest inline number on the increment of the survey.
+     */
+    public int toInline(double x, double y) {
+        return snap(inlineAt(x, y), inlineOrigin, inlineIncrement);
+    }
+
+    /**
+     * Returns the crossline of the bin holding a point, i.e. the nearest crossline number on the increment of the
+     * survey.
+     */
+    public int toCrossline(double x, double y) {
+        return snap(crosslineAt(x, y), crosslineOrigin, crosslineIncrement);
+    }
+
+    private static int snap(double value, int origin, int increment) {
+        final double snapped = origin + Math.floor((value - origin) / increment + 0.5) * increment;
+
+        return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, snapped));
+    }
+
+    /**
+     * Returns the distance between a point and the centre of the bin it is reported at.
+     */
+    public double residual(int inline, int crossline, double x, double y) {
+        final double dx = x - toX(inline, crossline);
+        final double dy = y - toY(inline, crossline);
+
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Checks whether a trace lies farther than the tolerance from the centre of its bin.
+     */
+    public boolean deviates(int inline, int crossline, double x, double y) {
+        return residual(inline, crossline, x, y) > tolerance;
+    }
+
+    /**
+     * Returns the distance between neighbouring inlines.
+     */
+    public double getInlineSpacing() {
+        return Math.hypot(xPerInline, yPerInline) * inlineIncrement;
+    }
+
+    /**
+     * Returns the distance between neighbouring crosslines.
+     */
+    public double getCrosslineSpacing() {
+        return Math.hypot(xPerCrossline, yPerCrossline) * crosslineIncrement;
+    }
+
+    /**
+     * Returns the azimuth of growing crosslines in degrees clockwise from the Y axis, from 0 to 360.
+     */
+    public double getCrosslineAzimuth() {
+        final double azimuth = Math.toDegrees(Math.atan2(xPerCrossline, yPerCrossline));
+
+        return azimuth < 0 ? azimuth + 360 : azimuth;
+    }
+
+    public int getInlineIncrement() {
+        return inlineIncrement;
+    }
+
+    public int getCrosslineIncrement() {
+        return crosslineIncrement;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    /**
+     * Returns the number of sampled traces the grid was fitted to, deviating ones included.
+     */
+    public int getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Returns the root mean square residual of the sampled traces that do not deviate.
+     */
+    public double getRmsResidual() {
+        return rmsResidual;
+    }
+
+    /**
+     * Returns the largest residual of all sampled traces.
+     */
+    public double getMaxResidual() {
+        return maxResidual;
+    }
+
+    /**
+     * Returns sorted indexes of sampled traces farther than the tolerance from their bins. They were left out of the
+     * final fit, unless they made up half of the sample or more, in which case every sampled trace was kept.
+     */
+    public long[] getDeviations() {
+        return deviations.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "BinGrid{" +
+                "x=" + x0 + " + " + xPerInline + "*il + " + xPerCrossline + "*xl" +
+                ", y=" + y0 + " + " + yPerInline + "*il + " + yPerCrossline + "*xl" +
+                ", samples=" + sampleCount +
+                ", rms=" + rmsResidual +
+                ", max=" + maxResidual +
+                ", deviations=" + deviations.length +
+                '}';
+    }
+}
@@ -0,0 +1,412 @@
+package sigrun.geometry;
+
+import sigrun.common.ParallelHeaderScanner;
+import sigrun.common.RawHeaderReducer;
+import sigrun.common.SEGYStream;
+import sigrun.common.SEGYStreamException;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.util.Arrays;
+
+/**
+ * Fits a <code>BinGrid</code> to inline/crossline numbers and coordinates of a sample of trace headers.
+ * <p/>
+ * A fixed-length file is sampled in clusters of consecutive traces spread evenly over the file, other files are
+ * sampled from their leading traces. Both coordinates are fitted by least squares. Gross outliers are trimmed against
+ * the median residual, and traces farther than the tolerance from their bins are flagged and left out of the final
+ * fit, so a few broken headers do not bend the grid. When half of the sample or more deviates, the final fit keeps
+ * every trace. The default tolerance is a tenth of the smaller bin dimension.
+ */
+public class BinGridFitter {
+    public static final int DEFAULT_CLUSTERS = 64;
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    public static final double DEFAULT_TOLERANCE = 0.1;
+    private static final int MAX_TRIM_ROUNDS = 8;
+    private static final double TRIM_FACTOR = 3;
+
+    private final FormatEntry inlineKey;
+    private final FormatEntry crosslineKey;
+    private final FormatEntry xKey;
+    private final FormatEntry yKey;
+    private final FormatEntry scalarKey;
+    private int clusters = DEFAULT_CLUSTERS;
+    private int clusterSize = DEFAULT_CLUSTER_SIZE;
+
+    /**
+     * Creates a fitter reading CDP coordinates.
+     */
+    public BinGridFitter(FormatEntry inlineKey, FormatEntry crosslineKey) {
+        this(inlineKey, crosslineKey, SpatialIndex.CDP_X, SpatialIndex.CDP_Y, SpatialIndex.COORDINATE_SCALAR);
+    }
+
+    public BinGridFitter(FormatEntry inlineKey, FormatEntry crosslineKey, FormatEntry xKey, FormatEntry yKey,
+                         FormatEntry scalarKey) {
+        for (FormatEntry key : new FormatEntry[]{inlineKey, crosslineKey, xKey, yKey, scalarKey}) {
+            if (key.posStart < 0 || key.posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (key.length() != 1 && key.length() != 2 && key.length() != 4)) {
+                throw new IllegalArgumentException("Key " + key + " is not an integer field of the trace header");
+            }
+        }
+
+        this.inlineKey = inlineKey;
+        this.crosslineKey = crosslineKey;
+        this.xKey = xKey;
+        this.yKey = yKey;
+        this.scalarKey = scalarKey;
+    }
+
+    /**
+     * Sets how many places of a fixed-length file are sampled and how many consecutive traces are read at every
+     * place. Other files are sampled from <code>clusters * clusterSize</code> leading traces.
+     *
+     * @return this fitter
+     */
+    public BinGridFitter withSample(int clusters, int clusterSize) {
+        if (clusters <= 0 || clusterSize <= 0) {
+            throw new IllegalArgumentException("Sample needs at least one trace");
+        }
+
+        this.clusters = clusters;
+        this.clusterSize = clusterSize;
+
+        return this;
+    }
+
+    /**
+     * Fits the grid with the default tolerance.
+     *
+     * @param stream  opened SEG-Y stream
+     * @param samples number of samples in the first trace
+     */
+    public BinGrid fit(SEGYStream stream, long samples) {
+        return fit(stream, samples, -1);
+    }
+
+    /**
+     * Fits the grid flagging traces farther than <code>tolerance</code> from their bins, in units of coordinates.
+     * A negative tolerance selects the default one.
+     */
+    public BinGrid fit(SEGYStream stream, long samples, double tolerance) {
+        return fit(stream.isIdeaFile(samples) ? sampleSpread(stream, samples) : sampleLeading(stream), tolerance);
+    }
+
+    /**
+     * Checks every trace of the file against the grid in a single sequential pass.
+     *
+     * @return sorted indexes of traces farther than the tolerance from their bins
+     */
+    public long[] findDeviations(SEGYStream stream, BinGrid grid) {
+        return stream.scanRawHeaders(checker(grid)).toArray();
+    }
+
+    /**
+     * Checks every trace of a fixed-length file against the grid on the threads of the scanner.
+     */
+    public long[] findDeviations(ParallelHeaderScanner scanner, BinGrid grid) {
+        return scanner.scanRaw(checker(grid)).toArray();
+    }
+
+    private RawHeaderReducer<Traces> checker(final BinGrid grid) {
+        return new RawHeaderReducer<Traces>() {
+            @Override
+            public Traces createPartial() {
+                return new Traces(0);
+            }
+
+            @Override
+            public Traces accumulate(Traces partial, long index, long position, byte[] header) {
+                final double scale = SpatialIndex.scale(scalarKey.readInt(header, 0));
+                if (grid.deviates(inlineKey.readInt(header, 0), crosslineKey.readInt(header, 0),
+                        xKey.readInt(header, 0) * scale, yKey.readInt(header, 0) * scale)) {
+                    partial.add(index, header, 0);
+                }
+                return partial;
+            }
+
+            @Override
+            public Traces merge(Traces left, Traces right) {
+                return left.append(right);
+            }
+        };
+    }
+
+    private Traces sampleSpread(SEGYStream stream, long samples) {
+        final long count = stream.getNumberOfTrace(samples);
+        final int size = (int) Math.min(clusterSize, count);
+        final int places = size == 0 ? 0 : (int) Math.min(clusters, count / size);
+        final Traces sample = new Traces(places * size);
+        final byte[] cluster = new byte[size * TraceHeader.TRACE_HEADER_LENGTH];
+
+        for (int k = 0; k < places; k++) {
+            final long first = places == 1 ? 0 : (count - size) * k / (places - 1);
+            stream.readRawTraceHeaders(first, size, samples, cluster);
+
+            for (int i = 0; i < size; i++) {
+                sample.add(first + i, cluster, i * TraceHeader.TRACE_HEADER_LENGTH);
+            }
+        }
+
+        return sample;
+    }
+
+    private Traces sampleLeading(SEGYStream stream) {
+        final int limit = clusters * clusterSize;
+
+        return stream.scanRawHeaders(new RawHeaderReducer<Traces>() {
+            @Override
+            public Traces createPartial() {
+                return new Traces(limit);
+            }
+
+            @Override
+            public Traces accumulate(Traces partial, long index, long position, byte[] header) {
+                partial.add(index, header, 0);
+                return partial;
+            }
+
+            @Override
+            public Traces merge(Traces left, Traces right) {
+                return left.append(right);
+            }
+        }, limit);
+    }
+
+    private static BinGrid fit(Traces sample, double tolerance) {
+        final boolean[] excluded = new boolean[sample.count];
+        final int inlineIncrement = increment(sample.inlines, sample.count);
+        final int crosslineIncrement = increment(sample.crosslines, sample.count);
+
+        double[] x = solve(sample, sample.xs, excluded);
+        double[] y = solve(sample, sample.ys, excluded);
+
+        if (tolerance < 0) {
+            final double inlineSpacing = Math.hypot(x[1], y[1]) * inlineIncrement;
+            final double crosslineSpacing = Math.hypot(x[2], y[2]) * crosslineIncrement;
+            tolerance = DEFAULT_TOLERANCE * Math.min(inlineSpacing, crosslineSpacing);
+        }
+
+        /*
+         * A gross outlier shifts the whole first fit, so the tolerance alone could flag every trace. Trim traces far
+         * above the typical residual until the fit settles, then refit without all traces beyond the tolerance,
+         * unless half of them are.
+         */
+        for (int round = 0; round < MAX_TRIM_ROUNDS; round++) {
+            final double cut = Math.max(tolerance, TRIM_FACTOR * medianResidual(sample, x, y, excluded));
+            boolean changed = false;
+            for (int i = 0; i < sample.count; i++) {
+                final boolean far = residual(sample, i, x, y) > cut;
+                changed |= far != excluded[i];
+                excluded[i] = far;
+            }
+            if (!changed) {
+                break;
+            }
+            x = solve(sample, sample.xs, excluded);
+            y = solve(sample, sample.ys, excluded);
+        }
+
+        int deviating = 0;
+        for (int i = 0; i < sample.count; i++) {
+            excluded[i] = residual(sample, i, x, y) > tolerance;
+            deviating += excluded[i] ? 1 : 0;
+        }
+        if (deviating > 0 && deviating * 2 < sample.count) {
+            x = solve(sample, sample.xs, excluded);
+            y = solve(sample, sample.ys, excluded);
+        }
+
+        /* Inlines and crosslines must run in different directions, or points can not be converted to bins */
+        final double determinant = x[1] * y[2] - x[2] * y[1];
+        if (!(Math.abs(determinant) > 1e-12 * Math.hypot(x[1], y[1]) * Math.hypot(x[2], y[2]))) {
+            throw new SEGYStreamException("Unable to fit bin grid: coordinates do not move independently along "
+                    + "inlines and crosslines");
+        }
+
+        long[] deviations = new long[sample.count];
+        deviating = 0;
+        int fitted = 0;
+        double squares = 0;
+        double max = 0;
+        for (int i = 0; i < sample.count; i++) {
+            final double residual = residual(sample, i, x, y);
+            max = Math.max(max, residual);
+            if (residual > tolerance) {
+                deviations[deviating++] = sample.traces[i];
+            } else {
+                squares += residual * residual;
+                fitted++;
+            }
+        }
+        deviations = Arrays.copyOf(deviations, deviating);
+        Arrays.sort(deviations);
+
+        return new BinGrid(x, y, min(sample.inlines, sample.count), inlineIncrement,
+                min(sample.crosslines, sample.count), crosslineIncrement, tolerance, sample.count,
+                fitted == 0 ? 0 : Math.sqrt(squares / fitted), max, deviations);
+    }
+
+    /**
+     * Solves <code>value = c0 + c1 * inline + c2 * crossline</code> by least squares over traces that are not
+     * excluded. Numbers are centred on their means first, which keeps the normal equations well conditioned for
+     * large inline numbers and coordinates.
+     */
+    private static double[] solve(Traces sample, double[] values, boolean[] excluded) {
+        int n = 0;
+        double meanInline = 0;
+        double meanCrossline = 0;
+        double meanValue = 0;
+        for (int i = 0; i < sample.count; i++) {
+            if (!excluded[i]) {
+                n++;
+                meanInline += sample.inlines[i];
+                meanCrossline += sample.crosslines[i];
+                meanValue += values[i];
+            }
+        }
+        if (n == 0) {
+            throw new SEGYStreamException("Unable to fit bin grid to an empty sample");
+        }
+        meanInline /= n;
+        meanCrossline /= n;
+        meanValue /= n;
+
+        double ii = 0;
+        double cc = 0;
+        double ic = 0;
+        double iv = 0;
+        double cv = 0;
+        for (int i = 0; i < sample.count; i++) {
+            if (!excluded[i]) {
+                final double di = sample.inlines[i] - meanInline;
+                final double dc = sample.crosslines[i] - meanCrossline;
+                final double dv = values[i] - meanValue;
+                ii += di * di;
+                cc += dc * dc;
+                ic += di * dc;
+                iv += di * dv;
+                cv += dc * dv;
+            }
+        }
+
+        final double determinant = ii * cc - ic * ic;
+        if (ii == 0 || cc == 0 || determinant <= 1e-12 * ii * cc) {
+            throw new SEGYStreamException("Unable to fit bin grid: sampled traces do not span several inlines and "
+                    + "crosslines");
+        }
+
+        final double perInline = (iv * cc - cv * ic) / determinant;
+        final double perCrossline = (cv * ii - iv * ic) / determinant;
+
+        return new double[]{meanValue - perInline * meanInline - perCrossline * meanCrossline, perInline,
+                perCrossline};
+    }
+
+    private static double medianResidual(Traces sample, double[] x, double[] y, boolean[] excluded) {
+        final double[] residuals = new double[sample.count];
+        int n = 0;
+        for (int i = 0; i < sample.count; i++) {
+            if (!excluded[i]) {
+                residuals[n++] = residual(sample, i, x, y);
+            }
+        }
+        Arrays.sort(residuals, 0, n);
+
+        return n == 0 ? 0 : residuals[n / 2];
+    }
+
+    private static double residual(Traces sample, int i, double[] x, double[] y) {
+        final double dx = sample.xs[i] - (x[0] + x[1] * sample.inlines[i] + x[2] * sample.crosslines[i]);
+        final double dy = sample.ys[i] - (y[0] + y[1] * sample.inlines[i] + y[2] * sample.crosslines[i]);
+
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Returns the greatest common divisor of differences between numbers, or 1 if they are all equal.
+     */
+    private static int increment(int[] values, int count) {
+        long result = 0;
+        for (int i = 1; i < count; i++) {
+            long a = Math.abs((long) values[i] - values[0]);
+            long b = result;
+            while (b != 0) {
+                final long t = a % b;
+                a = b;
+                b = t;
+            }
+            result = a;
+        }
+
+        return result == 0 ? 1 : (int) Math.min(Integer.MAX_VALUE, result);
+    }
+
+    private static int min(int[] values, int count) {
+        int result = count == 0 ? 0 : values[0];
+        for (int i = 1; i < count; i++) {
+            result = Math.min(result, values[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Bins and scaled coordinates of traces, in the order they were read.
+     */
+    private class Traces {
+        private long[] traces;
+        private int[] inlines;
+        private int[] crosslines;
+        private double[] xs;
+        private double[] ys;
+        private int count;
+
+        private Traces(int capacity) {
+            this.traces = new long[capacity];
+            this.inlines = new int[capacity];
+            this.crosslines = new int[capacity];
+            this.xs = new double[capacity];
+            this.ys = new double[capacity];
+        }
+
+        private void add(long trace, byte[] header, int offset) {
+            reserve(count + 1);
+
+            final double scale = SpatialIndex.scale(scalarKey.readInt(header, offset));
+            traces[count] = trace;
+            inlines[count] = inlineKey.readInt(header, offset);
+            crosslines[count] = crosslineKey.readInt(header, offset);
+            xs[count] = xKey.readInt(header, offset) * scale;
+            ys[count] = yKey.readInt(header, offset) * scale;
+            count++;
+        }
+
+        private Traces append(Traces next) {
+            reserve(count + next.count);
+
+            System.arraycopy(next.traces, 0, traces, count, next.count);
+            System.arraycopy(next.inlines, 0, inlines, count, next.count);
+            System.arraycopy(next.crosslines, 0, crosslines, count, next.count);
+            System.arraycopy(next.xs, 0, xs, count, next.count);
+            System.arraycopy(next.ys, 0, ys, count, next.count);
+            count += next.count;
+
+            return this;
+        }
+
+        private void reserve(int size) {
+            if (size > traces.length) {
+                final int capacity = Math.max(size, Math.max(16, traces.length * 2));
+                traces = Arrays.copyOf(traces, capacity);
+                inlines = Arrays.copyOf(inlines, capacity);
+                crosslines = Arrays.copyOf(crosslines, capacity);
+                xs = Arrays.copyOf(xs, capacity);
+                ys = Arrays.copyOf(ys, capacity);
+            }
+        }
+
+        private long[] toArray() {
+            return Arrays.copyOf(traces, count);
+        }
+    }
+}
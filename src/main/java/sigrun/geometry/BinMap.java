@@ -0,0 +1,301 @@
+package sigrun.geometry;
+
+import sigrun.common.ParallelHeaderScanner;
+import sigrun.common.RawHeaderReducer;
+import sigrun.common.SEGYStream;
+import sigrun.common.SEGYStreamException;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Finds the trace at an (inline, crossline) bin of a survey.
+ * <p/>
+ * Every inline is stored as runs of crosslines with a constant step whose traces lie at a constant stride in the
+ * file, sorted by crossline. Consecutive inlines with runs of the same shape, shifted by the same number of traces,
+ * share one group, so a regular survey is a single group of a single run no matter how many traces it holds. Gaps
+ * and irregular edges only add runs to the inlines where they occur. A lookup is a binary search over groups followed
+ * by a binary search over the runs of the group.
+ * <p/>
+ * The map is immutable and may be shared between threads.
+ */
+public class BinMap {
+    private static final int MAGIC = 0x5347424D; /* SGBM */
+    private static final int VERSION = 1;
+    public static final String EXTENSION = ".bins";
+
+    private final int[] groupFirstInline;
+    private final int[] groupInlineStep;
+    private final int[] groupInlineCount;
+    private final long[] groupTraceStride;
+    /* Index of the first run of every group followed by the number of runs */
+    private final int[] groupRunStart;
+
+    private final int[] runFirstCrossline;
+    private final int[] runStep;
+    private final int[] runCount;
+    private final long[] runFirstTrace;
+    private final long[] runStride;
+
+    BinMap(int groups, int runs) {
+        this.groupFirstInline = new int[groups];
+        this.groupInlineStep = new int[groups];
+        this.groupInlineCount = new int[groups];
+        this.groupTraceStride = new long[groups];
+        this.groupRunStart = new int[groups + 1];
+        this.runFirstCrossline = new int[runs];
+        this.runStep = new int[runs];
+        this.runCount = new int[runs];
+        this.runFirstTrace = new long[runs];
+        this.runStride = new long[runs];
+    }
+
+    void setGroup(int group, int firstInline, int inlineStep, int inlineCount, long traceStride, int runStart) {
+        groupFirstInline[group] = firstInline;
+        groupInlineStep[group] = inlineStep;
+        groupInlineCount[group] = inlineCount;
+        groupTraceStride[group] = traceStride;
+        groupRunStart[group] = runStart;
+    }
+
+    void setGroupEnd(int groups, int runs) {
+        groupRunStart[groups] = runs;
+    }
+
+    void setRun(int run, int firstCrossline, int step, int count, long firstTrace, long stride) {
+        runFirstCrossline[run] = firstCrossline;
+        runStep[run] = step;
+        runCount[run] = count;
+        runFirstTrace[run] = firstTrace;
+        runStride[run] = stride;
+    }
+
+    /**
+     * Builds the map of a file in a single sequential pass. Traces may vary in length.
+     */
+    public static BinMap build(SEGYStream stream, FormatEntry inlineKey, FormatEntry crosslineKey) {
+        return stream.scanRawHeaders(reducer(inlineKey, crosslineKey)).build();
+    }
+
+    /**
+     * Builds the map of a fixed-length file on the threads of the scanner.
+     */
+    public static BinMap build(ParallelHeaderScanner scanner, FormatEntry inlineKey, FormatEntry crosslineKey) {
+        return scanner.scanRaw(reducer(inlineKey, crosslineKey)).build();
+    }
+
+    private static RawHeaderReducer<BinMapBuilder> reducer(final FormatEntry inlineKey,
+                                                           final FormatEntry crosslineKey) {
+        for (FormatEntry key : new FormatEntry[]{inlineKey, crosslineKey}) {
+            if (key.posStart < 0 || key.posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (key.length() != 1 && key.length() != 2 && key.length() != 4)) {
+                throw new IllegalArgumentException("Key " + key + " is not an integer field of the trace header");
+            }
+        }
+
+        return new RawHeaderReducer<BinMapBuilder>() {
+            @Override
+            public BinMapBuilder createPartial() {
+                return new BinMapBuilder();
+            }
+
+            @Override
+            public BinMapBuilder accumulate(BinMapBuilder partial, long index, long position, byte[] header) {
+                return partial.add(index, inlineKey.readInt(header, 0), crosslineKey.readInt(header, 0));
+            }
+
+            @Override
+            public BinMapBuilder merge(BinMapBuilder left, BinMapBuilder right) {
+                return left.merge(right);
+            }
+        };
+    }
+
+    /**
+     * Returns the index of the trace at a bin.
+     *
+     * @return trace index or -1 if the survey has no trace there
+     */
+    public long getTrace(int inline, int crossline) {
+        final int group = floor(groupFirstInline, 0, groupFirstInline.length, inline);
+        if (group < 0) {
+            return -1;
+        }
+
+        final long inlineOffset = (long) inline - groupFirstInline[group];
+        long inlineIndex = 0;
+        if (inlineOffset != 0) {
+            final int step = groupInlineStep[group];
+            if (step == 0 || inlineOffset % step != 0 || inlineOffset / step >= groupInlineCount[group]) {
+                return -1;
+            }
+            inlineIndex = inlineOffset / step;
+        }
+
+        final int run = floor(runFirstCrossline, groupRunStart[group], groupRunStart[group + 1], crossline);
+        if (run < 0) {
+            return -1;
+        }
+
+        final long crosslineOffset = (long) crossline - runFirstCrossline[run];
+        long crosslineIndex = 0;
+        if (crosslineOffset != 0) {
+            final int step = runStep[run];
+            if (step == 0 || crosslineOffset % step != 0 || crosslineOffset / step >= runCount[run]) {
+                return -1;
+            }
+            crosslineIndex = crosslineOffset / step;
+        }
+
+        return runFirstTrace[run] + inlineIndex * groupTraceStride[group] + crosslineIndex * runStride[run];
+    }
+
+    /**
+     * Finds the last element of a sorted range that is not greater than the key.
+     *
+     * @return its index or -1 if every element is greater
+     */
+    private static int floor(int[] values, int from, int to, int key) {
+        final int found = Arrays.binarySearch(values, from, to, key);
+
+        return found >= 0 ? found : (-found - 2 >= from ? -found - 2 : -1);
+    }
+
+    /**
+     * Checks whether the survey has a trace at the bin.
+     */
+    public boolean contains(int inline, int crossline) {
+        return getTrace(inline, crossline) >= 0;
+    }
+
+    /**
+     * Returns the number of mapped traces.
+     */
+    public long getTraceCount() {
+        long count = 0;
+        for (int g = 0; g < groupFirstInline.length; g++) {
+            long perInline = 0;
+            for (int r = groupRunStart[g]; r < groupRunStart[g + 1]; r++) {
+                perInline += runCount[r];
+            }
+            count += perInline * groupInlineCount[g];
+        }
+
+        return count;
+    }
+
+    /**
+     * Returns sorted inline numbers that hold at least one trace.
+     */
+    public int[] getInlines() {
+        long count = 0;
+        for (int inlines : groupInlineCount) {
+            count += inlines;
+        }
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Survey of " + count + " inlines is too large");
+        }
+
+        final int[] result = new int[(int) count];
+        int i = 0;
+        for (int g = 0; g < groupFirstInline.length; g++) {
+            for (int k = 0; k < groupInlineCount[g]; k++) {
+                result[i++] = groupFirstInline[g] + k * groupInlineStep[g];
+            }
+        }
+
+        return result;
+    }
+
+    public int getGroupCount() {
+        return groupFirstInline.length;
+    }
+
+    public int getRunCount() {
+        return runFirstCrossline.length;
+    }
+
+    public static File sidecarFor(File source) {
+        return new File(source.getPath() + EXTENSION);
+    }
+
+    /**
+     * Writes the map to a file. A regular survey takes less than a hundred bytes.
+     */
+    public void write(File file) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(groupFirstInline.length);
+            out.writeInt(runFirstCrossline.length);
+
+            for (int g = 0; g < groupFirstInline.length; g++) {
+                out.writeInt(groupFirstInline[g]);
+                out.writeInt(groupInlineStep[g]);
+                out.writeInt(groupInlineCount[g]);
+                out.writeLong(groupTraceStride[g]);
+                out.writeInt(groupRunStart[g + 1] - groupRunStart[g]);
+            }
+
+            for (int r = 0; r < runFirstCrossline.length; r++) {
+                out.writeInt(runFirstCrossline[r]);
+                out.writeInt(runStep[r]);
+                out.writeInt(runCount[r]);
+                out.writeLong(runFirstTrace[r]);
+                out.writeLong(runStride[r]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Reads a map written by <code>write</code>.
+     */
+    public static BinMap read(File file) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new SEGYStreamException(file + " is not a bin map of this version");
+            }
+
+            final int groups = in.readInt();
+            final int runs = in.readInt();
+            if (groups < 0 || runs < 0) {
+                throw new SEGYStreamException(file + " is corrupted");
+            }
+
+            final BinMap map = new BinMap(groups, runs);
+            int run = 0;
+            for (int g = 0; g < groups; g++) {
+                map.setGroup(g, in.readInt(), in.readInt(), in.readInt(), in.readLong(), run);
+                run += in.readInt();
+            }
+            map.setGroupEnd(groups, run);
+
+            if (run != runs) {
+                throw new SEGYStreamException(file + " is corrupted");
+            }
+
+            for (int r = 0; r < runs; r++) {
+                map.setRun(r, in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readLong());
+            }
+
+            return map;
+        } finally {
+            in.close();
+        }
+    }
+}
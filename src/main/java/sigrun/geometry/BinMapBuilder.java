@@ -0,0 +1,293 @@
+package sigrun.geometry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects traces in file order and compresses them into a <code>BinMap</code>.
+ * <p/>
+ * Traces of every inline are kept as runs of crosslines with a constant crossline step and a constant trace stride,
+ * so an inline stored in one piece is a single run whether the file is sorted by inlines or by crosslines. A builder
+ * is not thread-safe; builders of adjacent parts of a file are combined with <code>merge</code>.
+ */
+public class BinMapBuilder {
+    private final Map<Integer, List<Run>> lines = new HashMap<Integer, List<Run>>();
+    /* Runs of the inline of the previous trace, which is usually the inline of the next one */
+    private List<Run> lastRuns;
+    private int lastInline;
+
+    /**
+     * Adds a trace. Traces are added in ascending order of indexes.
+     *
+     * @return this builder
+     */
+    public BinMapBuilder add(long trace, int inline, int crossline) {
+        List<Run> runs = lastRuns;
+        if (runs == null || inline != lastInline) {
+            runs = lines.get(inline);
+            if (runs == null) {
+                runs = new ArrayList<Run>(1);
+                lines.put(inline, runs);
+            }
+
+            lastRuns = runs;
+            lastInline = inline;
+        }
+
+        if (runs.isEmpty() || !runs.get(runs.size() - 1).extend(crossline, trace)) {
+            runs.add(new Run(crossline, trace));
+        }
+
+        return this;
+    }
+
+    /**
+     * Appends the traces of a builder that covers the part of the file following this one.
+     *
+     * @return this builder
+     */
+    public BinMapBuilder merge(BinMapBuilder next) {
+        for (Map.Entry<Integer, List<Run>> entry : next.lines.entrySet()) {
+            final List<Run> runs = lines.get(entry.getKey());
+            final List<Run> nextRuns = entry.getValue();
+
+            if (runs == null) {
+                lines.put(entry.getKey(), nextRuns);
+            } else if (runs.get(runs.size() - 1).join(nextRuns.get(0))) {
+                runs.addAll(nextRuns.subList(1, nextRuns.size()));
+            } else {
+                runs.addAll(nextRuns);
+            }
+        }
+
+        lastRuns = null;
+
+        return this;
+    }
+
+    public BinMap build() {
+        final List<Integer> inlines = new ArrayList<Integer>(lines.keySet());
+        Collections.sort(inlines);
+
+        final List<Group> groups = new ArrayList<Group>();
+        Group group = null;
+
+        for (Integer inline : inlines) {
+            final List<Run> runs = normalize(lines.get(inline));
+            if (group == null || !group.extend(inline, runs)) {
+                group = new Group(inline, runs);
+                groups.add(group);
+            }
+        }
+
+        int runCount = 0;
+        for (Group g : groups) {
+            runCount += g.runs.size();
+        }
+
+        final BinMap map = new BinMap(groups.size(), runCount);
+        int run = 0;
+        for (int g = 0; g < groups.size(); g++) {
+            final Group source = groups.get(g);
+            map.setGroup(g, source.firstInline, source.inlineStep, source.inlineCount, source.traceStride, run);
+            for (Run r : source.runs) {
+                map.setRun(run++, r.firstCrossline, r.step, r.count, r.firstTrace, r.stride);
+            }
+        }
+        map.setGroupEnd(groups.size(), run);
+
+        return map;
+    }
+
+    /**
+     * Turns runs of an inline into runs of ascending crosslines that do not overlap.
+     */
+    private static List<Run> normalize(List<Run> runs) {
+        final List<Run> sorted = new ArrayList<Run>(runs.size());
+        for (Run run : runs) {
+            sorted.add(run.ascending());
+        }
+        Collections.sort(sorted, BY_CROSSLINE);
+
+        for (int i = 1; i < sorted.size(); i++) {
+            if (sorted.get(i).firstCrossline <= sorted.get(i - 1).lastCrossline()) {
+                return recompress(sorted);
+            }
+        }
+
+        return sorted;
+    }
+
+    /**
+     * Splits overlapping runs into single traces and compresses them again in crossline order. The first trace of the
+     * file is kept for a bin that holds several.
+     */
+    private static List<Run> recompress(List<Run> runs) {
+        final List<Run> traces = new ArrayList<Run>();
+        for (Run run : runs) {
+            for (int k = 0; k < run.count; k++) {
+                traces.add(new Run(run.firstCrossline + k * run.step, run.firstTrace + k * run.stride));
+            }
+        }
+        Collections.sort(traces, BY_CROSSLINE);
+
+        final List<Run> result = new ArrayList<Run>();
+        for (Run trace : traces) {
+            final Run last = result.isEmpty() ? null : result.get(result.size() - 1);
+            if (last == null || (last.lastCrossline() != trace.firstCrossline
+                    && !last.extend(trace.firstCrossline, trace.firstTrace))) {
+                result.add(trace);
+            }
+        }
+
+        return result;
+    }
+
+    private static final Comparator<Run> BY_CROSSLINE = new Comparator<Run>() {
+        @Override
+        public int compare(Run a, Run b) {
+            if (a.firstCrossline != b.firstCrossline) {
+                return a.firstCrossline < b.firstCrossline ? -1 : 1;
+            }
+
+            return a.firstTrace < b.firstTrace ? -1 : (a.firstTrace == b.firstTrace ? 0 : 1);
+        }
+    };
+
+    /**
+     * Traces <code>firstTrace + k * stride</code> at crosslines <code>firstCrossline + k * step</code> for
+     * <code>k</code> below <code>count</code>.
+     */
+    private static class Run {
+        private int firstCrossline;
+        private int step;
+        private int count;
+        private long firstTrace;
+        private long stride;
+
+        private Run(int crossline, long trace) {
+            this.firstCrossline = crossline;
+            this.firstTrace = trace;
+            this.count = 1;
+        }
+
+        private int lastCrossline() {
+            return firstCrossline + (count - 1) * step;
+        }
+
+        private long lastTrace() {
+            return firstTrace + (count - 1) * stride;
+        }
+
+        private boolean extend(int crossline, long trace) {
+            final long crosslineStep = (long) crossline - lastCrossline();
+            final long traceStride = trace - lastTrace();
+
+            if (count == 1) {
+                if (crosslineStep == 0 || crosslineStep != (int) crosslineStep || traceStride == 0) {
+                    return false;
+                }
+
+                step = (int) crosslineStep;
+                stride = traceStride;
+            } else if (crosslineStep != step || traceStride != stride || count == Integer.MAX_VALUE) {
+                return false;
+            }
+
+            count++;
+
+            return true;
+        }
+
+        private boolean join(Run next) {
+            final int savedStep = step;
+            final long savedStride = stride;
+
+            if (!extend(next.firstCrossline, next.firstTrace)) {
+                return false;
+            }
+
+            if (next.count > 1 && (next.step != step || next.stride != stride
+                    || (long) count + next.count - 1 > Integer.MAX_VALUE)) {
+                count--;
+                step = savedStep;
+                stride = savedStride;
+                return false;
+            }
+
+            count += next.count - 1;
+
+            return true;
+        }
+
+        private Run ascending() {
+            if (step >= 0) {
+                return this;
+            }
+
+            final Run run = new Run(lastCrossline(), lastTrace());
+            run.step = -step;
+            run.stride = -stride;
+            run.count = count;
+
+            return run;
+        }
+
+        private boolean sameShape(Run other) {
+            return firstCrossline == other.firstCrossline && step == other.step && count == other.count
+                    && stride == other.stride;
+        }
+    }
+
+    /**
+     * Inlines <code>firstInline + i * inlineStep</code> for <code>i</code> below <code>inlineCount</code> sharing the
+     * runs of the first one, with traces shifted by <code>i * traceStride</code>.
+     */
+    private static class Group {
+        private final int firstInline;
+        private final List<Run> runs;
+        private int inlineStep;
+        private int inlineCount = 1;
+        private long traceStride;
+
+        private Group(int inline, List<Run> runs) {
+            this.firstInline = inline;
+            this.runs = runs;
+        }
+
+        private boolean extend(int inline, List<Run> next) {
+            if (next.size() != runs.size()) {
+                return false;
+            }
+
+            final long inlineDelta = (long) inline - (firstInline + (long) (inlineCount - 1) * inlineStep);
+            final long traceDelta = next.get(0).firstTrace
+                    - (runs.get(0).firstTrace + (inlineCount - 1) * traceStride);
+
+            if (inlineCount > 1 && (inlineDelta != inlineStep || traceDelta != traceStride)) {
+                return false;
+            }
+            if (inlineDelta != (int) inlineDelta || inlineCount == Integer.MAX_VALUE) {
+                return false;
+            }
+
+            for (int k = 0; k < runs.size(); k++) {
+                final Run run = runs.get(k);
+                if (!run.sameShape(next.get(k))
+                        || next.get(k).firstTrace - (run.firstTrace + (inlineCount - 1) * traceStride) != traceDelta) {
+                    return false;
+                }
+            }
+
+            inlineStep = (int) inlineDelta;
+            traceStride = traceDelta;
+            inlineCount++;
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package sigrun.geometry;
+
+import sigrun.serialization.FormatEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Inline and crossline layout of a survey as found by <code>GeometryDetector</code>.
+ * <p/>
+ * Traces are read as lines in the <code>TraceOrder</code> of the file, e.g. inlines whose crosslines grow or fall.
+ * Increments are the smallest positive steps seen between adjacent traces: between lines for the increment of the
+ * line key and along a line, in the direction of the order, for the other one. Irregularities are counted against
+ * them: a gap is a step along a line larger than the increment, a duplicate repeats the station of the previous trace
+ * and a reversal goes back against the direction of the order. Ranges and increments of an empty file are zero.
+ */
+public class Geometry {
+    /* About 64 MB of sections; a file read in a wrong order would otherwise hold one section per trace */
+    public static final int MAX_SECTIONS = 1 << 20;
+
+    private final FormatEntry inlineKey;
+    private final FormatEntry crosslineKey;
+    private final TraceOrder order;
+    private final long traceCount;
+    private final int inlineMin;
+    private final int inlineMax;
+    private final int inlineIncrement;
+    private final int crosslineMin;
+    private final int crosslineMax;
+    private final int crosslineIncrement;
+    private final long gapCount;
+    private final long duplicateCount;
+    private final long reversalCount;
+    private final List<LineSection> sections;
+    private final long sectionCount;
+
+    Geometry(FormatEntry inlineKey, FormatEntry crosslineKey, GeometryAccumulator stats) {
+        final boolean empty = stats.traceCount == 0;
+
+        this.inlineKey = inlineKey;
+        this.crosslineKey = crosslineKey;
+        this.order = stats.order;
+        this.traceCount = stats.traceCount;
+        this.inlineMin = empty ? 0 : stats.inlineMin;
+        this.inlineMax = empty ? 0 : stats.inlineMax;
+        this.inlineIncrement = order.isByCrossline() ? stats.stationStep : stats.lineStep;
+        this.crosslineMin = empty ? 0 : stats.crosslineMin;
+        this.crosslineMax = empty ? 0 : stats.crosslineMax;
+        this.crosslineIncrement = order.isByCrossline() ? stats.lineStep : stats.stationStep;
+        this.gapCount = stats.forwardSteps - stats.stationStepCount;
+        this.duplicateCount = stats.duplicates;
+        this.reversalCount = stats.reversals;
+        this.sections = Collections.unmodifiableList(new ArrayList<LineSection>(stats.sections));
+        this.sectionCount = stats.sectionCount;
+    }
+
+    public FormatEntry getInlineKey() {
+        return inlineKey;
+    }
+
+    public FormatEntry getCrosslineKey() {
+        return crosslineKey;
+    }
+
+    public TraceOrder getOrder() {
+        return order;
+    }
+
+    public long getTraceCount() {
+        return traceCount;
+    }
+
+    public int getInlineMin() {
+        return inlineMin;
+    }
+
+    public int getInlineMax() {
+        return inlineMax;
+    }
+
+    public int getInlineIncrement() {
+        return inlineIncrement;
+    }
+
+    public int getCrosslineMin() {
+        return crosslineMin;
+    }
+
+    public int getCrosslineMax() {
+        return crosslineMax;
+    }
+
+    public int getCrosslineIncrement() {
+        return crosslineIncrement;
+    }
+
+    /**
+     * Returns the number of inlines of a full grid spanning the inline range.
+     */
+    public int getInlineCount() {
+        return traceCount == 0 ? 0 : 1 + (inlineIncrement == 0 ? 0 : (inlineMax - inlineMin) / inlineIncrement);
+    }
+
+    /**
+     * Returns the number of crosslines of a full grid spanning the crossline range.
+     */
+    public int getCrosslineCount() {
+        return traceCount == 0 ? 0 : 1 + (crosslineIncrement == 0 ? 0 : (crosslineMax - crosslineMin) / crosslineIncrement);
+    }
+
+    /**
+     * Returns the number of steps along lines larger than the increment, i.e. places where traces are missing.
+     */
+    public long getGapCount() {
+        return gapCount;
+    }
+
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    public long getReversalCount() {
+        return reversalCount;
+    }
+
+    /**
+     * Returns sections in file order, at most <code>MAX_SECTIONS</code> of them.
+     */
+    public List<LineSection> getSections() {
+        return sections;
+    }
+
+    /**
+     * Returns the number of all sections, including those past the kept ones.
+     */
+    public long getSectionCount() {
+        return sectionCount;
+    }
+
+    /**
+     * Checks whether sections past the limit were counted but not kept.
+     */
+    public boolean isTruncated() {
+        return sectionCount > sections.size();
+    }
+
+    /**
+     * Returns sections with gaps inside.
+     */
+    public List<LineSection> getIrregularSections() {
+        final int stationIncrement = order.isByCrossline() ? inlineIncrement : crosslineIncrement;
+        final List<LineSection> result = new ArrayList<LineSection>();
+        for (LineSection section : sections) {
+            if (!section.isRegular(stationIncrement)) {
+                result.add(section);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Checks that the file is a full grid: one gapless section per line, each spanning the whole range of stations.
+     */
+    public boolean isRegular() {
+        final int lines = order.isByCrossline() ? getCrosslineCount() : getInlineCount();
+        if (traceCount == 0 || gapCount != 0 || duplicateCount != 0 || reversalCount != 0 || sectionCount != lines) {
+            return false;
+        }
+
+        final int low = order.isByCrossline() ? inlineMin : crosslineMin;
+        final int high = order.isByCrossline() ? inlineMax : crosslineMax;
+        final int first = order.getDirection() > 0 ? low : high;
+        final int last = order.getDirection() > 0 ? high : low;
+        for (LineSection section : sections) {
+            if (section.getFirstStation() != first || section.getLastStation() != last) {
+                return false;
+            }
+        }
+
+        return (long) getInlineCount() * getCrosslineCount() == traceCount;
+    }
+
+    @Override
+    public String toString() {
+        return "Geometry{" +
+                "order=" + order +
+                ", traceCount=" + traceCount +
+                ", inlines=" + inlineMin + ".." + inlineMax + " step " + inlineIncrement +
+                ", crosslines=" + crosslineMin + ".." + crosslineMax + " step " + crosslineIncrement +
+                ", sections=" + sectionCount +
+                ", gaps=" + gapCount +
+                ", duplicates=" + duplicateCount +
+                ", reversals=" + reversalCount +
+                '}';
+    }
+}
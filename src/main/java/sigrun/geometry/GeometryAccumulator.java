@@ -0,0 +1,168 @@
+package sigrun.geometry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistics of inline and crossline keys over a contiguous range of traces stored in a known order.
+ * <p/>
+ * Every quantity is either a running extreme or a count, and sections are decided by pairs of adjacent traces and the
+ * fixed order only, so results of adjacent ranges merge into exactly what a single pass over both would have
+ * produced. Only the first <code>Geometry.MAX_SECTIONS</code> sections are kept, the rest are just counted.
+ */
+class GeometryAccumulator {
+    final TraceOrder order;
+    long traceCount;
+
+    int inlineMin = Integer.MAX_VALUE;
+    int inlineMax = Integer.MIN_VALUE;
+    int crosslineMin = Integer.MAX_VALUE;
+    int crosslineMax = Integer.MIN_VALUE;
+
+    /* Smallest change of the line between adjacent traces, 0 if it never changes */
+    int lineStep;
+    /*
+     * Smallest station step along a line in the direction of the order, how often it occurs and how many steps in
+     * that direction there are at all
+     */
+    int stationStep;
+    long stationStepCount;
+    long forwardSteps;
+    long duplicates;
+    long reversals;
+
+    final List<LineSection> sections = new ArrayList<LineSection>();
+    long sectionCount;
+
+    private int firstLine;
+    private int firstStation;
+    private int lastLine;
+    private int lastStation;
+
+    GeometryAccumulator(TraceOrder order) {
+        this.order = order;
+    }
+
+    void add(long index, long position, int inline, int crossline) {
+        final int line = order.line(inline, crossline);
+        final int station = order.station(inline, crossline);
+
+        if (traceCount > 0 && step(lastLine, lastStation, line, station)) {
+            if (sectionCount == sections.size()) {
+                sections.get(sections.size() - 1).extend(station, (station - lastStation) * order.getDirection());
+            }
+        } else {
+            sectionCount++;
+            if (sections.size() < Geometry.MAX_SECTIONS) {
+                sections.add(new LineSection(line, station, index, position));
+            }
+        }
+
+        if (traceCount == 0) {
+            firstLine = line;
+            firstStation = station;
+        }
+
+        lastLine = line;
+        lastStation = station;
+        traceCount++;
+
+        inlineMin = Math.min(inlineMin, inline);
+        inlineMax = Math.max(inlineMax, inline);
+        crosslineMin = Math.min(crosslineMin, crossline);
+        crosslineMax = Math.max(crosslineMax, crossline);
+    }
+
+    /**
+     * Counts the step between two adjacent traces.
+     *
+     * @return true if the second trace continues the section of the first one
+     */
+    private boolean step(int previousLine, int previousStation, int line, int station) {
+        if (line != previousLine) {
+            lineStep = smallest(lineStep, Math.abs(line - previousLine));
+            return false;
+        }
+
+        final int step = (station - previousStation) * order.getDirection();
+        if (step > 0) {
+            forwardSteps++;
+            countStationStep(step, 1);
+            return true;
+        }
+
+        if (step == 0) {
+            duplicates++;
+        } else {
+            reversals++;
+        }
+
+        return false;
+    }
+
+    private void countStationStep(int step, long count) {
+        if (stationStep == 0 || step < stationStep) {
+            stationStep = step;
+            stationStepCount = count;
+        } else if (step == stationStep) {
+            stationStepCount += count;
+        }
+    }
+
+    private static int smallest(int current, int step) {
+        return current == 0 || step < current ? step : current;
+    }
+
+    /**
+     * Appends the statistics of the range that directly follows this one and was accumulated in the same order.
+     *
+     * @return this accumulator
+     */
+    GeometryAccumulator merge(GeometryAccumulator next) {
+        if (next.traceCount == 0) {
+            return this;
+        }
+
+        if (traceCount == 0) {
+            return next;
+        }
+
+        final List<LineSection> nextSections = next.sections;
+        int from = 0;
+        if (step(lastLine, lastStation, next.firstLine, next.firstStation)) {
+            if (sectionCount == sections.size()) {
+                sections.get(sections.size() - 1).join(nextSections.get(0),
+                        (next.firstStation - lastStation) * order.getDirection());
+            }
+            sectionCount += next.sectionCount - 1;
+            from = 1;
+        } else {
+            sectionCount += next.sectionCount;
+        }
+        final int room = Geometry.MAX_SECTIONS - sections.size();
+        if (room > 0 && from < nextSections.size()) {
+            sections.addAll(nextSections.subList(from, Math.min(nextSections.size(), from + room)));
+        }
+
+        lastLine = next.lastLine;
+        lastStation = next.lastStation;
+        traceCount += next.traceCount;
+
+        inlineMin = Math.min(inlineMin, next.inlineMin);
+        inlineMax = Math.max(inlineMax, next.inlineMax);
+        crosslineMin = Math.min(crosslineMin, next.crosslineMin);
+        crosslineMax = Math.max(crosslineMax, next.crosslineMax);
+
+        if (next.lineStep != 0) {
+            lineStep = smallest(lineStep, next.lineStep);
+        }
+        if (next.stationStep != 0) {
+            countStationStep(next.stationStep, next.stationStepCount);
+        }
+        forwardSteps += next.forwardSteps;
+        duplicates += next.duplicates;
+        reversals += next.reversals;
+
+        return this;
+    }
+}
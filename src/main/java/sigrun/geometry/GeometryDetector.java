@@ -0,0 +1,146 @@
+package sigrun.geometry;
+
+import sigrun.common.ParallelHeaderScanner;
+import sigrun.common.RawHeaderReducer;
+import sigrun.common.SEGYStream;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Finds the inline and crossline layout of a survey in a single pass over raw trace headers.
+ * <p/>
+ * Only the two key fields are decoded from every header, and nothing is printed or allocated per trace except for
+ * new sections. Fixed-length files may be scanned on several threads through a <code>ParallelHeaderScanner</code>,
+ * other files are read sequentially. Unless it is given, the trace order is taken from the leading traces of the file
+ * before the pass, so surveys sorted by crosslines or with falling numbers are read as lines too.
+ */
+public class GeometryDetector {
+    /* Number of leading traces the trace order is taken from */
+    public static final int ORDER_SAMPLE = 4096;
+
+    private final FormatEntry inlineKey;
+    private final FormatEntry crosslineKey;
+    private final TraceOrder order;
+
+    /**
+     * Creates a detector taking the trace order from the leading traces of the file.
+     *
+     * @param inlineKey    header entry holding inline numbers, 1, 2 or 4 bytes wide
+     * @param crosslineKey header entry holding crossline numbers, 1, 2 or 4 bytes wide
+     */
+    public GeometryDetector(FormatEntry inlineKey, FormatEntry crosslineKey) {
+        this(inlineKey, crosslineKey, null);
+    }
+
+    /**
+     * @param order order of traces in the file, or null to take it from the leading traces
+     */
+    public GeometryDetector(FormatEntry inlineKey, FormatEntry crosslineKey, TraceOrder order) {
+        for (FormatEntry key : new FormatEntry[]{inlineKey, crosslineKey}) {
+            if (key.posStart < 0 || key.posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (key.length() != 1 && key.length() != 2 && key.length() != 4)) {
+                throw new IllegalArgumentException("Key " + key + " is not an integer field of the trace header");
+            }
+        }
+
+        this.inlineKey = inlineKey;
+        this.crosslineKey = crosslineKey;
+        this.order = order;
+    }
+
+    /**
+     * Returns the 4 byte entry starting at a byte number as counted by the SEG-Y standard, from 1.
+     */
+    public static FormatEntry keyAt(int byteNumber) {
+        return FormatEntry.create(byteNumber - 1, byteNumber + 3);
+    }
+
+    /**
+     * Reads all trace headers of the file sequentially. Traces may vary in length.
+     */
+    public Geometry detect(SEGYStream stream) {
+        return new Geometry(inlineKey, crosslineKey, stream.scanRawHeaders(reducer(orderOf(stream))));
+    }
+
+    /**
+     * Reads all trace headers of a fixed-length file on the threads of the scanner.
+     */
+    public Geometry detect(ParallelHeaderScanner scanner) {
+        return new Geometry(inlineKey, crosslineKey, scanner.scanRaw(reducer(orderOf(scanner.getStream()))));
+    }
+
+    /**
+     * Reads all trace headers of a fixed-length file on the given executor.
+     */
+    public Geometry detect(ParallelHeaderScanner scanner, ExecutorService executor) {
+        return new Geometry(inlineKey, crosslineKey,
+                scanner.scanRaw(reducer(orderOf(scanner.getStream())), executor));
+    }
+
+    private TraceOrder orderOf(SEGYStream stream) {
+        return order != null ? order : detectOrder(stream);
+    }
+
+    /**
+     * Takes the trace order from the leading <code>ORDER_SAMPLE</code> traces: lines are the key that stays constant
+     * between more neighbouring traces, and the direction is that of most steps along them. A file without steps
+     * along lines is read by ascending inlines.
+     */
+    public TraceOrder detectOrder(SEGYStream stream) {
+        /* Steps up and down along inlines, then along crosslines, and the keys of the previous trace */
+        final long[] counts = stream.scanRawHeaders(new RawHeaderReducer<long[]>() {
+            @Override
+            public long[] createPartial() {
+                return new long[6];
+            }
+
+            @Override
+            public long[] accumulate(long[] partial, long index, long position, byte[] header) {
+                final int inline = inlineKey.readInt(header, 0);
+                final int crossline = crosslineKey.readInt(header, 0);
+
+                if (index > 0 && inline == partial[4] && crossline != partial[5]) {
+                    partial[crossline > partial[5] ? 0 : 1]++;
+                } else if (index > 0 && crossline == partial[5] && inline != partial[4]) {
+                    partial[inline > partial[4] ? 2 : 3]++;
+                }
+                partial[4] = inline;
+                partial[5] = crossline;
+
+                return partial;
+            }
+
+            @Override
+            public long[] merge(long[] left, long[] right) {
+                return left;
+            }
+        }, ORDER_SAMPLE);
+
+        final boolean byCrossline = counts[2] + counts[3] > counts[0] + counts[1];
+
+        return TraceOrder.of(byCrossline, byCrossline ? counts[3] > counts[2] : counts[1] > counts[0]);
+    }
+
+    private RawHeaderReducer<GeometryAccumulator> reducer(final TraceOrder order) {
+        return new RawHeaderReducer<GeometryAccumulator>() {
+            @Override
+            public GeometryAccumulator createPartial() {
+                return new GeometryAccumulator(order);
+            }
+
+            @Override
+            public GeometryAccumulator accumulate(GeometryAccumulator partial, long index, long position,
+                                                  byte[] header) {
+                partial.add(index, position, inlineKey.readInt(header, 0), crosslineKey.readInt(header, 0));
+                return partial;
+            }
+
+            @Override
+            public GeometryAccumulator merge(GeometryAccumulator left, GeometryAccumulator right) {
+                return left.merge(right);
+            }
+        };
+    }
+}
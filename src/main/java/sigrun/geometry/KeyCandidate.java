@@ -0,0 +1,89 @@
+package sigrun.geometry;
+
+import sigrun.serialization.FormatEntry;
+
+/**
+ * Pair of header entries that may hold inline and crossline numbers, as ranked by <code>KeyDiscovery</code>, with the
+ * order of traces the sample suggests.
+ */
+public class KeyCandidate {
+    private final FormatEntry inlineKey;
+    private final FormatEntry crosslineKey;
+    private final int inlineIncrement;
+    private final int crosslineIncrement;
+    private final TraceOrder order;
+    private final double confidence;
+
+    KeyCandidate(FormatEntry inlineKey, FormatEntry crosslineKey, int inlineIncrement, int crosslineIncrement,
+                 TraceOrder order, double confidence) {
+        this.inlineKey = inlineKey;
+        this.crosslineKey = crosslineKey;
+        this.inlineIncrement = inlineIncrement;
+        this.crosslineIncrement = crosslineIncrement;
+        this.order = order;
+        this.confidence = confidence;
+    }
+
+    public FormatEntry getInlineKey() {
+        return inlineKey;
+    }
+
+    public FormatEntry getCrosslineKey() {
+        return crosslineKey;
+    }
+
+    /**
+     * Returns the inline increment seen in the sample.
+     */
+    public int getInlineIncrement() {
+        return inlineIncrement;
+    }
+
+    /**
+     * Returns the crossline increment seen in the sample.
+     */
+    public int getCrosslineIncrement() {
+        return crosslineIncrement;
+    }
+
+    /**
+     * Checks whether numbers decrease along lines in the sample.
+     */
+    public boolean isDescending() {
+        return order.getDirection() < 0;
+    }
+
+    /**
+     * Returns the order of traces seen in the sample. Lines are crosslines only if the keys are at standard locations
+     * that say so, see <code>KeyDiscovery</code>.
+     */
+    public TraceOrder getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns the share of sampled traces consistent with the pair, from 0 to 1.
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Creates a detector reading this pair in the order seen in the sample.
+     */
+    public GeometryDetector detector() {
+        return new GeometryDetector(inlineKey, crosslineKey, order);
+    }
+
+    @Override
+    public String toString() {
+        return "KeyCandidate{" +
+                "inline=" + inlineKey +
+                ", crossline=" + crosslineKey +
+                ", inlineIncrement=" + inlineIncrement +
+                ", crosslineIncrement=" + crosslineIncrement +
+                ", order=" + order +
+                ", confidence=" + confidence +
+                '}';
+    }
+}
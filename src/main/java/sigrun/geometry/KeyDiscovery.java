@@ -0,0 +1,423 @@
+package sigrun.geometry;
+
+import sigrun.common.RawHeaderReducer;
+import sigrun.common.SEGYStream;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Locates inline and crossline numbers in trace headers of an unknown file from a small sample of headers.
+ * <p/>
+ * A fixed-length file is sampled in clusters of consecutive traces spread evenly over the file, one read per
+ * cluster; other files are sampled from their leading traces. Every 2 byte entry at an even offset and every 4 byte
+ * entry at an offset divisible by four is evaluated as a column of the sample:
+ * <ul>
+ * <li>a line column stays constant between most neighbouring traces and moves in one direction over the file;</li>
+ * <li>a station column moves by the same step between most neighbouring traces, up or down, and repeats, i.e. its
+ * range holds fewer values than the file has traces.</li>
+ * </ul>
+ * Plausible columns are then paired, and a pair is confident when the station breaks its step exactly where the line
+ * changes. Columns that look like coordinates, with large steps or large values, are penalised.
+ * <p/>
+ * The sample tells which key changes slowly, not whether it holds inlines or crosslines. A pair is read as crosslines
+ * holding inlines when its keys sit at the standard crossline and inline locations the other way round, and as inlines
+ * holding crosslines otherwise.
+ */
+public class KeyDiscovery {
+    public static final int DEFAULT_CLUSTERS = 16;
+    public static final int DEFAULT_CLUSTER_SIZE = 16;
+    private static final int MAX_RESULTS = 16;
+
+    /* Largest step and value not penalised; coordinates usually exceed one of them */
+    private static final int MAX_KEY_STEP = 10;
+    private static final int MAX_KEY_VALUE = 1000000;
+
+    /*
+     * Inline and crossline locations preferred among equally good pairs: the numbers of SEG-Y revision 1, then field
+     * record and ensemble numbers
+     */
+    private static final FormatEntry[][] STANDARD_PAIRS = new FormatEntry[][]{
+            {FormatEntry.create(188, 192), FormatEntry.create(192, 196)},
+            {FormatEntry.create(8, 12), FormatEntry.create(20, 24)}};
+
+    private final SEGYStream stream;
+    private final long samples;
+    private final int clusters;
+    private final int clusterSize;
+
+    public KeyDiscovery(SEGYStream stream, long samples) {
+        this(stream, samples, DEFAULT_CLUSTERS, DEFAULT_CLUSTER_SIZE);
+    }
+
+    /**
+     * @param stream      opened SEG-Y stream
+     * @param samples     number of samples in the first trace
+     * @param clusters    number of places of a fixed-length file to sample
+     * @param clusterSize number of consecutive traces read at every place, at least 2
+     */
+    public KeyDiscovery(SEGYStream stream, long samples, int clusters, int clusterSize) {
+        if (clusters <= 0 || clusterSize < 2) {
+            throw new IllegalArgumentException("Sample needs at least one cluster of two traces");
+        }
+
+        this.stream = stream;
+        this.samples = samples;
+        this.clusters = clusters;
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Samples the file and ranks key pairs.
+     *
+     * @return plausible pairs, most confident first; empty if nothing in the headers looks like a 3D grid
+     */
+    public List<KeyCandidate> discover() {
+        final Sample sample = stream.isIdeaFile(samples) ? sampleSpread() : sampleLeading();
+        if (sample.rows < 2) {
+            return Collections.emptyList();
+        }
+
+        final List<Column> lines = new ArrayList<Column>();
+        final List<Column> stations = new ArrayList<Column>();
+        final Column[] words = new Column[TraceHeader.TRACE_HEADER_LENGTH / 4];
+
+        for (int offset = 0; offset < TraceHeader.TRACE_HEADER_LENGTH; offset += 2) {
+            if (offset % 4 == 0) {
+                words[offset / 4] = new Column(sample, FormatEntry.create(offset, offset + 4));
+                classify(words[offset / 4], lines, stations);
+            }
+
+            /* The lower half of a 4 byte entry holding small numbers duplicates it */
+            final Column half = new Column(sample, FormatEntry.create(offset, offset + 2));
+            if (offset % 4 == 0 || !Arrays.equals(half.values, words[offset / 4].values)) {
+                classify(half, lines, stations);
+            }
+        }
+
+        final List<KeyCandidate> result = new ArrayList<KeyCandidate>();
+        for (Column line : lines) {
+            for (Column station : stations) {
+                if (line.key.posEnd <= station.key.posStart || station.key.posEnd <= line.key.posStart) {
+                    final double confidence = pairConfidence(sample, line, station);
+                    if (confidence > 0) {
+                        result.add(candidate(line, station, confidence));
+                    }
+                }
+            }
+        }
+
+        Collections.sort(result, new Comparator<KeyCandidate>() {
+            @Override
+            public int compare(KeyCandidate a, KeyCandidate b) {
+                if (a.getConfidence() != b.getConfidence()) {
+                    return a.getConfidence() > b.getConfidence() ? -1 : 1;
+                }
+                if (standard(a) != standard(b)) {
+                    return standard(b) - standard(a);
+                }
+                if (increments(a) != increments(b)) {
+                    return increments(a) < increments(b) ? -1 : 1;
+                }
+                if (width(a) != width(b)) {
+                    return width(b) - width(a);
+                }
+                if (a.getInlineKey().posStart != b.getInlineKey().posStart) {
+                    return a.getInlineKey().posStart - b.getInlineKey().posStart;
+                }
+                return a.getCrosslineKey().posStart - b.getCrosslineKey().posStart;
+            }
+        });
+
+        return result.size() > MAX_RESULTS ? new ArrayList<KeyCandidate>(result.subList(0, MAX_RESULTS)) : result;
+    }
+
+    /**
+     * Assigns inline and crossline roles to a line and a station column.
+     */
+    private static KeyCandidate candidate(Column line, Column station, double confidence) {
+        final boolean byCrossline = (isStandard(line.key, 1) || isStandard(station.key, 0))
+                && !(isStandard(line.key, 0) || isStandard(station.key, 1));
+        final TraceOrder order = TraceOrder.of(byCrossline, station.step < 0);
+
+        return byCrossline
+                ? new KeyCandidate(station.key, line.key, Math.abs(station.step), line.lineStep, order, confidence)
+                : new KeyCandidate(line.key, station.key, line.lineStep, Math.abs(station.step), order, confidence);
+    }
+
+    /**
+     * Checks whether a key is at a standard location of the role, 0 for inlines and 1 for crosslines.
+     */
+    private static boolean isStandard(FormatEntry key, int role) {
+        for (FormatEntry[] pair : STANDARD_PAIRS) {
+            if (pair[role].equals(key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns 2 for a standard pair, 1 if one of the keys is at a standard location of its role and 0 otherwise.
+     */
+    private static int standard(KeyCandidate candidate) {
+        for (FormatEntry[] pair : STANDARD_PAIRS) {
+            if (pair[0].equals(candidate.getInlineKey()) && pair[1].equals(candidate.getCrosslineKey())) {
+                return 2;
+            }
+        }
+
+        return isStandard(candidate.getInlineKey(), 0) || isStandard(candidate.getCrosslineKey(), 1) ? 1 : 0;
+    }
+
+    private static long increments(KeyCandidate candidate) {
+        return (long) candidate.getInlineIncrement() + candidate.getCrosslineIncrement();
+    }
+
+    private static int width(KeyCandidate candidate) {
+        return candidate.getInlineKey().length() + candidate.getCrosslineKey().length();
+    }
+
+    private static void classify(Column column, List<Column> lines, List<Column> stations) {
+        if (column.isLineLike()) {
+            lines.add(column);
+        }
+        if (column.isStationLike()) {
+            stations.add(column);
+        }
+    }
+
+    /**
+     * Scores a pair by the share of neighbouring traces that either step along a line or start a new one, weighted
+     * by how well each column matches its role over the whole sample and by how little it looks like a coordinate.
+     */
+    private static double pairConfidence(Sample sample, Column line, Column station) {
+        int pairs = 0;
+        int consistent = 0;
+
+        for (int i = 1; i < sample.rows; i++) {
+            if (sample.continues[i]) {
+                final boolean sameLine = line.values[i] == line.values[i - 1];
+                final boolean step = station.values[i] - station.values[i - 1] == station.step;
+
+                pairs++;
+                if (sameLine == step) {
+                    consistent++;
+                }
+            }
+        }
+
+        return (double) consistent / pairs * line.monotony * station.lattice * station.periodicity
+                * line.keyLikeness(line.lineStep) * station.keyLikeness(station.step);
+    }
+
+    /**
+     * Reads clusters of consecutive headers spread evenly over a fixed-length file.
+     */
+    private Sample sampleSpread() {
+        final long count = stream.getNumberOfTrace(samples);
+        final int size = (int) Math.min(clusterSize, count);
+        final int places = size == 0 ? 0 : (int) Math.min(clusters, count / size);
+        final Sample sample = new Sample(places * size, count);
+        final byte[] cluster = new byte[size * TraceHeader.TRACE_HEADER_LENGTH];
+
+        for (int k = 0; k < places; k++) {
+            /* Places are at least a cluster apart, so clusters never overlap */
+            final long first = places == 1 ? 0 : (count - size) * k / (places - 1);
+            stream.readRawTraceHeaders(first, size, samples, cluster);
+
+            for (int i = 0; i < size; i++) {
+                sample.add(cluster, i * TraceHeader.TRACE_HEADER_LENGTH, i > 0);
+            }
+        }
+
+        return sample;
+    }
+
+    /**
+     * Reads leading headers of a file whose traces vary in length and estimates the number of traces from their
+     * average length.
+     */
+    private Sample sampleLeading() {
+        final int limit = clusters * clusterSize;
+        final long[] positions = new long[limit];
+        final Sample sample = stream.scanRawHeaders(new RawHeaderReducer<Sample>() {
+            @Override
+            public Sample createPartial() {
+                return new Sample(limit, 0);
+            }
+
+            @Override
+            public Sample accumulate(Sample partial, long index, long position, byte[] header) {
+                positions[partial.rows] = position;
+                partial.add(header, 0, index > 0);
+                return partial;
+            }
+
+            @Override
+            public Sample merge(Sample left, Sample right) {
+                return left;
+            }
+        }, limit);
+
+        if (sample.rows > 1) {
+            final double traceLength = (double) (positions[sample.rows - 1] - positions[0]) / (sample.rows - 1);
+            sample.traceCount = Math.max(sample.rows,
+                    (long) ((stream.getFileSize() - stream.getHeaderLength()) / traceLength));
+        }
+
+        return sample;
+    }
+
+    /**
+     * Raw headers of the sampled traces, one after another.
+     */
+    private static class Sample {
+        private final byte[] headers;
+        /* Whether a row is the trace directly following the previous row */
+        private final boolean[] continues;
+        private int rows;
+        private long traceCount;
+
+        private Sample(int capacity, long traceCount) {
+            this.headers = new byte[capacity * TraceHeader.TRACE_HEADER_LENGTH];
+            this.continues = new boolean[capacity];
+            this.traceCount = traceCount;
+        }
+
+        private void add(byte[] header, int offset, boolean follows) {
+            System.arraycopy(header, offset, headers, rows * TraceHeader.TRACE_HEADER_LENGTH,
+                    TraceHeader.TRACE_HEADER_LENGTH);
+            continues[rows++] = follows;
+        }
+    }
+
+    /**
+     * Values of one header entry over the sample with the statistics used to classify it.
+     */
+    private static class Column {
+        private final FormatEntry key;
+        private final int[] values;
+        private int distinct;
+        /* Largest absolute value */
+        private long magnitude;
+        /* Neighbouring traces, and how many of them keep the value or change by the most frequent signed step */
+        private int pairs;
+        private int same;
+        private int step;
+        private int stepCount;
+        /* Greatest common divisor of all changes between rows */
+        private int lineStep;
+        /* Share of changes between rows in the prevailing direction */
+        private double monotony;
+        /* Share of values on the lattice of the step and a penalty for ranges as large as the file */
+        private double lattice;
+        private double periodicity;
+
+        private Column(Sample sample, FormatEntry key) {
+            this.key = key;
+            this.values = new int[sample.rows];
+            for (int i = 0; i < sample.rows; i++) {
+                values[i] = key.readInt(sample.headers, i * TraceHeader.TRACE_HEADER_LENGTH);
+                magnitude = Math.max(magnitude, Math.abs((long) values[i]));
+            }
+
+            final int[] sorted = values.clone();
+            Arrays.sort(sorted);
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    distinct++;
+                }
+            }
+
+            final int[] steps = new int[sample.rows];
+            int changes = 0;
+            int up = 0;
+            int down = 0;
+
+            for (int i = 1; i < sample.rows; i++) {
+                final long change = (long) values[i] - values[i - 1];
+                if (change > 0) {
+                    up++;
+                } else if (change < 0) {
+                    down++;
+                }
+                if (change != 0) {
+                    lineStep = (int) Math.min(Integer.MAX_VALUE, gcd(lineStep, Math.abs(change)));
+                }
+
+                if (sample.continues[i]) {
+                    pairs++;
+                    if (change == 0) {
+                        same++;
+                    } else if (change >= -Integer.MAX_VALUE && change <= Integer.MAX_VALUE) {
+                        steps[changes++] = (int) change;
+                    }
+                }
+            }
+
+            mostFrequent(steps, changes);
+            monotony = up + down == 0 ? 0 : (double) Math.max(up, down) / (up + down);
+
+            if (step != 0) {
+                final int increment = Math.abs(step);
+                int onLattice = 0;
+                for (int value : values) {
+                    if (((long) value - sorted[0]) % increment == 0) {
+                        onLattice++;
+                    }
+                }
+
+                final long span = ((long) sorted[sorted.length - 1] - sorted[0]) / increment + 1;
+                lattice = (double) onLattice / values.length;
+                periodicity = Math.min(1.0, sample.traceCount / (2.0 * span));
+            }
+        }
+
+        private void mostFrequent(int[] steps, int count) {
+            Arrays.sort(steps, 0, count);
+
+            int run = 0;
+            for (int i = 0; i < count; i++) {
+                run = i > 0 && steps[i] == steps[i - 1] ? run + 1 : 1;
+                if (run > stepCount) {
+                    stepCount = run;
+                    step = steps[i];
+                }
+            }
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                final long t = a % b;
+                a = b;
+                b = t;
+            }
+
+            return a;
+        }
+
+        /**
+         * Returns 1 for a column of small steps and values, less for one whose steps or values are as large as those
+         * of coordinates.
+         */
+        private double keyLikeness(long increment) {
+            return Math.min(1.0, (double) MAX_KEY_STEP / Math.max(1, Math.abs(increment)))
+                    * Math.min(1.0, (double) MAX_KEY_VALUE / Math.max(1, magnitude));
+        }
+
+        private boolean isLineLike() {
+            return distinct >= 2 && pairs > 0 && same * 2 >= pairs && monotony > 0.5;
+        }
+
+        private boolean isStationLike() {
+            return distinct >= 3 && step != 0 && stepCount * 2 >= pairs;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package sigrun.geometry;
+
+/**
+ * Run of consecutive traces of one line moving in the direction of the trace order.
+ * <p/>
+ * A line is an inline in files sorted by inlines and a crossline in files sorted by crosslines; stations are the
+ * numbers of the other key along the line. A new section starts whenever the line changes or the station does not
+ * move in the direction of the order. Steps between stations of a section may vary; a section is regular when every
+ * step equals the station increment of the survey.
+ */
+public class LineSection {
+    private final int line;
+    private final int firstStation;
+    private final long firstTrace;
+    private final long firstPosition;
+
+    private int lastStation;
+    private long traceCount;
+    private int minStep;
+    private int maxStep;
+
+    LineSection(int line, int station, long trace, long position) {
+        this.line = line;
+        this.firstStation = station;
+        this.lastStation = station;
+        this.firstTrace = trace;
+        this.firstPosition = position;
+        this.traceCount = 1;
+    }
+
+    /**
+     * Appends the next trace, <code>step</code> stations after the last one in the direction of the order.
+     */
+    void extend(int station, int step) {
+        addStep(step);
+        lastStation = station;
+        traceCount++;
+    }
+
+    /**
+     * Appends the section that directly follows this one in the file.
+     */
+    void join(LineSection next, int step) {
+        addStep(step);
+        if (next.traceCount > 1) {
+            addStep(next.minStep);
+            addStep(next.maxStep);
+        }
+
+        lastStation = next.lastStation;
+        traceCount += next.traceCount;
+    }
+
+    private void addStep(int step) {
+        if (traceCount == 1 && minStep == 0) {
+            minStep = step;
+            maxStep = step;
+        } else {
+            minStep = Math.min(minStep, step);
+            maxStep = Math.max(maxStep, step);
+        }
+    }
+
+    /**
+     * Returns the inline of the section in files sorted by inlines and the crossline otherwise.
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Returns the station of the first trace: its crossline in files sorted by inlines and its inline otherwise.
+     */
+    public int getFirstStation() {
+        return firstStation;
+    }
+
+    public int getLastStation() {
+        return lastStation;
+    }
+
+    /**
+     * Returns the index of the first trace of the section in the file.
+     */
+    public long getFirstTrace() {
+        return firstTrace;
+    }
+
+    /**
+     * Returns the absolute position of the first trace header of the section.
+     */
+    public long getFirstPosition() {
+        return firstPosition;
+    }
+
+    public long getTraceCount() {
+        return traceCount;
+    }
+
+    /**
+     * Returns the smallest station step inside the section, counted in the direction of the order, or 0 for a
+     * single trace.
+     */
+    public int getMinStep() {
+        return minStep;
+    }
+
+    /**
+     * Returns the largest station step inside the section or 0 for a single trace.
+     */
+    public int getMaxStep() {
+        return maxStep;
+    }
+
+    /**
+     * Checks that all stations of the section are <code>increment</code> apart.
+     */
+    public boolean isRegular(int increment) {
+        return traceCount == 1 || (minStep == increment && maxStep == increment);
+    }
+
+    @Override
+    public String toString() {
+        return "LineSection{" +
+                "line=" + line +
+                ", stations=" + firstStation + ".." + lastStation +
+                ", firstTrace=" + firstTrace +
+                ", traceCount=" + traceCount +
+                ", steps=" + minStep + ".." + maxStep +
+                '}';
+    }
+}
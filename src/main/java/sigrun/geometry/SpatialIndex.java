@@ -0,0 +1,636 @@
+package sigrun.geometry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sigrun.common.RawHeaderReducer;
+import sigrun.common.SEGYStream;
+import sigrun.common.SEGYStreamException;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Uniform grid over trace coordinates answering nearest-trace and polygon queries.
+ * <p/>
+ * Coordinates are read from two header entries in a single pass and scaled by the coordinate scalar as the SEG-Y
+ * standard defines it. The bounding box of the survey is split into square cells holding a few traces each, and
+ * traces are stored cell by cell: a cell start table followed by trace indexes and coordinates relative to the corner
+ * of the box. A query visits only the cells around the point or inside the polygon bounds.
+ * <p/>
+ * The index is stored next to the file in a sidecar (<code>file.sgy.sidx</code>) stamped like a
+ * <code>TraceIndex</code>, and loading maps it into memory. The index is immutable and may be shared between threads.
+ */
+public class SpatialIndex {
+    private static final Logger log = LoggerFactory.getLogger(SpatialIndex.class);
+
+    public static final String EXTENSION = ".sidx";
+    public static final FormatEntry CDP_X = FormatEntry.create(180, 184);
+    public static final FormatEntry CDP_Y = FormatEntry.create(184, 188);
+    public static final FormatEntry SOURCE_X = FormatEntry.create(72, 76);
+    public static final FormatEntry SOURCE_Y = FormatEntry.create(76, 80);
+    public static final FormatEntry COORDINATE_SCALAR = FormatEntry.create(70, 72);
+
+    private static final int MAGIC = 0x53475349; /* SGSI */
+    private static final int VERSION = 1;
+    private static final int PREFIX_LENGTH = 96;
+    private static final int TRACES_PER_CELL = 4;
+
+    private final FormatEntry[] keys;
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    /* Index of the first point of every cell followed by the number of points */
+    private final IntBuffer cellStart;
+    private final IntBuffer traces;
+    private final FloatBuffer xs;
+    private final FloatBuffer ys;
+
+    private SpatialIndex(FormatEntry[] keys, double minX, double minY, double cellSize, int columns, int rows,
+                         IntBuffer cellStart, IntBuffer traces, FloatBuffer xs, FloatBuffer ys) {
+        this.keys = keys;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = columns;
+        this.rows = rows;
+        this.cellStart = cellStart;
+        this.traces = traces;
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    public static File sidecarFor(File source) {
+        return new File(source.getPath() + EXTENSION);
+    }
+
+    /**
+     * Loads the sidecar of the file, building it from CDP coordinates if it is missing or stale.
+     */
+    public static SpatialIndex open(SEGYStream stream, File source) throws IOException {
+        return open(stream, source, CDP_X, CDP_Y, COORDINATE_SCALAR);
+    }
+
+    /**
+     * Loads the sidecar of the file, building it first if it is missing, stale or made from other entries.
+     *
+     * @param xKey      header entry holding X coordinates
+     * @param yKey      header entry holding Y coordinates
+     * @param scalarKey header entry holding the coordinate scalar
+     */
+    public static SpatialIndex open(SEGYStream stream, File source, FormatEntry xKey, FormatEntry yKey,
+                                    FormatEntry scalarKey) throws IOException {
+        final SpatialIndex index = load(source);
+
+        if (index != null && Arrays.equals(index.keys, new FormatEntry[]{xKey, yKey, scalarKey})) {
+            return index;
+        }
+
+        return build(stream, source, xKey, yKey, scalarKey);
+    }
+
+    /**
+     * Reads coordinates of all traces in a single sequential pass and writes the sidecar.
+     */
+    public static SpatialIndex build(SEGYStream stream, File source, final FormatEntry xKey,
+                                     final FormatEntry yKey, final FormatEntry scalarKey) throws IOException {
+        for (FormatEntry key : new FormatEntry[]{xKey, yKey, scalarKey}) {
+            if (key.posStart < 0 || key.posEnd > TraceHeader.TRACE_HEADER_LENGTH
+                    || (key.length() != 1 && key.length() != 2 && key.length() != 4)) {
+                throw new IllegalArgumentException("Key " + key + " is not an integer field of the trace header");
+            }
+        }
+
+        final File sidecar = sidecarFor(source);
+        final Coordinates coordinates = new Coordinates(new File(sidecar.getPath() + ".xy.tmp"));
+        try {
+            try {
+                stream.scanRawHeaders(new RawHeaderReducer<Coordinates>() {
+                    @Override
+                    public Coordinates createPartial() {
+                        return coordinates;
+                    }
+
+                    @Override
+                    public Coordinates accumulate(Coordinates partial, long index, long position, byte[] header) {
+                        partial.add(xKey.readInt(header, 0), yKey.readInt(header, 0), scalarKey.readInt(header, 0));
+                        return partial;
+                    }
+
+                    @Override
+                    public Coordinates merge(Coordinates left, Coordinates right) {
+                        throw new UnsupportedOperationException("Coordinates are collected in one pass");
+                    }
+                });
+            } finally {
+                coordinates.close();
+            }
+
+            write(sidecar, source, new FormatEntry[]{xKey, yKey, scalarKey}, coordinates);
+        } finally {
+            coordinates.delete();
+        }
+
+        final SpatialIndex index = load(source);
+        if (index == null) {
+            throw new SEGYStreamException("Unable to load spatial index that has just been written for " + source);
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the factor of a coordinate scalar: positive scalars multiply, negative ones divide and zero keeps the
+     * value.
+     */
+    public static double scale(int scalar) {
+        return scalar > 0 ? scalar : (scalar < 0 ? -1.0 / scalar : 1.0);
+    }
+
+    /**
+     * Writes the sidecar from spilled coordinates without holding anything per trace on the heap: one pass over the
+     * spill counts traces per cell in the mapped cell table, a second one places every trace at its cell position.
+     */
+    private static void write(File sidecar, File source, FormatEntry[] keys, Coordinates coordinates)
+            throws IOException {
+        final long count = coordinates.count;
+        final double minX = count == 0 ? 0 : coordinates.minX;
+        final double minY = count == 0 ? 0 : coordinates.minY;
+        final double width = count == 0 ? 0 : coordinates.maxX - minX;
+        final double height = count == 0 ? 0 : coordinates.maxY - minY;
+
+        /* Square cells of a few traces each; traces along a line are split along its longer side */
+        double cellSize = Math.sqrt(width * height * TRACES_PER_CELL / Math.max(1, count));
+        if (cellSize == 0 || Double.isNaN(cellSize)) {
+            cellSize = Math.max(Math.max(width, height) * TRACES_PER_CELL / Math.max(1, count), 1);
+        }
+        final int columns = (int) Math.min(1 << 15, Math.floor(width / cellSize) + 1);
+        final int rows = (int) Math.min(1 << 15, Math.floor(height / cellSize) + 1);
+        cellSize = Math.max(cellSize, Math.max(width / columns, height / rows) * (1 + 1e-9));
+
+        final int cells = columns * rows;
+        final long cellsLength = 4L * (cells + 1);
+        final long pointsLength = 4L * count;
+        if (cellsLength > Integer.MAX_VALUE || pointsLength > Integer.MAX_VALUE) {
+            throw new SEGYStreamException("Spatial index of " + count + " traces is too large to be mapped");
+        }
+
+        final File temp = new File(sidecar.getPath() + ".tmp");
+        final RandomAccessFile file = new RandomAccessFile(temp, "rw");
+
+        try {
+            file.setLength(0);
+            final FileChannel chan = file.getChannel();
+
+            final ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH);
+            prefix.putInt(MAGIC);
+            prefix.putInt(VERSION);
+            prefix.putLong(source.length());
+            prefix.putLong(source.lastModified());
+            for (FormatEntry key : keys) {
+                prefix.putInt(key.posStart);
+                prefix.putInt(key.posEnd);
+            }
+            prefix.putInt((int) count);
+            prefix.putInt(columns);
+            prefix.putInt(rows);
+            prefix.putInt(0);
+            prefix.putDouble(minX);
+            prefix.putDouble(minY);
+            prefix.putDouble(cellSize);
+            prefix.clear();
+            while (prefix.hasRemaining()) {
+                chan.write(prefix, prefix.position());
+            }
+
+            long position = PREFIX_LENGTH;
+            final MappedByteBuffer[] regions = new MappedByteBuffer[4];
+            regions[0] = chan.map(FileChannel.MapMode.READ_WRITE, position, cellsLength);
+            position += cellsLength;
+            for (int r = 1; r < regions.length; r++) {
+                regions[r] = chan.map(FileChannel.MapMode.READ_WRITE, position, pointsLength);
+                position += pointsLength;
+            }
+
+            final IntBuffer cellStart = regions[0].asIntBuffer();
+            final IntBuffer traces = regions[1].asIntBuffer();
+            final FloatBuffer xs = regions[2].asFloatBuffer();
+            final FloatBuffer ys = regions[3].asFloatBuffer();
+            final double[] point = new double[2];
+
+            /* Counting sort of traces by cell: counts first, shifted by one cell */
+            DataInputStream in = coordinates.open();
+            try {
+                for (long i = 0; i < count; i++) {
+                    coordinates.next(in, point);
+                    final int cell = cell(point[0] - minX, point[1] - minY, cellSize, columns, rows);
+                    cellStart.put(cell + 1, cellStart.get(cell + 1) + 1);
+                }
+            } finally {
+                in.close();
+            }
+            for (int c = 0; c < cells; c++) {
+                cellStart.put(c + 1, cellStart.get(c + 1) + cellStart.get(c));
+            }
+
+            /* Starts serve as fill positions, which leaves every entry at the start of the next cell */
+            in = coordinates.open();
+            try {
+                for (long i = 0; i < count; i++) {
+                    coordinates.next(in, point);
+                    final int cell = cell(point[0] - minX, point[1] - minY, cellSize, columns, rows);
+                    final int n = cellStart.get(cell);
+                    cellStart.put(cell, n + 1);
+
+                    traces.put(n, (int) i);
+                    xs.put(n, (float) (point[0] - minX));
+                    ys.put(n, (float) (point[1] - minY));
+                }
+            } finally {
+                in.close();
+            }
+            for (int c = cells; c > 0; c--) {
+                cellStart.put(c, cellStart.get(c - 1));
+            }
+            cellStart.put(0, 0);
+
+            for (MappedByteBuffer region : regions) {
+                region.force();
+            }
+        } finally {
+            file.close();
+        }
+
+        if (sidecar.exists() && !sidecar.delete()) {
+            throw new IOException("Unable to replace " + sidecar);
+        }
+
+        if (!temp.renameTo(sidecar)) {
+            throw new IOException("Unable to rename " + temp + " to " + sidecar);
+        }
+    }
+
+    private static int cell(double x, double y, double cellSize, int columns, int rows) {
+        final int column = Math.min(columns - 1, (int) (x / cellSize));
+        final int row = Math.min(rows - 1, (int) (y / cellSize));
+
+        return row * columns + column;
+    }
+
+    /**
+     * Maps the sidecar of the file into memory.
+     *
+     * @return loaded index or null if the sidecar is missing or does not match the file
+     */
+    public static SpatialIndex load(File source) throws IOException {
+        final File sidecar = sidecarFor(source);
+        if (!sidecar.exists()) {
+            return null;
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(sidecar, "r");
+        try {
+            final FileChannel chan = file.getChannel();
+            final ByteBuffer prefix = ByteBuffer.allocate(PREFIX_LENGTH);
+            chan.read(prefix, 0);
+            prefix.flip();
+
+            if (prefix.remaining() < PREFIX_LENGTH || prefix.getInt() != MAGIC || prefix.getInt() != VERSION) {
+                log.warn("Ignoring " + sidecar + ", it is not a spatial index of this version");
+                return null;
+            }
+
+            if (prefix.getLong() != source.length() || prefix.getLong() != source.lastModified()) {
+                log.info("Ignoring " + sidecar + ", it does not match size or modification time of " + source);
+                return null;
+            }
+
+            final FormatEntry[] keys = new FormatEntry[3];
+            for (int k = 0; k < keys.length; k++) {
+                keys[k] = FormatEntry.create(prefix.getInt(), prefix.getInt());
+            }
+
+            final int count = prefix.getInt();
+            final int columns = prefix.getInt();
+            final int rows = prefix.getInt();
+            prefix.getInt();
+            final double minX = prefix.getDouble();
+            final double minY = prefix.getDouble();
+            final double cellSize = prefix.getDouble();
+
+            long position = PREFIX_LENGTH;
+            final long cellsLength = 4L * (columns * rows + 1);
+            final IntBuffer cellStart = chan.map(FileChannel.MapMode.READ_ONLY, position, cellsLength).asIntBuffer();
+            position += cellsLength;
+            final IntBuffer traces = chan.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asIntBuffer();
+            position += 4L * count;
+            final FloatBuffer xs = chan.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asFloatBuffer();
+            position += 4L * count;
+            final FloatBuffer ys = chan.map(FileChannel.MapMode.READ_ONLY, position, 4L * count).asFloatBuffer();
+
+            return new SpatialIndex(keys, minX, minY, cellSize, columns, rows, cellStart, traces, xs, ys);
+        } finally {
+            /* Mappings stay valid after the channel is closed */
+            file.close();
+        }
+    }
+
+    /**
+     * Returns the number of indexed traces.
+     */
+    public int size() {
+        return traces.limit();
+    }
+
+    /**
+     * Returns the scaled X coordinate of the <code>n</code>-th trace in cell order.
+     */
+    private double x(int n) {
+        return minX + xs.get(n);
+    }
+
+    private double y(int n) {
+        return minY + ys.get(n);
+    }
+
+    /**
+     * Finds the trace nearest to a point.
+     *
+     * @return trace index or -1 for an empty index
+     */
+    public long nearest(double x, double y) {
+        final long[] found = nearest(x, y, 1);
+
+        return found.length == 0 ? -1 : found[0];
+    }
+
+    /**
+     * Finds the <code>k</code> traces nearest to a point.
+     *
+     * @return trace indexes ordered by distance, fewer than <code>k</code> if the index is smaller
+     */
+    public long[] nearest(double x, double y, int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("Number of neighbours must be positive");
+        }
+
+        final Neighbours best = new Neighbours(Math.min(k, size()));
+        if (best.capacity == 0) {
+            return new long[0];
+        }
+
+        final long column = (long) Math.floor((x - minX) / cellSize);
+        final long row = (long) Math.floor((y - minY) / cellSize);
+        final long minRing = Math.max(Math.max(-column, column - columns + 1), Math.max(-row, row - rows + 1));
+        final long maxRing = Math.max(Math.max(column, columns - 1 - column), Math.max(row, rows - 1 - row));
+
+        for (long ring = Math.max(0, minRing); ring <= maxRing; ring++) {
+            /* Cells of the ring are at least ring - 1 cells away from the point */
+            if (best.isFull() && best.worst() <= (ring - 1) * cellSize * (ring - 1) * cellSize) {
+                break;
+            }
+
+            for (long r = row - ring; r <= row + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+
+                final boolean edge = r == row - ring || r == row + ring;
+                for (long c = column - ring; c <= column + ring; c += edge || ring == 0 ? 1 : 2 * ring) {
+                    if (c >= 0 && c < columns) {
+                        visit((int) (r * columns + c), x, y, best);
+                    }
+                }
+            }
+        }
+
+        return best.sorted();
+    }
+
+    private void visit(int cell, double x, double y, Neighbours best) {
+        final int end = cellStart.get(cell + 1);
+        for (int n = cellStart.get(cell); n < end; n++) {
+            final double dx = x(n) - x;
+            final double dy = y(n) - y;
+            best.offer(dx * dx + dy * dy, traces.get(n));
+        }
+    }
+
+    /**
+     * Finds traces inside a polygon. Vertices are given in order, the last one connects to the first one, and points
+     * on the boundary may fall either way.
+     *
+     * @return sorted trace indexes
+     */
+    public long[] inPolygon(double[] polygonX, double[] polygonY) {
+        if (polygonX.length != polygonY.length || polygonX.length < 3) {
+            throw new IllegalArgumentException("Polygon needs at least three vertices");
+        }
+
+        double left = Double.POSITIVE_INFINITY;
+        double right = Double.NEGATIVE_INFINITY;
+        double bottom = Double.POSITIVE_INFINITY;
+        double top = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < polygonX.length; v++) {
+            left = Math.min(left, polygonX[v]);
+            right = Math.max(right, polygonX[v]);
+            bottom = Math.min(bottom, polygonY[v]);
+            top = Math.max(top, polygonY[v]);
+        }
+
+        final int firstColumn = (int) Math.max(0, Math.floor((left - minX) / cellSize));
+        final int lastColumn = (int) Math.min(columns - 1, Math.floor((right - minX) / cellSize));
+        final int firstRow = (int) Math.max(0, Math.floor((bottom - minY) / cellSize));
+        final int lastRow = (int) Math.min(rows - 1, Math.floor((top - minY) / cellSize));
+
+        long[] found = new long[16];
+        int count = 0;
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                final int cell = r * columns + c;
+                final int end = cellStart.get(cell + 1);
+                for (int n = cellStart.get(cell); n < end; n++) {
+                    if (contains(polygonX, polygonY, x(n), y(n))) {
+                        if (count == found.length) {
+                            found = Arrays.copyOf(found, count * 2);
+                        }
+                        found[count++] = traces.get(n);
+                    }
+                }
+            }
+        }
+
+        final long[] result = Arrays.copyOf(found, count);
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    /**
+     * Even-odd rule: a point is inside if a ray from it crosses the boundary an odd number of times.
+     */
+    private static boolean contains(double[] polygonX, double[] polygonY, double x, double y) {
+        boolean inside = false;
+
+        for (int i = 0, j = polygonX.length - 1; i < polygonX.length; j = i++) {
+            if ((polygonY[i] > y) != (polygonY[j] > y)
+                    && x < (polygonX[j] - polygonX[i]) * (y - polygonY[i]) / (polygonY[j] - polygonY[i]) + polygonX[i]) {
+                inside = !inside;
+            }
+        }
+
+        return inside;
+    }
+
+    /**
+     * Raw coordinates and scalars of every trace in file order, spilled to a temporary file while scanning, with the
+     * bounds of the scaled coordinates.
+     */
+    private static class Coordinates {
+        private final File file;
+        private final DataOutputStream out;
+        private long count;
+        private double minX = Double.POSITIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+
+        private Coordinates(File file) throws IOException {
+            this.file = file;
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        }
+
+        private void add(int x, int y, int scalar) {
+            try {
+                out.writeInt(x);
+                out.writeInt(y);
+                out.writeInt(scalar);
+            } catch (IOException e) {
+                throw new SEGYStreamException("Unable to write coordinates to " + file, e);
+            }
+
+            final double scale = scale(scalar);
+            minX = Math.min(minX, x * scale);
+            minY = Math.min(minY, y * scale);
+            maxX = Math.max(maxX, x * scale);
+            maxY = Math.max(maxY, y * scale);
+            count++;
+        }
+
+        private void close() throws IOException {
+            out.close();
+        }
+
+        private DataInputStream open() throws IOException {
+            return new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+        }
+
+        /**
+         * Reads scaled coordinates of the next trace into the first two elements of <code>point</code>.
+         */
+        private void next(DataInputStream in, double[] point) throws IOException {
+            final int x = in.readInt();
+            final int y = in.readInt();
+            final double scale = scale(in.readInt());
+
+            point[0] = x * scale;
+            point[1] = y * scale;
+        }
+
+        private void delete() {
+            if (file.exists() && !file.delete()) {
+                log.warn("Unable to delete " + file);
+            }
+        }
+    }
+
+    /**
+     * Bounded max-heap of squared distances keeping the closest traces seen so far.
+     */
+    private static class Neighbours {
+        private final int capacity;
+        private final double[] distances;
+        private final long[] traces;
+        private int size;
+
+        private Neighbours(int capacity) {
+            this.capacity = capacity;
+            this.distances = new double[capacity];
+            this.traces = new long[capacity];
+        }
+
+        private boolean isFull() {
+            return size == capacity;
+        }
+
+        private double worst() {
+            return distances[0];
+        }
+
+        private void offer(double distance, long trace) {
+            if (size < capacity) {
+                int i = size++;
+                while (i > 0 && distances[(i - 1) / 2] < distance) {
+                    distances[i] = distances[(i - 1) / 2];
+                    traces[i] = traces[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                distances[i] = distance;
+                traces[i] = trace;
+            } else if (distance < distances[0]) {
+                replaceWorst(distance, trace);
+            }
+        }
+
+        private void replaceWorst(double distance, long trace) {
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && distances[child + 1] > distances[child]) {
+                    child++;
+                }
+                if (distances[child] <= distance) {
+                    break;
+                }
+                distances[i] = distances[child];
+                traces[i] = traces[child];
+                i = child;
+            }
+            distances[i] = distance;
+            traces[i] = trace;
+        }
+
+        /**
+         * Empties the heap, closest trace first.
+         */
+        private long[] sorted() {
+            final long[] result = new long[size];
+            for (int n = size - 1; n >= 0; n--) {
+                result[n] = traces[0];
+                size--;
+                if (size > 0) {
+                    replaceWorst(distances[size], traces[size]);
+                }
+            }
+
+            return result;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package sigrun.geometry;
+
+/**
+ * Order of traces of a 3D survey in a file: which key stays constant along a line and in which direction the other
+ * key moves along it.
+ */
+public enum TraceOrder {
+    /* Lines are inlines, crosslines grow along them */
+    BY_INLINE_ASCENDING(false, 1),
+    BY_INLINE_DESCENDING(false, -1),
+    /* Lines are crosslines, inlines grow along them */
+    BY_CROSSLINE_ASCENDING(true, 1),
+    BY_CROSSLINE_DESCENDING(true, -1);
+
+    private final boolean byCrossline;
+    private final int direction;
+
+    private TraceOrder(boolean byCrossline, int direction) {
+        this.byCrossline = byCrossline;
+        this.direction = direction;
+    }
+
+    public static TraceOrder of(boolean byCrossline, boolean descending) {
+        if (byCrossline) {
+            return descending ? BY_CROSSLINE_DESCENDING : BY_CROSSLINE_ASCENDING;
+        }
+
+        return descending ? BY_INLINE_DESCENDING : BY_INLINE_ASCENDING;
+    }
+
+    /**
+     * Checks whether lines of the file are crosslines, i.e. the crossline stays constant between most neighbouring
+     * traces.
+     */
+    public boolean isByCrossline() {
+        return byCrossline;
+    }
+
+    /**
+     * Returns 1 if numbers grow along a line and -1 if they decrease.
+     */
+    public int getDirection() {
+        return direction;
+    }
+
+    int line(int inline, int crossline) {
+        return byCrossline ? crossline : inline;
+    }
+
+    int station(int inline, int crossline) {
+        return byCrossline ? inline : crossline;
+    }
+}
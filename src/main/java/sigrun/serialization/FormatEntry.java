@@ -13,4 +13,55 @@ public class FormatEntry {
     public static FormatEntry create(int posStart, int posEnd) {
         return new FormatEntry(posStart, posEnd);
     }
+
+    /**
+     * Returns the width of the entry in bytes.
+     */
+    public int length() {
+        return posEnd - posStart;
+    }
+
+    /**
+     * Reads big-endian two's complement value of the entry from a raw header.
+     *
+     * @param header raw header bytes
+     * @param offset offset of the header in the array
+     * @return value of the entry
+     * @throws IllegalArgumentException if the entry is not 1, 2 or 4 bytes wide
+     */
+    public int readInt(byte[] header, int offset) {
+        final int pos = offset + posStart;
+
+        switch (posEnd - posStart) {
+            case 1:
+                return header[pos];
+            case 2:
+                return (short) (header[pos] << 8 | (header[pos + 1] & 0xFF));
+            case 4:
+                return header[pos] << 24 | (header[pos + 1] & 0xFF) << 16
+                        | (header[pos + 2] & 0xFF) << 8 | (header[pos + 3] & 0xFF);
+            default:
+                throw new IllegalArgumentException("Entry of " + (posEnd - posStart) + " bytes is not an integer");
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        FormatEntry that = (FormatEntry) o;
+
+        return posStart == that.posStart && posEnd == that.posEnd;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * posStart + posEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + posStart + ", " + posEnd + ")";
+    }
 }
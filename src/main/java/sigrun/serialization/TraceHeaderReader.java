@@ -2,298 +2,477 @@ package sigrun.serialization;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sigrun.common.CompactTraceHeader;
 import sigrun.common.CoordinateUnitsCode;
 import sigrun.common.GainTypeForInstruments;
 import sigrun.common.TraceHeader;
+import sigrun.common.TraceHeaderField;
 import sigrun.common.TraceIdentificationCode;
 
 import java.util.Arrays;
 
+import static sigrun.common.TraceHeaderField.*;
 import static sigrun.converters.ByteANumberConverter.byteAToInt;
 import static sigrun.converters.ByteANumberConverter.byteAToShort;
 
 @SuppressWarnings("ConstantConditions")
 public class TraceHeaderReader {
     private final static Logger log = LoggerFactory.getLogger(TraceHeaderReader.class.getName());
+    private static final int FIELD_COUNT = TraceHeaderField.values().length;
 
     @SuppressWarnings("WeakerAccess")
     public final TraceHeaderFormat format;
 
+    /* Compiled plan: field identifiers with start and end offsets of every configured field */
+    private final TraceHeaderField[] fields = new TraceHeaderField[FIELD_COUNT];
+    private final int[] offsets = new int[FIELD_COUNT];
+    private final int[] ends = new int[FIELD_COUNT];
+    private int size = 0;
+    private final CompactTraceHeader.Layout layout;
+    /* Slot of every plan entry in a compact header */
+    private final int[] slots;
+
     public TraceHeaderReader(TraceHeaderFormat format) {
         this.format = format;
-    }
-
-    public TraceHeader read(byte[] buffer) {
-        TraceHeader traceHeader = new TraceHeader();
-
-        if (format.traceSequenceNumberWLFormat != null)
-            traceHeader.setTraceSequenceNumberWL(byteAToInt(buffer, format.traceSequenceNumberWLFormat.posStart));
-
-        if (format.traceSequenceNumberWSFormat != null)
-            traceHeader.setTraceSequenceNumberWS(byteAToInt(buffer, format.traceSequenceNumberWSFormat.posStart));
-
-        if (format.originalFieldRecordNumberFormat != null)
-            traceHeader.setOriginalFieldRecordNumber(byteAToInt(buffer, format.originalFieldRecordNumberFormat.posStart));
-
-        if (format.traceNumberWOFRFormat != null)
-            traceHeader.setTraceNumberWOFR(byteAToInt(buffer, format.traceNumberWOFRFormat.posStart));
-
-        if (format.energySourcePointNumberFormat != null)
-            traceHeader.setEnergySourcePointNumber(byteAToInt(buffer, format.energySourcePointNumberFormat.posStart));
-
-        if (format.ensembleNumberFormat != null)
-            traceHeader.setEnsembleNumber(byteAToInt(buffer, format.ensembleNumberFormat.posStart));
-
-        if (format.traceNumberWEnsembleFormat != null)
-            traceHeader.setTraceNumberWEnsemble(byteAToInt(buffer, format.traceNumberWEnsembleFormat.posStart));
-
-        if (format.traceIdentificationCodeFormat != null)
-            traceHeader.setTraceIdentificationCode(TraceIdentificationCode.create(byteAToShort(buffer, format.traceIdentificationCodeFormat.posStart)));
-
-        if (format.numberOfVerticallySummedTracesFormat != null)
-            traceHeader.setNumberOfVerticallySummedTraces(byteAToShort(buffer, format.numberOfVerticallySummedTracesFormat.posStart));
-
-        if (format.numberOfHorizontallyStackedTracesFormat != null)
-            traceHeader.setNumberOfHorizontallyStackedTraces(byteAToShort(buffer, format.numberOfHorizontallyStackedTracesFormat.posStart));
-
-        if (format.dataUseFormat != null)
-            traceHeader.setDataUse(byteAToShort(buffer, format.dataUseFormat.posStart));
-
-        if (format.distanceFromTheCenterOfSPFormat != null)
-            traceHeader.setDistanceFromTheCenterOfSP(byteAToInt(buffer, format.distanceFromTheCenterOfSPFormat.posStart));
-
-        if (format.receiverGroupElevationFormat != null)
-            traceHeader.setReceiverGroupElevation(byteAToInt(buffer, format.receiverGroupElevationFormat.posStart));
-
-        if (format.surfaceElevationAtSourceFormat != null)
-            traceHeader.setSurfaceElevationAtSource(byteAToInt(buffer, format.surfaceElevationAtSourceFormat.posStart));
-
-        if (format.sourceDepthBelowSurfaceFormat != null)
-            traceHeader.setSourceDepthBelowSurface(byteAToInt(buffer, format.sourceDepthBelowSurfaceFormat.posStart));
-
-        if (format.datumElevationAtReceiverGroupFormat != null)
-            traceHeader.setDatumElevationAtReceiverGroup(byteAToInt(buffer, format.datumElevationAtReceiverGroupFormat.posStart));
-
-        if (format.datumElevationAtSourceFormat != null)
-            traceHeader.setDatumElevationAtSource(byteAToInt(buffer, format.datumElevationAtSourceFormat.posStart));
-
-        if (format.waterDepthAtSourceFormat != null)
-            traceHeader.setWaterDepthAtSource(byteAToInt(buffer, format.waterDepthAtSourceFormat.posStart));
-
-        if (format.waterDepthAtGroupFormat != null)
-            traceHeader.setWaterDepthAtGroup(byteAToInt(buffer, format.waterDepthAtGroupFormat.posStart));
-
-        if (format.scalarForElevationsFormat != null)
-            traceHeader.setScalarForElevations(byteAToShort(buffer, format.scalarForElevationsFormat.posStart));
-
-        if (format.scalarForCoordinatesFormat != null)
-            traceHeader.setScalarForCoordinates(byteAToShort(buffer, format.scalarForCoordinatesFormat.posStart));
-
-        if (format.sourceXFormat != null)
-            traceHeader.setSourceX(byteAToInt(buffer, format.sourceXFormat.posStart));
-
-        if (format.sourceYFormat != null)
-            traceHeader.setSourceY(byteAToInt(buffer, format.sourceYFormat.posStart));
-
-        if (format.groupXFormat != null)
-            traceHeader.setGroupX(byteAToInt(buffer, format.groupXFormat.posStart));
-
-        if (format.groupYFormat != null)
-            traceHeader.setGroupY(byteAToInt(buffer, format.groupYFormat.posStart));
-
-        if (format.coordinateUnitsCodeFormat != null)
-            traceHeader.setCoordinateUnitsCode(CoordinateUnitsCode.create(byteAToShort(buffer, format.coordinateUnitsCodeFormat.posStart)));
-
-        if (format.weatheringVelocityFormat != null)
-            traceHeader.setWeatheringVelocity(byteAToShort(buffer, format.weatheringVelocityFormat.posStart));
-
-        if (format.subweatheringVelocityFormat != null)
-            traceHeader.setSubweatheringVelocity(byteAToShort(buffer, format.subweatheringVelocityFormat.posStart));
-
-        if (format.upholeTimeAtSourceInMsFormat != null)
-            traceHeader.setUpholeTimeAtSourceInMs(byteAToShort(buffer, format.upholeTimeAtSourceInMsFormat.posStart));
-
-        if (format.upholeTimeAtGroupInMsFormat != null)
-            traceHeader.setUpholeTimeAtGroupInMs(byteAToShort(buffer, format.upholeTimeAtGroupInMsFormat.posStart));
-
-        if (format.sourceStaticCorrectionInMsFormat != null)
-            traceHeader.setSourceStaticCorrectionInMs(byteAToShort(buffer, format.sourceStaticCorrectionInMsFormat.posStart));
-
-        if (format.groupStaticCorrectionInMsFormat != null)
-            traceHeader.setGroupStaticCorrectionInMs(byteAToShort(buffer, format.groupStaticCorrectionInMsFormat.posStart));
-
-        if (format.totalStaticAppliedInMsFormat != null)
-            traceHeader.setTotalStaticAppliedInMs(byteAToShort(buffer, format.totalStaticAppliedInMsFormat.posStart));
-
-        if (format.lagTimeAFormat != null)
-            traceHeader.setLagTimeA(byteAToShort(buffer, format.lagTimeAFormat.posStart));
-
-        if (format.lagTimeBFormat != null)
-            traceHeader.setLagTimeB(byteAToShort(buffer, format.lagTimeBFormat.posStart));
-
-        if (format.delayRecordingTimeFormat != null)
-            traceHeader.setDelayRecordingTime(byteAToShort(buffer, format.delayRecordingTimeFormat.posStart));
-
-        if (format.muteTimeStartFormat != null)
-            traceHeader.setMuteTimeStart(byteAToShort(buffer, format.muteTimeStartFormat.posStart));
-
-        if (format.muteTimeEndFormat != null)
-            traceHeader.setMuteTimeEnd(byteAToShort(buffer, format.muteTimeEndFormat.posStart));
-
-        if (format.numberOfSamplesFormat != null)
-            traceHeader.setNumberOfSamples(byteAToShort(buffer, format.numberOfSamplesFormat.posStart));
-
-        if (format.sampleIntervalInMcsFormat != null)
-            traceHeader.setSampleIntervalInMcs(byteAToShort(buffer, format.sampleIntervalInMcsFormat.posStart));
-
-        if (format.gainTypeForInstrumentsFormat != null)
-            traceHeader.setGainTypeForInstruments(GainTypeForInstruments.create(byteAToShort(buffer, format.gainTypeForInstrumentsFormat.posStart)));
 
-        if (format.instrumentGainConstantFormat != null)
-            traceHeader.setInstrumentGainConstant(byteAToShort(buffer, format.instrumentGainConstantFormat.posStart));
-
-        if (format.instrumentEarlyOrInitialGainFormat != null)
-            traceHeader.setInstrumentEarlyOrInitialGain(byteAToShort(buffer, format.instrumentEarlyOrInitialGainFormat.posStart));
-
-        if (format.correlatedFormat != null)
-            traceHeader.setCorrelated(byteAToShort(buffer, format.correlatedFormat.posStart));
-
-        if (format.sweepFrequencyAtStartFormat != null)
-            traceHeader.setSweepFrequencyAtStart(byteAToShort(buffer, format.sweepFrequencyAtStartFormat.posStart));
-
-        if (format.sweepFrequencyAtEndFormat != null)
-            traceHeader.setSweepFrequencyAtEnd(byteAToShort(buffer, format.sweepFrequencyAtEndFormat.posStart));
-
-        if (format.sweepLengthInMillisecondsFormat != null)
-            traceHeader.setSweepLengthInMilliseconds(byteAToShort(buffer, format.sweepLengthInMillisecondsFormat.posStart));
-
-        if (format.sweepTypeFormat != null)
-            traceHeader.setSweepType(byteAToShort(buffer, format.sweepTypeFormat.posStart));
-
-        if (format.sweepTraceTaperLengthAtStartInMillisecondsFormat != null)
-            traceHeader.setSweepTraceTaperLengthAtStartInMilliseconds(byteAToShort(buffer, format.sweepTraceTaperLengthAtStartInMillisecondsFormat.posStart));
-
-        if (format.sweepTraceTaperLengthAtEndInMillisecondsFormat != null)
-            traceHeader.setSweepTraceTaperLengthAtEndInMilliseconds(byteAToShort(buffer, format.sweepTraceTaperLengthAtEndInMillisecondsFormat.posStart));
-
-        if (format.taperTypeFormat != null)
-            traceHeader.setTaperType(byteAToShort(buffer, format.taperTypeFormat.posStart));
-
-        if (format.aliasFilterFrequencyFormat != null)
-            traceHeader.setAliasFilterFrequency(byteAToShort(buffer, format.aliasFilterFrequencyFormat.posStart));
-
-        if (format.aliasFilterSlopeFormat != null)
-            traceHeader.setAliasFilterSlope(byteAToShort(buffer, format.aliasFilterSlopeFormat.posStart));
-
-        if (format.notchFilterFrequencyFormat != null)
-            traceHeader.setNotchFilterFrequency(byteAToShort(buffer, format.notchFilterFrequencyFormat.posStart));
-
-        if (format.notchFilterSlopeFormat != null)
-            traceHeader.setNotchFilterSlope(byteAToShort(buffer, format.notchFilterSlopeFormat.posStart));
-
-        if (format.lowCutFrequencyFormat != null)
-            traceHeader.setLowCutFrequency(byteAToShort(buffer, format.lowCutFrequencyFormat.posStart));
-
-        if (format.highCutFrequencyFormat != null)
-            traceHeader.setHighCutFrequency(byteAToShort(buffer, format.highCutFrequencyFormat.posStart));
-
-        if (format.lowCutSlopeFormat != null)
-            traceHeader.setLowCutSlope(byteAToShort(buffer, format.lowCutSlopeFormat.posStart));
-
-        if (format.highCutSlopeFormat != null)
-            traceHeader.setHighCutSlope(byteAToShort(buffer, format.highCutSlopeFormat.posStart));
-
-        if (format.yearDataRecordedFormat != null)
-            traceHeader.setYearDataRecorded(byteAToShort(buffer, format.yearDataRecordedFormat.posStart));
-
-        if (format.dayOfYearFormat != null)
-            traceHeader.setDayOfYear(byteAToShort(buffer, format.dayOfYearFormat.posStart));
-
-        if (format.hourOfDayFormat != null)
-            traceHeader.setHourOfDay(byteAToShort(buffer, format.hourOfDayFormat.posStart));
-
-        if (format.minuteOfHourFormat != null)
-            traceHeader.setMinuteOfHour(byteAToShort(buffer, format.minuteOfHourFormat.posStart));
-
-        if (format.secondOfMinuteFormat != null)
-            traceHeader.setSecondOfMinute(byteAToShort(buffer, format.secondOfMinuteFormat.posStart));
-
-        if (format.timeBasisCodeFormat != null)
-            traceHeader.setTimeBasisCode(byteAToShort(buffer, format.timeBasisCodeFormat.posStart));
-
-        if (format.traceWeightingFactorFormat != null)
-            traceHeader.setTraceWeightingFactor(byteAToShort(buffer, format.traceWeightingFactorFormat.posStart));
-
-        if (format.geophoneGroupNumberOfRollSwitchPositionOneFormat != null)
-            traceHeader.setGeophoneGroupNumberOfRollSwitchPositionOne(byteAToShort(buffer, format.geophoneGroupNumberOfRollSwitchPositionOneFormat.posStart));
-
-        if (format.geophoneGroupNumberOfTraceNumberOneWOFRFormat != null)
-            traceHeader.setGeophoneGroupNumberOfTraceNumberOneWOFR(byteAToShort(buffer, format.geophoneGroupNumberOfTraceNumberOneWOFRFormat.posStart));
-
-        if (format.geophoneGroupNumberOfLastTraceWOFRFormat != null)
-            traceHeader.setGeophoneGroupNumberOfLastTraceWOFR(byteAToShort(buffer, format.geophoneGroupNumberOfLastTraceWOFRFormat.posStart));
-
-        if (format.gapSizeFormat != null)
-            traceHeader.setGapSize(byteAToShort(buffer, format.gapSizeFormat.posStart));
-
-        if (format.overTravelFormat != null)
-            traceHeader.setOverTravel(byteAToShort(buffer, format.overTravelFormat.posStart));
-
-        if (format.xOfCDPPositionFormat != null) {
-            log.trace("Setting xOfCDPPositionFormat");
-            traceHeader.setxOfCDPPosition(byteAToInt(buffer, format.xOfCDPPositionFormat.posStart));
+        add(TRACE_SEQUENCE_NUMBER_WL, format.traceSequenceNumberWLFormat);
+        add(TRACE_SEQUENCE_NUMBER_WS, format.traceSequenceNumberWSFormat);
+        add(ORIGINAL_FIELD_RECORD_NUMBER, format.originalFieldRecordNumberFormat);
+        add(TRACE_NUMBER_WOFR, format.traceNumberWOFRFormat);
+        add(ENERGY_SOURCE_POINT_NUMBER, format.energySourcePointNumberFormat);
+        add(ENSEMBLE_NUMBER, format.ensembleNumberFormat);
+        add(TRACE_NUMBER_W_ENSEMBLE, format.traceNumberWEnsembleFormat);
+        add(TRACE_IDENTIFICATION_CODE, format.traceIdentificationCodeFormat);
+        add(NUMBER_OF_VERTICALLY_SUMMED_TRACES, format.numberOfVerticallySummedTracesFormat);
+        add(NUMBER_OF_HORIZONTALLY_STACKED_TRACES, format.numberOfHorizontallyStackedTracesFormat);
+        add(DATA_USE, format.dataUseFormat);
+        add(DISTANCE_FROM_THE_CENTER_OF_SP, format.distanceFromTheCenterOfSPFormat);
+        add(RECEIVER_GROUP_ELEVATION, format.receiverGroupElevationFormat);
+        add(SURFACE_ELEVATION_AT_SOURCE, format.surfaceElevationAtSourceFormat);
+        add(SOURCE_DEPTH_BELOW_SURFACE, format.sourceDepthBelowSurfaceFormat);
+        add(DATUM_ELEVATION_AT_RECEIVER_GROUP, format.datumElevationAtReceiverGroupFormat);
+        add(DATUM_ELEVATION_AT_SOURCE, format.datumElevationAtSourceFormat);
+        add(WATER_DEPTH_AT_SOURCE, format.waterDepthAtSourceFormat);
+        add(WATER_DEPTH_AT_GROUP, format.waterDepthAtGroupFormat);
+        add(SCALAR_FOR_ELEVATIONS, format.scalarForElevationsFormat);
+        add(SCALAR_FOR_COORDINATES, format.scalarForCoordinatesFormat);
+        add(SOURCE_X, format.sourceXFormat);
+        add(SOURCE_Y, format.sourceYFormat);
+        add(GROUP_X, format.groupXFormat);
+        add(GROUP_Y, format.groupYFormat);
+        add(COORDINATE_UNITS_CODE, format.coordinateUnitsCodeFormat);
+        add(WEATHERING_VELOCITY, format.weatheringVelocityFormat);
+        add(SUBWEATHERING_VELOCITY, format.subweatheringVelocityFormat);
+        add(UPHOLE_TIME_AT_SOURCE_IN_MS, format.upholeTimeAtSourceInMsFormat);
+        add(UPHOLE_TIME_AT_GROUP_IN_MS, format.upholeTimeAtGroupInMsFormat);
+        add(SOURCE_STATIC_CORRECTION_IN_MS, format.sourceStaticCorrectionInMsFormat);
+        add(GROUP_STATIC_CORRECTION_IN_MS, format.groupStaticCorrectionInMsFormat);
+        add(TOTAL_STATIC_APPLIED_IN_MS, format.totalStaticAppliedInMsFormat);
+        add(LAG_TIME_A, format.lagTimeAFormat);
+        add(LAG_TIME_B, format.lagTimeBFormat);
+        add(DELAY_RECORDING_TIME, format.delayRecordingTimeFormat);
+        add(MUTE_TIME_START, format.muteTimeStartFormat);
+        add(MUTE_TIME_END, format.muteTimeEndFormat);
+        add(NUMBER_OF_SAMPLES, format.numberOfSamplesFormat);
+        add(SAMPLE_INTERVAL_IN_MCS, format.sampleIntervalInMcsFormat);
+        add(GAIN_TYPE_FOR_INSTRUMENTS, format.gainTypeForInstrumentsFormat);
+        add(INSTRUMENT_GAIN_CONSTANT, format.instrumentGainConstantFormat);
+        add(INSTRUMENT_EARLY_OR_INITIAL_GAIN, format.instrumentEarlyOrInitialGainFormat);
+        add(CORRELATED, format.correlatedFormat);
+        add(SWEEP_FREQUENCY_AT_START, format.sweepFrequencyAtStartFormat);
+        add(SWEEP_FREQUENCY_AT_END, format.sweepFrequencyAtEndFormat);
+        add(SWEEP_LENGTH_IN_MILLISECONDS, format.sweepLengthInMillisecondsFormat);
+        add(SWEEP_TYPE, format.sweepTypeFormat);
+        add(SWEEP_TRACE_TAPER_LENGTH_AT_START_IN_MILLISECONDS, format.sweepTraceTaperLengthAtStartInMillisecondsFormat);
+        add(SWEEP_TRACE_TAPER_LENGTH_AT_END_IN_MILLISECONDS, format.sweepTraceTaperLengthAtEndInMillisecondsFormat);
+        add(TAPER_TYPE, format.taperTypeFormat);
+        add(ALIAS_FILTER_FREQUENCY, format.aliasFilterFrequencyFormat);
+        add(ALIAS_FILTER_SLOPE, format.aliasFilterSlopeFormat);
+        add(NOTCH_FILTER_FREQUENCY, format.notchFilterFrequencyFormat);
+        add(NOTCH_FILTER_SLOPE, format.notchFilterSlopeFormat);
+        add(LOW_CUT_FREQUENCY, format.lowCutFrequencyFormat);
+        add(HIGH_CUT_FREQUENCY, format.highCutFrequencyFormat);
+        add(LOW_CUT_SLOPE, format.lowCutSlopeFormat);
+        add(HIGH_CUT_SLOPE, format.highCutSlopeFormat);
+        add(YEAR_DATA_RECORDED, format.yearDataRecordedFormat);
+        add(DAY_OF_YEAR, format.dayOfYearFormat);
+        add(HOUR_OF_DAY, format.hourOfDayFormat);
+        add(MINUTE_OF_HOUR, format.minuteOfHourFormat);
+        add(SECOND_OF_MINUTE, format.secondOfMinuteFormat);
+        add(TIME_BASIS_CODE, format.timeBasisCodeFormat);
+        add(TRACE_WEIGHTING_FACTOR, format.traceWeightingFactorFormat);
+        add(GEOPHONE_GROUP_NUMBER_OF_ROLL_SWITCH_POSITION_ONE, format.geophoneGroupNumberOfRollSwitchPositionOneFormat);
+        add(GEOPHONE_GROUP_NUMBER_OF_TRACE_NUMBER_ONE_WOFR, format.geophoneGroupNumberOfTraceNumberOneWOFRFormat);
+        add(GEOPHONE_GROUP_NUMBER_OF_LAST_TRACE_WOFR, format.geophoneGroupNumberOfLastTraceWOFRFormat);
+        add(GAP_SIZE, format.gapSizeFormat);
+        add(OVER_TRAVEL, format.overTravelFormat);
+        add(X_OF_CDP_POSITION, format.xOfCDPPositionFormat);
+        add(Y_OF_CDP_POSITION, format.yOfCDPPositionFormat);
+        add(IN_LINE_NUMBER, format.inLineNumberFormat);
+        add(CROSS_LINE_NUMBER, format.crossLineNumberFormat);
+        add(SHOTPOINT_NUMBER, format.shotpointNumberFormat);
+        add(SCALAR_FOR_SP_NUMBER, format.scalarForSPNumberFormat);
+        add(TRACE_VALUES_MU, format.traceValuesMUFormat);
+        add(TRANSDUCTION_CONSTANT, format.transductionConstantFormat);
+        add(TRANSDUCTION_UNITS, format.transductionUnitsFormat);
+        add(DEVICE_TRACE_IDENTIFIER, format.deviceTraceIdentifierFormat);
+        add(SCALAR_TO_BE_APPLIED_TO_TIMES, format.scalarToBeAppliedToTimesFormat);
+        add(SOURCE_TYPE_ORIENTATION, format.sourceTypeOrientationFormat);
+        add(SOURCE_ENERGY_DIRECTION, format.sourceEnergyDirectionFormat);
+        add(SOURCE_MEASUREMENT, format.sourceMeasurementFormat);
+        add(SOURCE_MEASUREMENT_UNIT, format.sourceMeasurementUnitFormat);
+
+        final int[] lengths = new int[size];
+        for (int i = 0; i < size; i++) {
+            lengths[i] = ends[i] - offsets[i];
         }
 
-        if (format.yOfCDPPositionFormat != null) {
-            log.trace("Setting yOfCDPPositionFormat");
-            traceHeader.setyOfCDPPosition(byteAToInt(buffer, format.yOfCDPPositionFormat.posStart));
+        this.layout = new CompactTraceHeader.Layout(Arrays.copyOf(fields, size), lengths);
+        this.slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = layout.slotOf(fields[i]);
         }
+    }
 
-        if (format.inLineNumberFormat != null)
-            traceHeader.setInLineNumber(byteAToInt(buffer, format.inLineNumberFormat.posStart));
-
-        if (format.crossLineNumberFormat != null)
-            traceHeader.setCrossLineNumber(byteAToInt(buffer, format.crossLineNumberFormat.posStart));
-
-        if (format.shotpointNumberFormat != null)
-            traceHeader.setShotpointNumber(byteAToInt(buffer, format.shotpointNumberFormat.posStart));
-
-        if (format.scalarForSPNumberFormat != null)
-            traceHeader.setScalarForSPNumber(byteAToShort(buffer, format.scalarForSPNumberFormat.posStart));
+    private void add(TraceHeaderField field, FormatEntry entry) {
+        if (entry == null) {
+            return;
+        }
 
-        if (format.traceValuesMUFormat != null)
-            traceHeader.setTraceValuesMU(byteAToShort(buffer, format.traceValuesMUFormat.posStart));
+        fields[size] = field;
+        offsets[size] = entry.posStart;
+        ends[size] = entry.posEnd;
+        size++;
+    }
 
-        if (format.transductionConstantFormat != null) {
-            final byte[] transductionConstant = Arrays.copyOfRange(buffer, format.transductionConstantFormat.posStart, format.transductionConstantFormat.posEnd);
-            traceHeader.setTransductionConstant(transductionConstant);
+    /**
+     * Parses the configured fields of a trace header.
+     * <p/>
+     * Only the fields present in the format are visited, in the order of the plan compiled by the constructor, so the
+     * cost of a header is proportional to the number of configured fields.
+     */
+    public TraceHeader read(byte[] buffer) {
+        final TraceHeader traceHeader = new TraceHeader();
+
+        for (int i = 0; i < size; i++) {
+            switch (fields[i]) {
+                case TRACE_SEQUENCE_NUMBER_WL:
+                    traceHeader.setTraceSequenceNumberWL(byteAToInt(buffer, offsets[i]));
+                    break;
+                case TRACE_SEQUENCE_NUMBER_WS:
+                    traceHeader.setTraceSequenceNumberWS(byteAToInt(buffer, offsets[i]));
+                    break;
+                case ORIGINAL_FIELD_RECORD_NUMBER:
+                    traceHeader.setOriginalFieldRecordNumber(byteAToInt(buffer, offsets[i]));
+                    break;
+                case TRACE_NUMBER_WOFR:
+                    traceHeader.setTraceNumberWOFR(byteAToInt(buffer, offsets[i]));
+                    break;
+                case ENERGY_SOURCE_POINT_NUMBER:
+                    traceHeader.setEnergySourcePointNumber(byteAToInt(buffer, offsets[i]));
+                    break;
+                case ENSEMBLE_NUMBER:
+                    traceHeader.setEnsembleNumber(byteAToInt(buffer, offsets[i]));
+                    break;
+                case TRACE_NUMBER_W_ENSEMBLE:
+                    traceHeader.setTraceNumberWEnsemble(byteAToInt(buffer, offsets[i]));
+                    break;
+                case TRACE_IDENTIFICATION_CODE:
+                    traceHeader.setTraceIdentificationCode(TraceIdentificationCode.create(byteAToShort(buffer, offsets[i])));
+                    break;
+                case NUMBER_OF_VERTICALLY_SUMMED_TRACES:
+                    traceHeader.setNumberOfVerticallySummedTraces(byteAToShort(buffer, offsets[i]));
+                    break;
+                case NUMBER_OF_HORIZONTALLY_STACKED_TRACES:
+                    traceHeader.setNumberOfHorizontallyStackedTraces(byteAToShort(buffer, offsets[i]));
+                    break;
+                case DATA_USE:
+                    traceHeader.setDataUse(byteAToShort(buffer, offsets[i]));
+                    break;
+                case DISTANCE_FROM_THE_CENTER_OF_SP:
+                    traceHeader.setDistanceFromTheCenterOfSP(byteAToInt(buffer, offsets[i]));
+                    break;
+                case RECEIVER_GROUP_ELEVATION:
+                    traceHeader.setReceiverGroupElevation(byteAToInt(buffer, offsets[i]));
+                    break;
+                case SURFACE_ELEVATION_AT_SOURCE:
+                    traceHeader.setSurfaceElevationAtSource(byteAToInt(buffer, offsets[i]));
+                    break;
+                case SOURCE_DEPTH_BELOW_SURFACE:
+                    traceHeader.setSourceDepthBelowSurface(byteAToInt(buffer, offsets[i]));
+                    break;
+                case DATUM_ELEVATION_AT_RECEIVER_GROUP:
+                    traceHeader.setDatumElevationAtReceiverGroup(byteAToInt(buffer, offsets[i]));
+                    break;
+                case DATUM_ELEVATION_AT_SOURCE:
+                    traceHeader.setDatumElevationAtSource(byteAToInt(buffer, offsets[i]));
+                    break;
+                case WATER_DEPTH_AT_SOURCE:
+                    traceHeader.setWaterDepthAtSource(byteAToInt(buffer, offsets[i]));
+                    break;
+                case WATER_DEPTH_AT_GROUP:
+                    traceHeader.setWaterDepthAtGroup(byteAToInt(buffer, offsets[i]));
+                    break;
+                case SCALAR_FOR_ELEVATIONS:
+                    traceHeader.setScalarForElevations(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SCALAR_FOR_COORDINATES:
+                    traceHeader.setScalarForCoordinates(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SOURCE_X:
+                    traceHeader.setSourceX(byteAToInt(buffer, offsets[i]));
+                    break;
+                case SOURCE_Y:
+                    traceHeader.setSourceY(byteAToInt(buffer, offsets[i]));
+                    break;
+                case GROUP_X:
+                    traceHeader.setGroupX(byteAToInt(buffer, offsets[i]));
+                    break;
+                case GROUP_Y:
+                    traceHeader.setGroupY(byteAToInt(buffer, offsets[i]));
+                    break;
+                case COORDINATE_UNITS_CODE:
+                    traceHeader.setCoordinateUnitsCode(CoordinateUnitsCode.create(byteAToShort(buffer, offsets[i])));
+                    break;
+                case WEATHERING_VELOCITY:
+                    traceHeader.setWeatheringVelocity(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SUBWEATHERING_VELOCITY:
+                    traceHeader.setSubweatheringVelocity(byteAToShort(buffer, offsets[i]));
+                    break;
+                case UPHOLE_TIME_AT_SOURCE_IN_MS:
+                    traceHeader.setUpholeTimeAtSourceInMs(byteAToShort(buffer, offsets[i]));
+                    break;
+                case UPHOLE_TIME_AT_GROUP_IN_MS:
+                    traceHeader.setUpholeTimeAtGroupInMs(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SOURCE_STATIC_CORRECTION_IN_MS:
+                    traceHeader.setSourceStaticCorrectionInMs(byteAToShort(buffer, offsets[i]));
+                    break;
+                case GROUP_STATIC_CORRECTION_IN_MS:
+                    traceHeader.setGroupStaticCorrectionInMs(byteAToShort(buffer, offsets[i]));
+                    break;
+                case TOTAL_STATIC_APPLIED_IN_MS:
+                    traceHeader.setTotalStaticAppliedInMs(byteAToShort(buffer, offsets[i]));
+                    break;
+                case LAG_TIME_A:
+                    traceHeader.setLagTimeA(byteAToShort(buffer, offsets[i]));
+                    break;
+                case LAG_TIME_B:
+                    traceHeader.setLagTimeB(byteAToShort(buffer, offsets[i]));
+                    break;
+                case DELAY_RECORDING_TIME:
+                    traceHeader.setDelayRecordingTime(byteAToShort(buffer, offsets[i]));
+                    break;
+                case MUTE_TIME_START:
+                    traceHeader.setMuteTimeStart(byteAToShort(buffer, offsets[i]));
+                    break;
+                case MUTE_TIME_END:
+                    traceHeader.setMuteTimeEnd(byteAToShort(buffer, offsets[i]));
+                    break;
+                case NUMBER_OF_SAMPLES:
+                    traceHeader.setNumberOfSamples(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SAMPLE_INTERVAL_IN_MCS:
+                    traceHeader.setSampleIntervalInMcs(byteAToShort(buffer, offsets[i]));
+                    break;
+                case GAIN_TYPE_FOR_INSTRUMENTS:
+                    traceHeader.setGainTypeForInstruments(GainTypeForInstruments.create(byteAToShort(buffer, offsets[i])));
+                    break;
+                case INSTRUMENT_GAIN_CONSTANT:
+                    traceHeader.setInstrumentGainConstant(byteAToShort(buffer, offsets[i]));
+                    break;
+                case INSTRUMENT_EARLY_OR_INITIAL_GAIN:
+                    traceHeader.setInstrumentEarlyOrInitialGain(byteAToShort(buffer, offsets[i]));
+                    break;
+                case CORRELATED:
+                    traceHeader.setCorrelated(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SWEEP_FREQUENCY_AT_START:
+                    traceHeader.setSweepFrequencyAtStart(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SWEEP_FREQUENCY_AT_END:
+                    traceHeader.setSweepFrequencyAtEnd(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SWEEP_LENGTH_IN_MILLISECONDS:
+                    traceHeader.setSweepLengthInMilliseconds(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SWEEP_TYPE:
+                    traceHeader.setSweepType(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SWEEP_TRACE_TAPER_LENGTH_AT_START_IN_MILLISECONDS:
+                    traceHeader.setSweepTraceTaperLengthAtStartInMilliseconds(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SWEEP_TRACE_TAPER_LENGTH_AT_END_IN_MILLISECONDS:
+                    traceHeader.setSweepTraceTaperLengthAtEndInMilliseconds(byteAToShort(buffer, offsets[i]));
+                    break;
+                case TAPER_TYPE:
+                    traceHeader.setTaperType(byteAToShort(buffer, offsets[i]));
+                    break;
+                case ALIAS_FILTER_FREQUENCY:
+                    traceHeader.setAliasFilterFrequency(byteAToShort(buffer, offsets[i]));
+                    break;
+                case ALIAS_FILTER_SLOPE:
+                    traceHeader.setAliasFilterSlope(byteAToShort(buffer, offsets[i]));
+                    break;
+                case NOTCH_FILTER_FREQUENCY:
+                    traceHeader.setNotchFilterFrequency(byteAToShort(buffer, offsets[i]));
+                    break;
+                case NOTCH_FILTER_SLOPE:
+                    traceHeader.setNotchFilterSlope(byteAToShort(buffer, offsets[i]));
+                    break;
+                case LOW_CUT_FREQUENCY:
+                    traceHeader.setLowCutFrequency(byteAToShort(buffer, offsets[i]));
+                    break;
+                case HIGH_CUT_FREQUENCY:
+                    traceHeader.setHighCutFrequency(byteAToShort(buffer, offsets[i]));
+                    break;
+                case LOW_CUT_SLOPE:
+                    traceHeader.setLowCutSlope(byteAToShort(buffer, offsets[i]));
+                    break;
+                case HIGH_CUT_SLOPE:
+                    traceHeader.setHighCutSlope(byteAToShort(buffer, offsets[i]));
+                    break;
+                case YEAR_DATA_RECORDED:
+                    traceHeader.setYearDataRecorded(byteAToShort(buffer, offsets[i]));
+                    break;
+                case DAY_OF_YEAR:
+                    traceHeader.setDayOfYear(byteAToShort(buffer, offsets[i]));
+                    break;
+                case HOUR_OF_DAY:
+                    traceHeader.setHourOfDay(byteAToShort(buffer, offsets[i]));
+                    break;
+                case MINUTE_OF_HOUR:
+                    traceHeader.setMinuteOfHour(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SECOND_OF_MINUTE:
+                    traceHeader.setSecondOfMinute(byteAToShort(buffer, offsets[i]));
+                    break;
+                case TIME_BASIS_CODE:
+                    traceHeader.setTimeBasisCode(byteAToShort(buffer, offsets[i]));
+                    break;
+                case TRACE_WEIGHTING_FACTOR:
+                    traceHeader.setTraceWeightingFactor(byteAToShort(buffer, offsets[i]));
+                    break;
+                case GEOPHONE_GROUP_NUMBER_OF_ROLL_SWITCH_POSITION_ONE:
+                    traceHeader.setGeophoneGroupNumberOfRollSwitchPositionOne(byteAToShort(buffer, offsets[i]));
+                    break;
+                case GEOPHONE_GROUP_NUMBER_OF_TRACE_NUMBER_ONE_WOFR:
+                    traceHeader.setGeophoneGroupNumberOfTraceNumberOneWOFR(byteAToShort(buffer, offsets[i]));
+                    break;
+                case GEOPHONE_GROUP_NUMBER_OF_LAST_TRACE_WOFR:
+                    traceHeader.setGeophoneGroupNumberOfLastTraceWOFR(byteAToShort(buffer, offsets[i]));
+                    break;
+                case GAP_SIZE:
+                    traceHeader.setGapSize(byteAToShort(buffer, offsets[i]));
+                    break;
+                case OVER_TRAVEL:
+                    traceHeader.setOverTravel(byteAToShort(buffer, offsets[i]));
+                    break;
+                case X_OF_CDP_POSITION:
+                    traceHeader.setxOfCDPPosition(byteAToInt(buffer, offsets[i]));
+                    break;
+                case Y_OF_CDP_POSITION:
+                    traceHeader.setyOfCDPPosition(byteAToInt(buffer, offsets[i]));
+                    break;
+                case IN_LINE_NUMBER:
+                    traceHeader.setInLineNumber(byteAToInt(buffer, offsets[i]));
+                    break;
+                case CROSS_LINE_NUMBER:
+                    traceHeader.setCrossLineNumber(byteAToInt(buffer, offsets[i]));
+                    break;
+                case SHOTPOINT_NUMBER:
+                    traceHeader.setShotpointNumber(byteAToInt(buffer, offsets[i]));
+                    break;
+                case SCALAR_FOR_SP_NUMBER:
+                    traceHeader.setScalarForSPNumber(byteAToShort(buffer, offsets[i]));
+                    break;
+                case TRACE_VALUES_MU:
+                    traceHeader.setTraceValuesMU(byteAToShort(buffer, offsets[i]));
+                    break;
+                case TRANSDUCTION_CONSTANT:
+                    final byte[] transductionConstant = Arrays.copyOfRange(buffer, offsets[i], ends[i]);
+                    traceHeader.setTransductionConstant(transductionConstant);
+                    break;
+                case TRANSDUCTION_UNITS:
+                    traceHeader.setTransductionUnits(byteAToShort(buffer, offsets[i]));
+                    break;
+                case DEVICE_TRACE_IDENTIFIER:
+                    traceHeader.setDeviceTraceIdentifier(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SCALAR_TO_BE_APPLIED_TO_TIMES:
+                    traceHeader.setScalarForTimes(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SOURCE_TYPE_ORIENTATION:
+                    traceHeader.setSourceTypeOrientation(byteAToShort(buffer, offsets[i]));
+                    break;
+                case SOURCE_ENERGY_DIRECTION:
+                    final byte[] sourceEnergyDirection = Arrays.copyOfRange(buffer, offsets[i], ends[i]);
+                    traceHeader.setSourceEnergyDirection(sourceEnergyDirection);
+                    break;
+                case SOURCE_MEASUREMENT:
+                    final byte[] sourceMeasurementFormat = Arrays.copyOfRange(buffer, offsets[i], ends[i]);
+                    traceHeader.setSourceMeasurement(sourceMeasurementFormat);
+                    break;
+                case SOURCE_MEASUREMENT_UNIT:
+                    traceHeader.setSourceMeasurementUnit(byteAToShort(buffer, offsets[i]));
+                    break;
+            }
         }
 
-        if (format.transductionUnitsFormat != null)
-            traceHeader.setTransductionUnits(byteAToShort(buffer, format.transductionUnitsFormat.posStart));
+        return traceHeader;
+    }
 
-        if (format.deviceTraceIdentifierFormat != null)
-            traceHeader.setDeviceTraceIdentifier(byteAToShort(buffer, format.deviceTraceIdentifierFormat.posStart));
+    /**
+     * Returns the layout of compact headers produced by this reader.
+     */
+    public CompactTraceHeader.Layout getCompactLayout() {
+        return layout;
+    }
 
-        if (format.scalarToBeAppliedToTimesFormat != null)
-            traceHeader.setScalarForTimes(byteAToShort(buffer, format.scalarToBeAppliedToTimesFormat.posStart));
+    /**
+     * Parses the configured fields of a trace header into a new compact header.
+     */
+    public CompactTraceHeader readCompact(byte[] buffer) {
+        final CompactTraceHeader header = new CompactTraceHeader(layout);
+        read(buffer, header);
 
-        if (format.sourceTypeOrientationFormat != null)
-            traceHeader.setSourceTypeOrientation(byteAToShort(buffer, format.sourceTypeOrientationFormat.posStart));
+        return header;
+    }
 
-        if (format.sourceEnergyDirectionFormat != null) {
-            final byte[] sourceEnergyDirection = Arrays.copyOfRange(buffer, format.sourceEnergyDirectionFormat.posStart, format.sourceEnergyDirectionFormat.posEnd);
-            traceHeader.setSourceEnergyDirection(sourceEnergyDirection);
+    /**
+     * Parses the configured fields of a trace header into an existing compact header.
+     *
+     * @param buffer raw trace header
+     * @param target header with the layout of this reader
+     */
+    public void read(byte[] buffer, CompactTraceHeader target) {
+        if (target.getLayout() != layout) {
+            throw new IllegalArgumentException("Compact header has a layout of another format");
         }
 
-        if (format.sourceMeasurementFormat != null) {
-            final byte[] sourceMeasurementFormat = Arrays.copyOfRange(buffer, format.sourceMeasurementFormat.posStart, format.sourceMeasurementFormat.posEnd);
-            traceHeader.setSourceMeasurement(sourceMeasurementFormat);
+        for (int i = 0; i < size; i++) {
+            final int offset = offsets[i];
+
+            switch (fields[i].getKind()) {
+                case INT:
+                    target.setValue(slots[i], byteAToInt(buffer, offset));
+                    break;
+                case SHORT:
+                    target.setValue(slots[i], byteAToShort(buffer, offset));
+                    break;
+                case BYTES:
+                    /* Up to eight bytes packed big-endian into two slots */
+                    int high = 0;
+                    int low = 0;
+                    for (int b = offset; b < ends[i]; b++) {
+                        high = high << 8 | (low >>> 24);
+                        low = low << 8 | (buffer[b] & 0xFF);
+                    }
+                    target.setValue(slots[i], high);
+                    target.setValue(slots[i] + 1, low);
+                    break;
+            }
         }
-
-        if (format.sourceMeasurementUnitFormat != null)
-            traceHeader.setSourceMeasurementUnit(byteAToShort(buffer, format.sourceMeasurementUnitFormat.posStart));
-
-        return traceHeader;
     }
 }
@@ -86,7 +86,7 @@ public class SampleReadRoutine {
             printTextHeader(segyStream.getTextHeader());
             printBinHeaderInfo(segyStream.getBinaryHeader());
 
-            for (SeismicTrace trace : segyStream) {
+            for (MutableSeismicTrace trace : segyStream.traces(null)) {
                 printTraceInfo(trace);
             }
 
@@ -113,11 +113,11 @@ public class SampleReadRoutine {
         System.out.println("Data sample code:" + binaryHeader.getDataSampleCode());
     }
 
-    private static void printTraceInfo(SeismicTrace trace) {
+    private static void printTraceInfo(MutableSeismicTrace trace) {
         System.out.println("Trace Header info...");
         System.out.println("Number of samples: " + trace.getHeader().getNumberOfSamples());
 
-        System.out.println("Size of array: " + trace.getValues().length);
+        System.out.println("Size of array: " + trace.getLength());
         System.out.printf("Values: %.10f : %.10f%n", trace.getMin(), trace.getMax());
         System.out.printf("Diff: %.10f%n", trace.getMax() - trace.getMin());
     }
@@ -0,0 +1,56 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.FormatEntry;
+import sigrun.serialization.TraceHeaderFormatBuilder;
+import sigrun.serialization.TraceHeaderReader;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class CompactTraceHeaderTest {
+    @Test
+    public void testMatchesTraceHeader() throws Exception {
+        final TraceHeaderReader reader = new TraceHeaderReader(TraceHeaderFormatBuilder.aTraceHeaderFormat()
+                .withTraceSequenceNumberWLFormat(FormatEntry.create(0, 4))
+                .withTraceIdentificationCodeFormat(FormatEntry.create(28, 30))
+                .withScalarForCoordinatesFormat(FormatEntry.create(70, 72))
+                .withNumberOfSamplesFormat(FormatEntry.create(114, 116))
+                .withInLineNumberFormat(FormatEntry.create(188, 192))
+                .withTransductionConstantFormat(FormatEntry.create(204, 210))
+                .build());
+
+        final ByteBuffer raw = ByteBuffer.allocate(TraceHeader.TRACE_HEADER_LENGTH);
+        raw.putInt(0, -123456).putShort(28, (short) 1).putShort(70, (short) -100).putShort(114, (short) 2000)
+                .putInt(188, 77);
+        raw.put(204, (byte) 0x81).put(206, (byte) 0x7F).put(209, (byte) 0xFF);
+
+        final TraceHeader header = reader.read(raw.array());
+        final CompactTraceHeader compact = reader.readCompact(raw.array());
+
+        for (Method method : ReadableTraceHeader.class.getMethods()) {
+            final Object expected = method.invoke(header);
+            final Object actual = method.invoke(compact);
+            if (expected instanceof byte[]) {
+                Assert.assertTrue(method.getName(), Arrays.equals((byte[]) expected, (byte[]) actual));
+            } else {
+                Assert.assertEquals(method.getName(), expected, actual);
+            }
+        }
+
+        Assert.assertTrue(compact.isPresent(TraceHeaderField.IN_LINE_NUMBER));
+        Assert.assertFalse(compact.isPresent(TraceHeaderField.CROSS_LINE_NUMBER));
+        Assert.assertEquals(-100, compact.getValue(TraceHeaderField.SCALAR_FOR_COORDINATES));
+        Assert.assertEquals(7, compact.getLayout().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testForeignLayout() {
+        final TraceHeaderReader reader = new TraceHeaderReader(SyntheticSEGY.traceHeaderFormat());
+        final TraceHeaderReader other = new TraceHeaderReader(SyntheticSEGY.traceHeaderFormat());
+
+        reader.read(new byte[TraceHeader.TRACE_HEADER_LENGTH], new CompactTraceHeader(other.getCompactLayout()));
+    }
+}
@@ -0,0 +1,41 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.FormatEntry;
+
+public class HeaderTableTest {
+    private static final int INLINES = 9;
+    private static final int XLINES = 11;
+    private static final int SAMPLES = 20;
+
+    @Test
+    public void testLoadAndColumnOperations() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final ParallelHeaderScanner scanner = new ParallelHeaderScanner(stream, SAMPLES, 3, 1000);
+        final HeaderTable table = HeaderTable.load(scanner, FormatEntry.create(188, 192), FormatEntry.create(192, 196),
+                FormatEntry.create(70, 72));
+
+        Assert.assertEquals(INLINES * XLINES, table.size());
+        for (int i = 0; i < table.size(); i++) {
+            Assert.assertEquals(SyntheticSEGY.inline(i, XLINES), table.getIntColumn(0)[i]);
+            Assert.assertEquals(SyntheticSEGY.xline(i, XLINES), table.get(1, i));
+            Assert.assertEquals(-100, table.getShortColumn(2)[i]);
+        }
+
+        Assert.assertEquals(SyntheticSEGY.FIRST_INLINE, table.min(0));
+        Assert.assertEquals(SyntheticSEGY.FIRST_INLINE + INLINES - 1, table.max(0));
+        Assert.assertEquals(-100, table.max(2));
+
+        final int[] runs = table.runs(0);
+        Assert.assertEquals(INLINES + 1, runs.length);
+        Assert.assertEquals(2 * XLINES, runs[2]);
+        Assert.assertEquals(table.size(), runs[INLINES]);
+
+        final int[] diff = table.diff(1);
+        Assert.assertEquals(SyntheticSEGY.XLINE_STEP, diff[0]);
+        Assert.assertEquals(-(XLINES - 1) * SyntheticSEGY.XLINE_STEP, diff[XLINES - 1]);
+
+        stream.close();
+    }
+}
@@ -0,0 +1,50 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+
+public class MappedHeaderStoreTest {
+    private static final int XLINES = 7;
+
+    @Test
+    public void testScanAndReopen() throws Exception {
+        final int[] samples = new int[60];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 10 + i % 5;
+        }
+
+        final File storeFile = File.createTempFile("sigrun", ".hdr");
+        storeFile.deleteOnExit();
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(XLINES, samples));
+        final MappedHeaderStore store = MappedHeaderStore.scan(stream, MappedHeaderStore.create(storeFile,
+                FormatEntry.create(188, 192), FormatEntry.create(192, 196), FormatEntry.create(114, 116)));
+        stream.close();
+
+        Assert.assertEquals(samples.length, store.size());
+        Assert.assertEquals(SyntheticSEGY.xline(33, XLINES), store.get(1, 33));
+        store.close();
+
+        final MappedHeaderStore reopened = MappedHeaderStore.open(storeFile);
+        Assert.assertEquals(samples.length, reopened.size());
+        Assert.assertEquals(FormatEntry.create(114, 116), reopened.getField(2));
+        for (long i = 0; i < reopened.size(); i++) {
+            Assert.assertEquals(SyntheticSEGY.inline(i, XLINES), reopened.get(0, i));
+            Assert.assertEquals(samples[(int) i], reopened.get(2, i));
+        }
+
+        Assert.assertEquals(samples.length, reopened.appendRow(1, 2, 3));
+        Assert.assertEquals(3, reopened.get(2, samples.length));
+        reopened.close();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testReadBeyondSize() throws Exception {
+        final MappedHeaderStore store = MappedHeaderStore.createTemp(FormatEntry.create(188, 192));
+        store.appendRow(5);
+        store.get(0, 1);
+    }
+}
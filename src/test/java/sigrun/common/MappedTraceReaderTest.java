@@ -0,0 +1,51 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+public class MappedTraceReaderTest {
+    private static final int INLINES = 7;
+    private static final int XLINES = 11;
+    private static final int SAMPLES = 50;
+
+    @Test
+    public void testRandomAccessAcrossWindows() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final SEGYStream stream = SyntheticSEGY.open(file);
+
+        /* Three traces per window and two windows mapped at most, so windows are constantly remapped */
+        final long traceLength = stream.getTraceLength(SAMPLES);
+        final MappedTraceReader reader = new MappedTraceReader(stream, SAMPLES, (int) (3 * traceLength), 2);
+
+        Assert.assertEquals(INLINES * XLINES, reader.getNumberOfTraces());
+
+        final byte[] samples = new byte[reader.getDataLength()];
+        for (long i = reader.getNumberOfTraces() - 1; i >= 0; i -= 5) {
+            final TraceHeader header = reader.header(i);
+            Assert.assertEquals(SyntheticSEGY.inline(i, XLINES), header.getInLineNumber().intValue());
+            Assert.assertEquals(SyntheticSEGY.xline(i, XLINES), header.getCrossLineNumber().intValue());
+            Assert.assertEquals(stream.getHeaderLength() + i * traceLength, header.getPositionInFile());
+
+            reader.readSampleBytes(i, samples);
+            Assert.assertEquals(SyntheticSEGY.value(i, SAMPLES - 1), ByteBuffer.wrap(samples).getFloat((SAMPLES - 1) * 4), 0f);
+            Assert.assertEquals(SyntheticSEGY.inline(i, XLINES), reader.getTraceInt(i, 188));
+            Assert.assertEquals(SAMPLES, reader.getTraceShort(i, 114));
+        }
+
+        reader.close();
+        stream.close();
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testOutOfRange() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(2, 2, SAMPLES));
+        try {
+            new MappedTraceReader(stream, SAMPLES).header(4);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ParallelHeaderScannerTest {
+    private static final int INLINES = 13;
+    private static final int XLINES = 17;
+    private static final int SAMPLES = 25;
+
+    /**
+     * Collects trace indexes and crosslines, so the merge order can be checked.
+     */
+    private static class CollectingReducer implements HeaderReducer<List<long[]>> {
+        @Override
+        public List<long[]> createPartial() {
+            return new ArrayList<long[]>();
+        }
+
+        @Override
+        public List<long[]> accumulate(List<long[]> partial, long index, TraceHeader header) {
+            partial.add(new long[]{index, header.getCrossLineNumber()});
+            return partial;
+        }
+
+        @Override
+        public List<long[]> merge(List<long[]> left, List<long[]> right) {
+            left.addAll(right);
+            return left;
+        }
+    }
+
+    @Test
+    public void testScanInTraceOrder() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+
+        /* Blocks of several traces and header-only reads */
+        for (int blockSize : new int[]{4096, 16}) {
+            final ParallelHeaderScanner scanner = new ParallelHeaderScanner(stream, SAMPLES, 3, blockSize);
+            final List<long[]> result = scanner.scan(new CollectingReducer());
+
+            Assert.assertEquals(INLINES * XLINES, result.size());
+            for (int i = 0; i < result.size(); i++) {
+                Assert.assertEquals(i, result.get(i)[0]);
+                Assert.assertEquals(SyntheticSEGY.xline(i, XLINES), result.get(i)[1]);
+            }
+        }
+
+        stream.close();
+    }
+}
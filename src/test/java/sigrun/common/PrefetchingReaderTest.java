@@ -0,0 +1,23 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class PrefetchingReaderTest {
+    @Test(timeout = 10000)
+    public void testUncheckedFailureEndsTheStream() throws Exception {
+        /* Without a channel the I/O thread dies with a NullPointerException on its first read */
+        final PrefetchingReader reader = new PrefetchingReader(null, 0, 1024, 2);
+
+        try {
+            reader.read(new byte[16], 0, 16);
+            Assert.fail();
+        } catch (IOException expected) {
+            Assert.assertTrue(expected.getCause() instanceof NullPointerException);
+        }
+
+        reader.close();
+    }
+}
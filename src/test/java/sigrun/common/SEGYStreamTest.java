@@ -0,0 +1,247 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SEGYStreamTest {
+    private static final int INLINES = 5;
+    private static final int XLINES = 9;
+    private static final int SAMPLES = 100;
+
+    @Test
+    public void testReadAheadIteration() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+
+        /* Block smaller than a trace, block holding several traces and a block larger than the file */
+        for (int blockSize : new int[]{97, 4096, 1 << 20}) {
+            final SEGYStream stream = SyntheticSEGY.open(file);
+            stream.setReadAheadBlockSize(blockSize);
+
+            final long traceLength = stream.getTraceLength(SAMPLES);
+            int count = 0;
+            for (LiteSeismicTrace trace : stream) {
+                Assert.assertEquals(SyntheticSEGY.inline(count, XLINES), trace.getHeader().getInLineNumber().intValue());
+                Assert.assertEquals(SyntheticSEGY.xline(count, XLINES), trace.getHeader().getCrossLineNumber().intValue());
+                Assert.assertEquals(stream.getHeaderLength() + count * traceLength, trace.getHeader().getPositionInFile());
+                count++;
+            }
+
+            Assert.assertEquals(INLINES * XLINES, count);
+        }
+    }
+
+    @Test
+    public void testSampleStreaming() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+
+        for (int blockSize : new int[]{0, 1000}) {
+            final SEGYStream stream = SyntheticSEGY.open(file);
+            stream.setReadAheadBlockSize(blockSize);
+
+            final float[] buffer = new float[SAMPLES];
+            int count = 0;
+            for (MutableSeismicTrace trace : stream.traces(buffer)) {
+                Assert.assertSame(buffer, trace.getValues());
+                Assert.assertEquals(SAMPLES, trace.getLength());
+                Assert.assertEquals(SyntheticSEGY.value(count, 0), trace.getMin(), 0f);
+                Assert.assertEquals(SyntheticSEGY.value(count, SAMPLES - 1), trace.getMax(), 0f);
+                Assert.assertEquals(SyntheticSEGY.value(count, 42), trace.getValues()[42], 0f);
+                count++;
+            }
+
+            Assert.assertEquals(INLINES * XLINES, count);
+        }
+    }
+
+    @Test
+    public void testPrefetchingStream() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final SEGYStream stream = SyntheticSEGY.factory().makePrefetchingStream(
+                new FileInputStream(file).getChannel(), Collections.<ParseProgressListener>emptySet(), 333, 3);
+
+        int count = 0;
+        for (MutableSeismicTrace trace : stream.traces(null)) {
+            Assert.assertEquals(SyntheticSEGY.xline(count, XLINES), trace.getHeader().getCrossLineNumber().intValue());
+            Assert.assertEquals(SyntheticSEGY.value(count, 7), trace.getValues()[7], 0f);
+            count++;
+        }
+
+        Assert.assertEquals(INLINES * XLINES, count);
+        stream.close();
+    }
+
+    @Test
+    public void testPrefetchingStreamEarlyClose() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final SEGYStream stream = SyntheticSEGY.factory().makePrefetchingStream(
+                new FileInputStream(file).getChannel(), Collections.<ParseProgressListener>emptySet(), 128, 2);
+
+        final Iterator<LiteSeismicTrace> iterator = stream.iterator();
+        Assert.assertTrue(iterator.hasNext());
+        Assert.assertNotNull(iterator.next());
+
+        stream.close();
+        Assert.assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testConcurrentPositionalReads() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final AtomicInteger errors = new AtomicInteger();
+        final Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            final int shift = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final float[] values = new float[SAMPLES];
+                    for (int n = 0; n < 200; n++) {
+                        final long i = (n * 7 + shift) % (INLINES * XLINES);
+                        final TraceHeader header = stream.readTraceHeader(i, SAMPLES);
+                        stream.readTraceSamples(i, SAMPLES, values);
+                        if (header.getCrossLineNumber() != SyntheticSEGY.xline(i, XLINES)
+                                || values[3] != SyntheticSEGY.value(i, 3)) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(0, errors.get());
+        stream.close();
+    }
+
+    @Test
+    public void testPositionalReadChecksArguments() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final int traces = INLINES * XLINES;
+
+        Assert.assertEquals(SAMPLES, stream.readTraceSamples(traces - 1, SAMPLES, new float[SAMPLES]));
+        for (long index : new long[]{-1, traces}) {
+            try {
+                stream.readTraceSamples(index, SAMPLES, new float[SAMPLES]);
+                Assert.fail();
+            } catch (IndexOutOfBoundsException expected) {
+                /* Checked before reading */
+            }
+        }
+
+        try {
+            stream.readTraceSamples(0, SAMPLES, new float[SAMPLES - 1]);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+            /* The destination is too short */
+        }
+
+        stream.close();
+    }
+
+    @Test
+    public void testVariableLengthOffsets() throws Exception {
+        final int[] samples = new int[]{10, 250, 3, 0, 77, 77, 1, 120};
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(XLINES, samples));
+
+        Assert.assertEquals(-1, stream.getNumberOfTrace(samples[0]));
+        Assert.assertEquals(samples.length, stream.buildTraceOffsets());
+        Assert.assertEquals(samples.length, stream.getNumberOfTrace());
+        Assert.assertEquals(samples.length, stream.getNumberOfTrace(samples[0]));
+
+        final float[] values = new float[250];
+        for (int i = samples.length - 1; i >= 0; i--) {
+            final TraceHeader header = stream.getTraceHeader(i);
+            Assert.assertEquals(samples[i], header.getNumberOfSamples().intValue());
+            Assert.assertEquals(SyntheticSEGY.xline(i, XLINES), header.getCrossLineNumber().intValue());
+            Assert.assertEquals(samples[i], stream.getNumberOfSamples(i));
+            Assert.assertEquals(samples[i], stream.readTraceSamples(i, values));
+            if (samples[i] > 0) {
+                Assert.assertEquals(SyntheticSEGY.value(i, samples[i] - 1), values[samples[i] - 1], 0f);
+            }
+        }
+
+        stream.close();
+    }
+
+    @Test
+    public void testBatchedHeaderReads() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final long last = INLINES * XLINES - 1;
+        final long[] indices = new long[]{last, 0, 1, 17, 1, 0, 16, last};
+
+        final TraceHeader[] headers = stream.getTraceHeaders(indices, SAMPLES);
+        Assert.assertEquals(indices.length, headers.length);
+        for (int k = 0; k < indices.length; k++) {
+            final TraceHeader expected = stream.readTraceHeader(indices[k], SAMPLES);
+            Assert.assertEquals(SyntheticSEGY.inline(indices[k], XLINES), headers[k].getInLineNumber().intValue());
+            Assert.assertEquals(SyntheticSEGY.xline(indices[k], XLINES), headers[k].getCrossLineNumber().intValue());
+            Assert.assertEquals(expected.getPositionInFile(), headers[k].getPositionInFile());
+        }
+        Assert.assertNotSame(headers[1], headers[5]);
+
+        try {
+            stream.getTraceHeaders(new long[]{0, last + 1}, SAMPLES);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException expected) {
+            /* Indexes are checked before anything is read */
+        }
+
+        stream.close();
+    }
+
+    @Test
+    public void testBatchedHeaderReadsUseCache() throws Exception {
+        final int[] samples = new int[]{10, 250, 3, 0, 77, 77, 1, 120};
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(XLINES, samples));
+        stream.buildTraceOffsets();
+
+        final long[] indices = new long[]{7, 2, 3, 4, 2};
+        final TraceHeader[] headers = stream.getTraceHeaders(indices);
+        for (int k = 0; k < indices.length; k++) {
+            Assert.assertEquals(samples[(int) indices[k]], headers[k].getNumberOfSamples().intValue());
+            Assert.assertEquals(stream.getTraceOffset(indices[k]), headers[k].getPositionInFile());
+        }
+
+        final TraceHeader[] cached = stream.getTraceHeaders(new long[]{4, 7});
+        Assert.assertEquals(SyntheticSEGY.xline(4, XLINES), cached[0].getCrossLineNumber().intValue());
+        Assert.assertEquals(samples[7], cached[1].getNumberOfSamples().intValue());
+
+        /* Closing drops the cache, so nothing is served from a closed file */
+        stream.close();
+        try {
+            stream.getTraceHeaders(new long[]{4});
+            Assert.fail();
+        } catch (SEGYStreamException expected) {
+            /* The header has to be read again */
+        }
+    }
+
+    @Test
+    public void testBatchedHeaderReadsOfFixedLengthFile() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(10, XLINES, SAMPLES));
+
+        final long[] indices = new long[]{31, 0, 32};
+        final TraceHeader[] headers = stream.getTraceHeaders(indices);
+        for (int k = 0; k < indices.length; k++) {
+            Assert.assertEquals(stream.readTraceHeader(indices[k], SAMPLES).getPositionInFile(),
+                    headers[k].getPositionInFile());
+            Assert.assertEquals(SyntheticSEGY.xline(indices[k], XLINES), headers[k].getCrossLineNumber().intValue());
+        }
+
+        /* Positions come from the trace length: no offset table was built, so a wrong length is still rejected */
+        Assert.assertFalse(stream.isIdeaFile(SAMPLES + 1));
+        Assert.assertEquals(-1, stream.getNumberOfTrace(SAMPLES + 1));
+        stream.close();
+    }
+}
@@ -0,0 +1,31 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.converters.SeismicValuesConverter;
+
+import java.nio.ByteBuffer;
+
+public class SeismicTraceTest {
+    @Test
+    public void testConvertersAreShared() {
+        for (DataSample sample : DataSample.values()) {
+            Assert.assertSame(ConverterFactory.getConverter(sample), ConverterFactory.getConverter(sample));
+        }
+    }
+
+    @Test
+    public void testCreateIntoSuppliedArray() {
+        final ByteBuffer bytes = ByteBuffer.allocate(12);
+        bytes.putFloat(2.5f).putFloat(-7f).putFloat(1f);
+
+        final SeismicValuesConverter converter = ConverterFactory.getConverter(DataSample.IEEE_FP);
+        final float[] values = new float[3];
+        final SeismicTrace trace = SeismicTrace.create(null, bytes.array(), 3, converter, values);
+
+        Assert.assertSame(values, trace.getValues());
+        Assert.assertEquals(-7f, trace.getMin(), 0f);
+        Assert.assertEquals(2.5f, trace.getMax(), 0f);
+        Assert.assertEquals(1f, SeismicTrace.create(null, bytes.array(), 3, converter, null).getValues()[2], 0f);
+    }
+}
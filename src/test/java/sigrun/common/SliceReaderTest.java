@@ -0,0 +1,57 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+
+public class SliceReaderTest {
+    private static final int INLINES = 7;
+    private static final int XLINES = 5;
+    private static final int SAMPLES = 40;
+
+    @Test
+    public void testSlices() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        TraceIndex.sidecarFor(file).deleteOnExit();
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        final TraceIndex index = TraceIndex.open(stream, file, FormatEntry.create(188, 192), FormatEntry.create(192, 196));
+        final SliceReader reader = new SliceReader(stream, index, 0, 1, SAMPLES);
+
+        Assert.assertEquals(INLINES, reader.getInlines().length);
+        Assert.assertEquals(SyntheticSEGY.FIRST_XLINE + SyntheticSEGY.XLINE_STEP, reader.getCrosslines()[1]);
+
+        final float[][] inline = reader.readInline(SyntheticSEGY.FIRST_INLINE + 3);
+        Assert.assertEquals(XLINES, inline.length);
+        for (int x = 0; x < XLINES; x++) {
+            Assert.assertEquals(SyntheticSEGY.value(3 * XLINES + x, SAMPLES - 1), inline[x][SAMPLES - 1], 0f);
+        }
+
+        final float[][] crossline = reader.readCrossline(SyntheticSEGY.FIRST_XLINE + 4 * SyntheticSEGY.XLINE_STEP);
+        Assert.assertEquals(INLINES, crossline.length);
+        for (int i = 0; i < INLINES; i++) {
+            Assert.assertEquals(SyntheticSEGY.value(i * XLINES + 4, 11), crossline[i][11], 0f);
+        }
+
+        final float[][] slice = reader.readTimeSlice(17);
+        for (int i = 0; i < INLINES; i++) {
+            for (int x = 0; x < XLINES; x++) {
+                Assert.assertEquals(SyntheticSEGY.value(i * XLINES + x, 17), slice[i][x], 0f);
+            }
+        }
+
+        stream.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingInline() throws Exception {
+        final File file = SyntheticSEGY.write(2, 2, SAMPLES);
+        TraceIndex.sidecarFor(file).deleteOnExit();
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        final TraceIndex index = TraceIndex.open(stream, file, FormatEntry.create(188, 192), FormatEntry.create(192, 196));
+        new SliceReader(stream, index, 0, 1, SAMPLES).readInline(1);
+    }
+}
@@ -0,0 +1,158 @@
+package sigrun.common;
+
+import sigrun.serialization.BinaryHeaderFormat;
+import sigrun.serialization.BinaryHeaderFormatBuilder;
+import sigrun.serialization.FormatEntry;
+import sigrun.serialization.TraceHeaderFormat;
+import sigrun.serialization.TraceHeaderFormatBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Writes small IEEE float SEG-Y files with a regular inline/crossline geometry for tests.
+ * <p/>
+ * Trace <code>i</code> has inline <code>FIRST_INLINE + i / xlines</code>, crossline
+ * <code>FIRST_XLINE + (i % xlines) * XLINE_STEP</code> and sample <code>j</code> equal to <code>value(i, j)</code>.
+ */
+public class SyntheticSEGY {
+    public static final int FIRST_INLINE = 100;
+    public static final int FIRST_XLINE = 20;
+    public static final int XLINE_STEP = 2;
+
+    public static float value(long trace, int sample) {
+        return trace * 1000 + sample - 0.5f;
+    }
+
+    public static int inline(long trace, int xlines) {
+        return (int) (FIRST_INLINE + trace / xlines);
+    }
+
+    public static int xline(long trace, int xlines) {
+        return (int) (FIRST_XLINE + (trace % xlines) * XLINE_STEP);
+    }
+
+    public static int cdpX(int inline, int xline) {
+        return 500000 + inline * 25 + xline * 10;
+    }
+
+    public static int cdpY(int inline, int xline) {
+        return 6000000 - inline * 10 + xline * 25;
+    }
+
+    public static File write(int inlines, int xlines, int samples) throws IOException {
+        final int[] lengths = new int[inlines * xlines];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = samples;
+        }
+
+        return write(xlines, lengths);
+    }
+
+    /**
+     * Writes a file where trace <code>i</code> has <code>samples[i]</code> samples.
+     */
+    public static File write(int xlines, int[] samples) throws IOException {
+        final int[] inlines = new int[samples.length];
+        final int[] crosslines = new int[samples.length];
+        for (int i = 0; i < samples.length; i++) {
+            inlines[i] = inline(i, xlines);
+            crosslines[i] = xline(i, xlines);
+        }
+
+        return write(inlines, crosslines, samples);
+    }
+
+    /**
+     * Writes a file of traces at arbitrary bins, trace <code>i</code> at <code>(inlines[i], xlines[i])</code>.
+     */
+    public static File write(int[] inlines, int[] xlines, int samples) throws IOException {
+        final int[] lengths = new int[inlines.length];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = samples;
+        }
+
+        return write(inlines, xlines, lengths);
+    }
+
+    private static File write(int[] inlines, int[] xlines, int[] samples) throws IOException {
+        final File file = File.createTempFile("sigrun", ".sgy");
+        file.deleteOnExit();
+
+        final FileOutputStream out = new FileOutputStream(file);
+        try {
+            final byte[] text = new byte[TextHeader.TEXT_HEADER_SIZE];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = 0x40; /* EBCDIC space */
+            }
+            out.write(text);
+
+            final ByteBuffer bin = ByteBuffer.allocate(BinaryHeader.BIN_HEADER_LENGTH);
+            bin.putShort(16, (short) 4000);
+            bin.putShort(20, (short) samples[0]);
+            bin.putShort(24, DataSample.IEEE_FP.getCode());
+            bin.putShort(300, (short) 0x0100);
+            bin.putShort(302, (short) 1);
+            out.write(bin.array());
+
+            for (int i = 0; i < samples.length; i++) {
+                final int inline = inlines[i];
+                final int xline = xlines[i];
+                final ByteBuffer trace = ByteBuffer.allocate(TraceHeader.TRACE_HEADER_LENGTH + samples[i] * 4);
+                trace.putInt(0, i + 1);
+                trace.putInt(4, i + 1);
+                trace.putInt(20, xline);
+                trace.putShort(70, (short) -100);
+                trace.putInt(180, cdpX(inline, xline) * 100);
+                trace.putInt(184, cdpY(inline, xline) * 100);
+                trace.putShort(114, (short) samples[i]);
+                trace.putShort(116, (short) 4000);
+                trace.putInt(188, inline);
+                trace.putInt(192, xline);
+                for (int j = 0; j < samples[i]; j++) {
+                    trace.putFloat(TraceHeader.TRACE_HEADER_LENGTH + j * 4, value(i, j));
+                }
+                out.write(trace.array());
+            }
+        } finally {
+            out.close();
+        }
+
+        return file;
+    }
+
+    public static BinaryHeaderFormat binaryHeaderFormat() {
+        return BinaryHeaderFormatBuilder.aBinaryHeaderFormat()
+                .withSampleIntervalFormat(FormatEntry.create(16, 18))
+                .withSamplesPerDataTraceFormat(FormatEntry.create(20, 22))
+                .withDataSampleCodeFormat(FormatEntry.create(24, 26))
+                .withSegyFormatRevNumberFormat(FormatEntry.create(300, 302))
+                .withFixedLengthTraceFlagFormat(FormatEntry.create(302, 304))
+                .build();
+    }
+
+    public static TraceHeaderFormat traceHeaderFormat() {
+        return TraceHeaderFormatBuilder.aTraceHeaderFormat()
+                .withTraceSequenceNumberWLFormat(FormatEntry.create(0, 4))
+                .withEnsembleNumberFormat(FormatEntry.create(20, 24))
+                .withScalarForCoordinatesFormat(FormatEntry.create(70, 72))
+                .withNumberOfSamplesFormat(FormatEntry.create(114, 116))
+                .withXOfCDPPositionFormat(FormatEntry.create(180, 184))
+                .withYOfCDPPositionFormat(FormatEntry.create(184, 188))
+                .withInLineNumberFormat(FormatEntry.create(188, 192))
+                .withCrossLineNumberFormat(FormatEntry.create(192, 196))
+                .build();
+    }
+
+    public static SEGYStreamFactory factory() {
+        return SEGYStreamFactory.create(Charset.forName("Cp1047"), binaryHeaderFormat(), traceHeaderFormat());
+    }
+
+    public static SEGYStream open(File file) throws IOException {
+        return factory().makeStream(new FileInputStream(file));
+    }
+}
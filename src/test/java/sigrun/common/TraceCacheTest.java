@@ -0,0 +1,127 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TraceCacheTest {
+    private static final int INLINES = 6;
+    private static final int XLINES = 5;
+    private static final int SAMPLES = 30;
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final TraceCache cache = new TraceCache(stream, SAMPLES, 3 * SAMPLES * 4 + 5);
+        final float[] values = new float[SAMPLES];
+
+        Assert.assertEquals(3 * SAMPLES * 4, cache.getCapacityBytes());
+        for (long i : new long[]{0, 1, 2, 0, 3, 0, 2, 1}) {
+            Assert.assertEquals(SAMPLES, cache.readTraceSamples(i, values));
+            Assert.assertEquals(SyntheticSEGY.value(i, SAMPLES - 1), values[SAMPLES - 1], 0f);
+        }
+
+        /* 1 is evicted by 3 and read again, evicting 3 */
+        Assert.assertEquals(3, cache.getHitCount());
+        Assert.assertEquals(5, cache.getMissCount());
+        Assert.assertEquals(2, cache.getEvictionCount());
+        Assert.assertEquals(3, cache.size());
+        Assert.assertEquals(cache.getCapacityBytes(), cache.getUsedBytes());
+        Assert.assertEquals(-1, cache.get(3, values));
+        Assert.assertEquals(SAMPLES, cache.get(0, values));
+
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(0, cache.getUsedBytes());
+        stream.close();
+    }
+
+    @Test
+    public void testVariableLengthTracesSpanPages() throws Exception {
+        final int[] samples = new int[]{10, 2500, 3, 0, 1024, 1025, 1, 120};
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(XLINES, samples));
+        final TraceCache cache = new TraceCache(stream, 6 * TraceCache.DEFAULT_PAGE_SIZE * 4);
+        final float[] values = new float[2500];
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < samples.length; i++) {
+                Assert.assertEquals(samples[i], cache.readTraceSamples(i, values));
+                for (int j = 0; j < samples[i]; j += 97) {
+                    Assert.assertEquals(SyntheticSEGY.value(i, j), values[j], 0f);
+                }
+                if (samples[i] > 0) {
+                    Assert.assertEquals(SyntheticSEGY.value(i, samples[i] - 1), values[samples[i] - 1], 0f);
+                }
+            }
+        }
+
+        Assert.assertTrue(cache.getEvictionCount() > 0);
+        Assert.assertTrue(cache.getUsedBytes() <= cache.getCapacityBytes());
+        stream.close();
+    }
+
+    @Test
+    public void testConcurrentReaders() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final TraceCache cache = new TraceCache(stream, SAMPLES, 10 * SAMPLES * 4);
+        final AtomicInteger errors = new AtomicInteger();
+        final Thread[] threads = new Thread[4];
+
+        for (int t = 0; t < threads.length; t++) {
+            final int shift = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    final float[] values = new float[SAMPLES];
+                    for (int n = 0; n < 500; n++) {
+                        final long i = (n * 7 + shift) % 13;
+                        cache.readTraceSamples(i, values);
+                        if (values[0] != SyntheticSEGY.value(i, 0) || values[SAMPLES - 1] != SyntheticSEGY.value(i, SAMPLES - 1)) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(0, errors.get());
+        Assert.assertEquals(threads.length * 500, cache.getHitCount() + cache.getMissCount());
+        stream.close();
+    }
+
+    @Test
+    public void testRepeatedLinesComeFromCache() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        TraceIndex.sidecarFor(file).deleteOnExit();
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        final TraceIndex index = TraceIndex.open(stream, file, FormatEntry.create(188, 192), FormatEntry.create(192, 196));
+        final TraceCache cache = new TraceCache(stream, SAMPLES, 1 << 20);
+        final SliceReader reader = new SliceReader(stream, index, 0, 1, SAMPLES, cache);
+
+        reader.readInline(SyntheticSEGY.FIRST_INLINE + 2);
+        Assert.assertEquals(0, cache.getHitCount());
+
+        final float[][] crossline = reader.readCrossline(SyntheticSEGY.FIRST_XLINE + 3 * SyntheticSEGY.XLINE_STEP);
+        Assert.assertEquals(1, cache.getHitCount());
+        final float[][] inline = reader.readInline(SyntheticSEGY.FIRST_INLINE + 2);
+        Assert.assertEquals(1 + XLINES, cache.getHitCount());
+
+        for (int x = 0; x < XLINES; x++) {
+            Assert.assertEquals(SyntheticSEGY.value(2 * XLINES + x, 7), inline[x][7], 0f);
+        }
+        for (int i = 0; i < INLINES; i++) {
+            Assert.assertEquals(SyntheticSEGY.value(i * XLINES + 3, 7), crossline[i][7], 0f);
+        }
+
+        stream.close();
+    }
+}
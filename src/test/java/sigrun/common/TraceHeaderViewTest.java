@@ -0,0 +1,57 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.SEGYFormatException;
+
+import java.nio.ByteBuffer;
+
+public class TraceHeaderViewTest {
+    private static final int INLINES = 4;
+    private static final int XLINES = 6;
+    private static final int SAMPLES = 25;
+
+    @Test
+    public void testHeaderViewIteration() throws Exception {
+        for (int blockSize : new int[]{0, 4096}) {
+            final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+            stream.setReadAheadBlockSize(blockSize);
+
+            TraceHeaderView previous = null;
+            int count = 0;
+            for (TraceHeaderView view : stream.headerViews()) {
+                if (previous != null) {
+                    Assert.assertSame(previous, view);
+                }
+                previous = view;
+
+                Assert.assertEquals(count + 1, view.getTraceSequenceNumberWL());
+                Assert.assertEquals(SyntheticSEGY.inline(count, XLINES), view.getInLineNumber());
+                Assert.assertEquals(SyntheticSEGY.xline(count, XLINES), view.getCrossLineNumber());
+                Assert.assertEquals(SAMPLES, view.getNumberOfSamples());
+                Assert.assertEquals(-100, view.getScalarForCoordinates());
+                count++;
+            }
+
+            Assert.assertEquals(INLINES * XLINES, count);
+            stream.close();
+        }
+    }
+
+    @Test
+    public void testWrapBufferAtOffset() {
+        final ByteBuffer buffer = ByteBuffer.allocate(1000);
+        buffer.putInt(300 + 188, 4321);
+        buffer.putShort(300 + 114, (short) 12);
+
+        final TraceHeaderView view = new TraceHeaderView(SyntheticSEGY.traceHeaderFormat()).wrap(buffer, 300);
+        Assert.assertEquals(4321, view.getInLineNumber());
+        Assert.assertEquals(12, view.getNumberOfSamples());
+    }
+
+    @Test(expected = SEGYFormatException.class)
+    public void testMissingField() {
+        new TraceHeaderView(SyntheticSEGY.traceHeaderFormat()).wrap(new byte[TraceHeader.TRACE_HEADER_LENGTH])
+                .getSourceX();
+    }
+}
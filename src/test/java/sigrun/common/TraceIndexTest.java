@@ -0,0 +1,60 @@
+package sigrun.common;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+
+public class TraceIndexTest {
+    private static final int INLINES = 6;
+    private static final int XLINES = 8;
+    private static final int SAMPLES = 30;
+
+    private static final FormatEntry INLINE = FormatEntry.create(188, 192);
+    private static final FormatEntry XLINE = FormatEntry.create(192, 196);
+    private static final FormatEntry SCALAR = FormatEntry.create(70, 72);
+
+    @Test
+    public void testBuildAndLoad() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final File sidecar = TraceIndex.sidecarFor(file);
+        sidecar.deleteOnExit();
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        Assert.assertNull(TraceIndex.load(file));
+
+        TraceIndex.build(stream, file, INLINE, XLINE, SCALAR);
+        final TraceIndex index = TraceIndex.load(file);
+
+        Assert.assertNotNull(index);
+        Assert.assertEquals(INLINES * XLINES, index.size());
+        Assert.assertEquals(3, index.getColumnCount());
+        Assert.assertEquals(XLINE, index.getKey(1));
+
+        final long traceLength = stream.getTraceLength(SAMPLES);
+        for (int i = 0; i < index.size(); i++) {
+            Assert.assertEquals(stream.getHeaderLength() + i * traceLength, index.getOffset(i));
+            Assert.assertEquals(SyntheticSEGY.inline(i, XLINES), index.getValue(0, i));
+            Assert.assertEquals(SyntheticSEGY.xline(i, XLINES), index.getValue(1, i));
+            Assert.assertEquals(-100, index.getValue(2, i));
+        }
+
+        /* Other keys cause a rebuild */
+        Assert.assertEquals(1, TraceIndex.open(stream, file, XLINE).getColumnCount());
+        stream.close();
+    }
+
+    @Test
+    public void testStaleIndexIsIgnored() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        TraceIndex.sidecarFor(file).deleteOnExit();
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        TraceIndex.build(stream, file, INLINE);
+        stream.close();
+
+        Assert.assertTrue(file.setLastModified(file.lastModified() - 10000));
+        Assert.assertNull(TraceIndex.load(file));
+    }
+}
@@ -0,0 +1,91 @@
+package sigrun.converters;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BulkConverterTest {
+    private static byte[] randomWords(int count) {
+        final ByteBuffer bytes = ByteBuffer.allocate(count * 4);
+        final Random random = new Random(42);
+        while (bytes.hasRemaining()) {
+            bytes.putInt(random.nextInt());
+        }
+
+        return bytes.array();
+    }
+
+    private static void assertSameBits(float[] expected, float[] actual) {
+        assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Float.floatToRawIntBits(expected[i]), Float.floatToRawIntBits(actual[i]));
+        }
+    }
+
+    @Test
+    public void testIBMMatchesScalar() {
+        final int count = 10000;
+        final byte[] bytes = randomWords(count + 1);
+        final float[] scalar = new float[count];
+        final float[] bulk = new float[count];
+
+        new IBM360Converter().convert(bytes, 4, scalar, count);
+        new BulkIBM360Converter().convert(bytes, 4, bulk, count);
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(Float.floatToRawIntBits(scalar[i]), Float.floatToRawIntBits(bulk[i]));
+        }
+    }
+
+    @Test
+    public void testIEEEMatchesScalar() {
+        final int count = 10000;
+        final byte[] bytes = randomWords(count);
+        final float[] scalar = new IEEEConverter().convert(bytes);
+        final float[] bulk = new BulkIEEEConverter().convert(bytes);
+
+        for (int i = 0; i < count; i++) {
+            assertEquals(Float.floatToRawIntBits(scalar[i]), Float.floatToRawIntBits(bulk[i]));
+        }
+    }
+
+    @Test
+    public void testIBMKeepsNaNLikeWords() {
+        /* Words whose bits read as IEEE NaNs must reach the IBM kernel unchanged */
+        final int[] words = {0x7F800001, 0xFF800001, 0x7FC00000, 0xFFA00000, 0x7F8FFFFF, 0x7FFFFFFF, 0xFFFFFFFF};
+        final ByteBuffer bytes = ByteBuffer.allocate(words.length * 4);
+        for (int word : words) {
+            bytes.putInt(word);
+        }
+
+        final float[] bulk = new BulkIBM360Converter().convert(bytes.array());
+        for (int i = 0; i < words.length; i++) {
+            assertEquals(IBM360Converter.convert(words[i]), Float.floatToRawIntBits(bulk[i]));
+        }
+    }
+
+    @Test
+    public void testIntegerFormatsMatchScalar() {
+        /* More than one chunk of scratch, at an odd offset */
+        final int count = 3 * 4096 + 17;
+        final byte[] bytes = randomWords(count + 1);
+
+        final float[] scalar = new float[count + 3];
+        final float[] bulk = new float[count + 3];
+        new TwosComplementIntConverter().convert(bytes, 4, scalar, 3, count);
+        new BulkTwosComplementIntConverter().convert(bytes, 4, bulk, 3, count);
+        assertSameBits(scalar, bulk);
+
+        new TwosComplementShortConverter().convert(bytes, 2, scalar, 3, count);
+        new BulkTwosComplementShortConverter().convert(bytes, 2, bulk, 3, count);
+        assertSameBits(scalar, bulk);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRangeOutsideDestination() {
+        new BulkTwosComplementIntConverter().convert(randomWords(8), 0, new float[4], 2, 4);
+    }
+}
@@ -0,0 +1,59 @@
+package sigrun.converters;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Measures decoding throughput of every sample converter.
+ * <p/>
+ * Usage: <code>ConverterBenchmark [samples per trace] [traces]</code>. Each converter decodes the same block of random
+ * bytes from a byte array and, where supported, from a direct buffer.
+ */
+public class ConverterBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        final int samples = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        final int traces = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+
+        final SeismicValuesConverter[] converters = {new IBM360Converter(), new BulkIBM360Converter(),
+                new IEEEConverter(), new BulkIEEEConverter(), new TwosComplementIntConverter(),
+                new BulkTwosComplementIntConverter(), new TwosComplementShortConverter(),
+                new BulkTwosComplementShortConverter(), new TwosComplementByteConverter(),
+                new FixedPointGainConverter()};
+        final int[] sizes = {4, 4, 4, 4, 4, 4, 2, 2, 1, 4};
+
+        final byte[] bytes = new byte[samples * 4];
+        new Random(1).nextBytes(bytes);
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        final float[] values = new float[samples];
+
+        for (int c = 0; c < converters.length; c++) {
+            final SeismicValuesConverter converter = converters[c];
+            final long megabytes = (long) samples * sizes[c] * traces / (1024 * 1024);
+
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                for (int t = 0; t < traces; t++) {
+                    converter.convert(bytes, 0, values, samples);
+                }
+                final double arrayRate = megabytes / ((System.nanoTime() - start) / 1e9);
+
+                String bufferRate = "-";
+                if (converter instanceof AbstractSampleConverter) {
+                    final AbstractSampleConverter sampleConverter = (AbstractSampleConverter) converter;
+                    start = System.nanoTime();
+                    for (int t = 0; t < traces; t++) {
+                        direct.clear();
+                        sampleConverter.convert(direct, values, 0, samples);
+                    }
+                    bufferRate = String.format("%.0f MB/s", megabytes / ((System.nanoTime() - start) / 1e9));
+                }
+
+                System.out.println(String.format("%-30s round %d: byte[] %.0f MB/s, direct buffer %s",
+                        converter.getClass().getSimpleName(), round, arrayRate, bufferRate));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package sigrun.converters;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.*;
+
+public class IBM360ConverterTest {
+    /**
+     * Loop-based conversion the kernel has to match bit for bit.
+     */
+    private static int reference(int bits) {
+        final long ibmValue = bits & 0xffffffffl;
+
+        final int sign = (int) ((ibmValue & IBM360Converter.IBM_SIGN_MASK) >>> 31);
+        int exp = (int) ((ibmValue & IBM360Converter.IBM_EXPO_MASK) >>> 24);
+        int fraction = (int) ((ibmValue & IBM360Converter.IBM_FRAC_MASK) << 8);
+
+        if (fraction == 0) {
+            return sign << 31;
+        }
+
+        exp = (exp << 2) - 130;
+        while (fraction > 0) {
+            --exp;
+            fraction <<= 1;
+        }
+
+        if (exp <= 0) {
+            if (exp < -24)
+                fraction = 0;
+            else
+                fraction >>= -exp;
+            exp = 0;
+        } else if (exp >= 255) {
+            fraction = 0;
+            exp = 255;
+        } else {
+            fraction <<= 1;
+        }
+
+        return (fraction >>> 9) | (exp << 23) | (sign << 31);
+    }
+
+    @Test
+    public void testMatchesReference() {
+        /* Every exponent and sign with fractions of every length, plus a sparse sweep of the whole range */
+        for (int high = 0; high < 256; high++) {
+            for (int shift = 0; shift < 24; shift++) {
+                for (int low : new int[]{0x000001, 0xFFFFFF, 0x5A5A5A, 0x800000, 0x123456}) {
+                    final int bits = high << 24 | (low >>> shift);
+                    assertEquals(Integer.toHexString(bits), reference(bits), IBM360Converter.convert(bits));
+                }
+            }
+        }
+
+        /* Pass -Dsigrun.exhaustive=true to check all 2^32 inputs */
+        final long step = Boolean.getBoolean("sigrun.exhaustive") ? 1 : 65521;
+        for (long value = 0; value <= 0xFFFFFFFFL; value += step) {
+            final int bits = (int) value;
+            if (reference(bits) != IBM360Converter.convert(bits)) {
+                fail("Mismatch for " + Integer.toHexString(bits));
+            }
+        }
+    }
+
+    @Test
+    public void testBulkConversion() {
+        final int count = 37;
+        final ByteBuffer bytes = ByteBuffer.allocate(4 + count * 4);
+        bytes.putInt(0xDEADBEEF);
+        for (int i = 0; i < count; i++) {
+            bytes.putInt(i * 0x0713F3D1);
+        }
+
+        final IBM360Converter converter = new IBM360Converter();
+        final float[] fromArray = new float[count + 2];
+        converter.convert(bytes.array(), 4, fromArray, 2, count);
+
+        bytes.position(4);
+        final float[] fromBuffer = new float[count];
+        converter.convert(bytes, fromBuffer, 0, count);
+        assertFalse(bytes.hasRemaining());
+
+        bytes.position(4);
+        final FloatBuffer direct = ByteBuffer.allocateDirect(count * 4).asFloatBuffer();
+        assertEquals(count, converter.convert(bytes, direct));
+
+        for (int i = 0; i < count; i++) {
+            final int expected = reference(i * 0x0713F3D1);
+            assertEquals(expected, Float.floatToRawIntBits(fromArray[i + 2]));
+            assertEquals(expected, Float.floatToRawIntBits(fromBuffer[i]));
+            assertEquals(expected, Float.floatToRawIntBits(direct.get(i)));
+        }
+    }
+}
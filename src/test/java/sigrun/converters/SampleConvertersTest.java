@@ -0,0 +1,79 @@
+package sigrun.converters;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class SampleConvertersTest {
+    private static float[] both(AbstractSampleConverter converter, ByteBuffer bytes, int count) {
+        final float[] fromArray = converter.convert(bytes.array());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.capacity());
+        direct.put(bytes.array()).flip();
+        final float[] fromBuffer = new float[count + 1];
+        converter.convert(direct, fromBuffer, 1, count);
+        assertFalse(direct.hasRemaining());
+
+        assertEquals(count, fromArray.length);
+        for (int i = 0; i < count; i++) {
+            assertEquals(fromArray[i], fromBuffer[i + 1], 0f);
+        }
+
+        return fromArray;
+    }
+
+    @Test
+    public void testTwosComplementInt() {
+        final int[] values = {0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 123456789};
+        final ByteBuffer bytes = ByteBuffer.allocate(values.length * 4);
+        for (int value : values) {
+            bytes.putInt(value);
+        }
+
+        final float[] result = both(new TwosComplementIntConverter(), bytes, values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals((float) values[i], result[i], 0f);
+        }
+    }
+
+    @Test
+    public void testTwosComplementShort() {
+        final short[] values = {0, 1, -1, Short.MAX_VALUE, Short.MIN_VALUE, 12345};
+        final ByteBuffer bytes = ByteBuffer.allocate(values.length * 2);
+        for (short value : values) {
+            bytes.putShort(value);
+        }
+
+        final float[] result = both(new TwosComplementShortConverter(), bytes, values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals((float) values[i], result[i], 0f);
+        }
+    }
+
+    @Test
+    public void testTwosComplementByte() {
+        final byte[] values = {0, 1, -1, Byte.MAX_VALUE, Byte.MIN_VALUE, 42};
+
+        final float[] result = both(new TwosComplementByteConverter(), ByteBuffer.wrap(values), values.length);
+        for (int i = 0; i < values.length; i++) {
+            assertEquals((float) values[i], result[i], 0f);
+        }
+    }
+
+    @Test
+    public void testFixedPointGain() {
+        final ByteBuffer bytes = ByteBuffer.allocate(16);
+        bytes.put((byte) 0).put((byte) 0).putShort((short) 300);
+        bytes.put((byte) 0).put((byte) 3).putShort((short) -40);
+        bytes.put((byte) 0).put((byte) 0xFF).putShort((short) 1);
+        bytes.put((byte) 0).put((byte) 1).putShort(Short.MIN_VALUE);
+
+        final float[] result = both(new FixedPointGainConverter(), bytes, 4);
+        assertEquals(300f, result[0], 0f);
+        assertEquals(-5f, result[1], 0f);
+        assertEquals(0f, result[2], 0f);
+        assertEquals(-16384f, result[3], 0f);
+    }
+}
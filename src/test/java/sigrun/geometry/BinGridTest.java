@@ -0,0 +1,112 @@
+package sigrun.geometry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.common.BinaryHeader;
+import sigrun.common.SEGYStream;
+import sigrun.common.SEGYStreamException;
+import sigrun.common.SyntheticSEGY;
+import sigrun.common.TextHeader;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+public class BinGridTest {
+    private static final int INLINES = 20;
+    private static final int XLINES = 10;
+    private static final int SAMPLES = 4;
+
+    private static final BinGridFitter FITTER = new BinGridFitter(GeometryDetector.keyAt(189),
+            GeometryDetector.keyAt(193));
+
+    @Test
+    public void testFitRegularSurvey() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final SEGYStream stream = SyntheticSEGY.open(file);
+
+        final BinGrid grid = FITTER.fit(stream, SAMPLES);
+        Assert.assertEquals(0, grid.getDeviations().length);
+        Assert.assertTrue(grid.getSampleCount() > 100);
+        Assert.assertEquals(0, grid.getMaxResidual(), 1e-6);
+        Assert.assertEquals(1, grid.getInlineIncrement());
+        Assert.assertEquals(SyntheticSEGY.XLINE_STEP, grid.getCrosslineIncrement());
+        Assert.assertEquals(Math.hypot(25, 10), grid.getInlineSpacing(), 1e-6);
+        Assert.assertEquals(Math.hypot(10, 25) * SyntheticSEGY.XLINE_STEP, grid.getCrosslineSpacing(), 1e-6);
+
+        final double[] xy = new double[2];
+        final double[] bin = new double[2];
+        for (int inline = 90; inline < 130; inline += 3) {
+            for (int xline = 10; xline < 50; xline += 2) {
+                grid.toXY(inline, xline, xy);
+                Assert.assertEquals(SyntheticSEGY.cdpX(inline, xline), xy[0], 1e-6);
+                Assert.assertEquals(SyntheticSEGY.cdpY(inline, xline), xy[1], 1e-6);
+
+                grid.toBin(xy[0], xy[1], bin);
+                Assert.assertEquals(inline, bin[0], 1e-6);
+                Assert.assertEquals(xline, bin[1], 1e-6);
+
+                /* Anywhere inside the bin maps to its centre */
+                Assert.assertEquals(inline, grid.toInline(xy[0] + 7, xy[1] - 4));
+                Assert.assertEquals(xline, grid.toCrossline(xy[0] + 7, xy[1] - 4));
+            }
+        }
+
+        Assert.assertEquals(0, FITTER.findDeviations(stream, grid).length);
+        stream.close();
+    }
+
+    @Test
+    public void testDeviatingTracesAreFlagged() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        displace(file, 0, 1000);
+        displace(file, 57, 3);
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        final BinGrid grid = FITTER.fit(stream, SAMPLES);
+
+        Assert.assertArrayEquals(new long[]{0, 57}, grid.getDeviations());
+        Assert.assertEquals(0, grid.getRmsResidual(), 1e-6);
+        Assert.assertEquals(1000, grid.getMaxResidual(), 1e-6);
+        Assert.assertEquals(SyntheticSEGY.cdpX(105, 30), grid.toX(105, 30), 1e-6);
+
+        Assert.assertArrayEquals(new long[]{0, 57}, FITTER.findDeviations(stream, grid));
+        Assert.assertArrayEquals(new long[]{0}, FITTER.findDeviations(stream, FITTER.fit(stream, SAMPLES, 10)));
+        stream.close();
+    }
+
+    @Test(expected = SEGYStreamException.class)
+    public void testRejectsCollinearCoordinates() throws Exception {
+        /* X read for both coordinates puts every bin on one line */
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        try {
+            new BinGridFitter(GeometryDetector.keyAt(189), GeometryDetector.keyAt(193), SpatialIndex.CDP_X,
+                    SpatialIndex.CDP_X, SpatialIndex.COORDINATE_SCALAR).fit(stream, SAMPLES);
+        } finally {
+            stream.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsWideKey() {
+        new BinGridFitter(GeometryDetector.keyAt(189), FormatEntry.create(192, 200));
+    }
+
+    /**
+     * Moves a trace along the X axis by a number of coordinate units.
+     */
+    private static void displace(File file, long trace, int distance) throws Exception {
+        final long position = TextHeader.TEXT_HEADER_SIZE + BinaryHeader.BIN_HEADER_LENGTH
+                + trace * (TraceHeader.TRACE_HEADER_LENGTH + SAMPLES * 4) + 180;
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.seek(position);
+            final int x = raf.readInt();
+            raf.seek(position);
+            raf.writeInt(x + distance * 100);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package sigrun.geometry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.common.ParallelHeaderScanner;
+import sigrun.common.SEGYStream;
+import sigrun.common.SyntheticSEGY;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BinMapTest {
+    private static final int INLINES = 20;
+    private static final int XLINES = 15;
+    private static final int SAMPLES = 10;
+
+    @Test
+    public void testRegularSurvey() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        final FormatEntry inlineKey = FormatEntry.create(188, 192);
+        final FormatEntry crosslineKey = FormatEntry.create(192, 196);
+
+        final BinMap sequential = BinMap.build(stream, inlineKey, crosslineKey);
+        final BinMap parallel = BinMap.build(new ParallelHeaderScanner(stream, SAMPLES, 3, 1000), inlineKey,
+                crosslineKey);
+
+        final File sidecar = BinMap.sidecarFor(file);
+        sidecar.deleteOnExit();
+        sequential.write(sidecar);
+        Assert.assertTrue(sidecar.length() < 100);
+        final BinMap loaded = BinMap.read(sidecar);
+
+        for (BinMap map : new BinMap[]{sequential, parallel, loaded}) {
+            Assert.assertEquals(1, map.getGroupCount());
+            Assert.assertEquals(1, map.getRunCount());
+            Assert.assertEquals(INLINES * XLINES, map.getTraceCount());
+            Assert.assertEquals(INLINES, map.getInlines().length);
+
+            for (int i = 0; i < INLINES * XLINES; i++) {
+                Assert.assertEquals(i, map.getTrace(SyntheticSEGY.inline(i, XLINES), SyntheticSEGY.xline(i, XLINES)));
+            }
+
+            Assert.assertEquals(-1, map.getTrace(SyntheticSEGY.FIRST_INLINE, SyntheticSEGY.FIRST_XLINE + 1));
+            Assert.assertEquals(-1, map.getTrace(SyntheticSEGY.FIRST_INLINE, SyntheticSEGY.FIRST_XLINE - 2));
+            Assert.assertEquals(-1, map.getTrace(SyntheticSEGY.FIRST_INLINE - 1, SyntheticSEGY.FIRST_XLINE));
+            Assert.assertEquals(-1, map.getTrace(SyntheticSEGY.FIRST_INLINE + INLINES, SyntheticSEGY.FIRST_XLINE));
+            Assert.assertFalse(map.contains(SyntheticSEGY.FIRST_INLINE, SyntheticSEGY.xline(XLINES, XLINES + 1)));
+        }
+
+        stream.close();
+    }
+
+    @Test
+    public void testCrosslineSortedSurvey() {
+        final BinMapBuilder builder = new BinMapBuilder();
+        long trace = 0;
+        for (int xline = 1; xline <= 50; xline++) {
+            for (int inline = 10; inline < 40; inline += 3) {
+                builder.add(trace++, inline, xline);
+            }
+        }
+
+        final BinMap map = builder.build();
+        Assert.assertEquals(1, map.getGroupCount());
+        Assert.assertEquals(1, map.getRunCount());
+        Assert.assertEquals(10 * 4 + 2, map.getTrace(16, 5));
+        Assert.assertEquals(-1, map.getTrace(17, 5));
+    }
+
+    @Test
+    public void testIrregularSurvey() {
+        final List<int[]> bins = irregularBins();
+        final BinMap map = build(bins, 0, bins.size()).build();
+
+        assertMatches(bins, map);
+        Assert.assertTrue(map.getRunCount() < bins.size() / 4);
+    }
+
+    @Test
+    public void testMergeMatchesSinglePass() {
+        final List<int[]> bins = irregularBins();
+
+        for (int split = 0; split <= bins.size(); split += 7) {
+            assertMatches(bins, build(bins, 0, split).merge(build(bins, split, bins.size())).build());
+        }
+    }
+
+    /**
+     * Inline sorted survey with missing traces, a duplicate trace, an inline stored in two pieces and inlines with
+     * descending crosslines.
+     */
+    private static List<int[]> irregularBins() {
+        final List<int[]> bins = new ArrayList<int[]>();
+        for (int inline = 1; inline <= 30; inline++) {
+            final int first = inline < 10 ? 1 : 1 + (inline - 10) / 4;
+            for (int xline = first; xline <= 40; xline++) {
+                if (inline == 5 && xline >= 18 && xline < 22) {
+                    continue;
+                }
+                bins.add(new int[]{inline, inline > 25 ? 41 - xline : xline});
+                if (inline == 7 && xline == 3) {
+                    bins.add(new int[]{inline, xline});
+                }
+            }
+            if (inline == 12) {
+                bins.add(new int[]{inline, 60});
+            }
+        }
+        bins.add(new int[]{3, 70});
+
+        return bins;
+    }
+
+    private static BinMapBuilder build(List<int[]> bins, int from, int to) {
+        final BinMapBuilder builder = new BinMapBuilder();
+        for (int i = from; i < to; i++) {
+            builder.add(i, bins.get(i)[0], bins.get(i)[1]);
+        }
+
+        return builder;
+    }
+
+    private static void assertMatches(List<int[]> bins, BinMap map) {
+        final Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        for (int i = 0; i < bins.size(); i++) {
+            final long bin = (long) bins.get(i)[0] << 32 | bins.get(i)[1];
+            if (!expected.containsKey(bin)) {
+                expected.put(bin, i);
+            }
+        }
+
+        for (int inline = 0; inline <= 31; inline++) {
+            for (int xline = 0; xline <= 71; xline++) {
+                final Integer trace = expected.get((long) inline << 32 | xline);
+                Assert.assertEquals(inline + "/" + xline, trace == null ? -1 : trace, map.getTrace(inline, xline));
+            }
+        }
+
+        Assert.assertEquals(expected.size(), map.getTraceCount());
+    }
+}
@@ -0,0 +1,235 @@
+package sigrun.geometry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.common.ParallelHeaderScanner;
+import sigrun.common.SEGYStream;
+import sigrun.common.SyntheticSEGY;
+
+import java.util.List;
+
+public class GeometryDetectorTest {
+    private static final int INLINES = 7;
+    private static final int XLINES = 13;
+    private static final int SAMPLES = 30;
+
+    /* Inline 10 is regular, 11 has a gap and a duplicate, 12 goes back to crossline 1, 14 is a single trace */
+    private static final int[][] IRREGULAR = new int[][]{
+            {10, 1}, {10, 2}, {10, 3}, {10, 4},
+            {11, 1}, {11, 2}, {11, 4}, {11, 4}, {11, 5},
+            {12, 1}, {12, 2}, {12, 3}, {12, 1}, {12, 2},
+            {14, 3}
+    };
+
+    @Test
+    public void testRegularSurvey() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(INLINES, XLINES, SAMPLES));
+        final GeometryDetector detector = new GeometryDetector(GeometryDetector.keyAt(189), GeometryDetector.keyAt(193));
+
+        final Geometry sequential = detector.detect(stream);
+        final Geometry parallel = detector.detect(new ParallelHeaderScanner(stream, SAMPLES, 3, 1000));
+
+        for (Geometry geometry : new Geometry[]{sequential, parallel}) {
+            Assert.assertEquals(INLINES * XLINES, geometry.getTraceCount());
+            Assert.assertEquals(SyntheticSEGY.FIRST_INLINE, geometry.getInlineMin());
+            Assert.assertEquals(SyntheticSEGY.FIRST_INLINE + INLINES - 1, geometry.getInlineMax());
+            Assert.assertEquals(1, geometry.getInlineIncrement());
+            Assert.assertEquals(SyntheticSEGY.FIRST_XLINE, geometry.getCrosslineMin());
+            Assert.assertEquals(SyntheticSEGY.xline(XLINES - 1, XLINES), geometry.getCrosslineMax());
+            Assert.assertEquals(SyntheticSEGY.XLINE_STEP, geometry.getCrosslineIncrement());
+            Assert.assertEquals(INLINES, geometry.getInlineCount());
+            Assert.assertEquals(XLINES, geometry.getCrosslineCount());
+            Assert.assertEquals(INLINES, geometry.getSections().size());
+            Assert.assertTrue(geometry.getIrregularSections().isEmpty());
+            Assert.assertTrue(geometry.isRegular());
+            Assert.assertEquals(TraceOrder.BY_INLINE_ASCENDING, geometry.getOrder());
+
+            final LineSection section = geometry.getSections().get(3);
+            Assert.assertEquals(SyntheticSEGY.FIRST_INLINE + 3, section.getLine());
+            Assert.assertEquals(3 * XLINES, section.getFirstTrace());
+            Assert.assertEquals(stream.getHeaderLength() + 3 * XLINES * stream.getTraceLength(SAMPLES),
+                    section.getFirstPosition());
+            Assert.assertEquals(XLINES, section.getTraceCount());
+        }
+
+        stream.close();
+    }
+
+    @Test
+    public void testIrregularities() {
+        final Geometry geometry = new Geometry(null, null, accumulate(0, IRREGULAR.length));
+
+        Assert.assertEquals(10, geometry.getInlineMin());
+        Assert.assertEquals(14, geometry.getInlineMax());
+        Assert.assertEquals(1, geometry.getInlineIncrement());
+        Assert.assertEquals(1, geometry.getCrosslineIncrement());
+        Assert.assertEquals(5, geometry.getCrosslineMax());
+        Assert.assertEquals(1, geometry.getGapCount());
+        Assert.assertEquals(1, geometry.getDuplicateCount());
+        Assert.assertEquals(1, geometry.getReversalCount());
+        Assert.assertFalse(geometry.isRegular());
+
+        final List<LineSection> sections = geometry.getSections();
+        Assert.assertEquals(6, sections.size());
+        Assert.assertEquals(3, sections.get(1).getTraceCount());
+        Assert.assertEquals(4, sections.get(1).getLastStation());
+        Assert.assertEquals(2, sections.get(1).getMaxStep());
+        Assert.assertEquals(7, sections.get(2).getFirstTrace());
+        Assert.assertEquals(1, sections.get(5).getTraceCount());
+
+        Assert.assertEquals(1, geometry.getIrregularSections().size());
+        Assert.assertSame(sections.get(1), geometry.getIrregularSections().get(0));
+    }
+
+    @Test
+    public void testMergeMatchesSinglePass() {
+        final String expected = describe(new Geometry(null, null, accumulate(0, IRREGULAR.length)));
+
+        for (int split = 0; split <= IRREGULAR.length; split++) {
+            final GeometryAccumulator merged = accumulate(0, split).merge(accumulate(split, IRREGULAR.length));
+            Assert.assertEquals("Split at " + split, expected, describe(new Geometry(null, null, merged)));
+        }
+    }
+
+    @Test
+    public void testDescendingCrosslines() throws Exception {
+        /* Three inlines of crosslines 100 down to 1 */
+        final int[] inlines = new int[300];
+        final int[] crosslines = new int[300];
+        for (int i = 0; i < inlines.length; i++) {
+            inlines[i] = 1 + i / 100;
+            crosslines[i] = 100 - i % 100;
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(inlines, crosslines, SAMPLES));
+        final GeometryDetector detector = new GeometryDetector(GeometryDetector.keyAt(189), GeometryDetector.keyAt(193));
+        Assert.assertEquals(TraceOrder.BY_INLINE_DESCENDING, detector.detectOrder(stream));
+
+        for (Geometry geometry : new Geometry[]{detector.detect(stream),
+                detector.detect(new ParallelHeaderScanner(stream, SAMPLES, 3, 1000))}) {
+            Assert.assertEquals(TraceOrder.BY_INLINE_DESCENDING, geometry.getOrder());
+            Assert.assertEquals(3, geometry.getSectionCount());
+            Assert.assertEquals(1, geometry.getCrosslineIncrement());
+            Assert.assertEquals(100, geometry.getCrosslineCount());
+            Assert.assertEquals(0, geometry.getReversalCount());
+            Assert.assertTrue(geometry.isRegular());
+
+            final LineSection section = geometry.getSections().get(2);
+            Assert.assertEquals(3, section.getLine());
+            Assert.assertEquals(100, section.getFirstStation());
+            Assert.assertEquals(1, section.getLastStation());
+            Assert.assertEquals(1, section.getMaxStep());
+        }
+
+        /* Read in the wrong direction every step is a reversal, but sections are still counted, not all kept */
+        final Geometry ascending = new GeometryDetector(GeometryDetector.keyAt(189), GeometryDetector.keyAt(193),
+                TraceOrder.BY_INLINE_ASCENDING).detect(stream);
+        Assert.assertEquals(297, ascending.getReversalCount());
+        Assert.assertEquals(300, ascending.getSectionCount());
+        Assert.assertFalse(ascending.isRegular());
+
+        stream.close();
+    }
+
+    @Test
+    public void testCrosslineSortedSurvey() throws Exception {
+        /* Crosslines 20, 22 .. 32, each holding inlines 100 .. 106 */
+        final int[] inlines = new int[INLINES * XLINES];
+        final int[] crosslines = new int[INLINES * XLINES];
+        for (int i = 0; i < inlines.length; i++) {
+            inlines[i] = SyntheticSEGY.FIRST_INLINE + i % INLINES;
+            crosslines[i] = SyntheticSEGY.FIRST_XLINE + (i / INLINES) * SyntheticSEGY.XLINE_STEP;
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(inlines, crosslines, SAMPLES));
+        final GeometryDetector detector = new GeometryDetector(GeometryDetector.keyAt(189), GeometryDetector.keyAt(193));
+
+        for (Geometry geometry : new Geometry[]{detector.detect(stream),
+                detector.detect(new ParallelHeaderScanner(stream, SAMPLES, 3, 1000))}) {
+            Assert.assertEquals(TraceOrder.BY_CROSSLINE_ASCENDING, geometry.getOrder());
+            Assert.assertEquals(XLINES, geometry.getSectionCount());
+            Assert.assertEquals(1, geometry.getInlineIncrement());
+            Assert.assertEquals(SyntheticSEGY.XLINE_STEP, geometry.getCrosslineIncrement());
+            Assert.assertEquals(INLINES, geometry.getInlineCount());
+            Assert.assertEquals(XLINES, geometry.getCrosslineCount());
+            Assert.assertEquals(0, geometry.getGapCount());
+            Assert.assertTrue(geometry.isRegular());
+            Assert.assertTrue(geometry.getIrregularSections().isEmpty());
+
+            final LineSection section = geometry.getSections().get(1);
+            Assert.assertEquals(SyntheticSEGY.FIRST_XLINE + SyntheticSEGY.XLINE_STEP, section.getLine());
+            Assert.assertEquals(SyntheticSEGY.FIRST_INLINE, section.getFirstStation());
+            Assert.assertEquals(INLINES, section.getTraceCount());
+        }
+
+        stream.close();
+    }
+
+    @Test
+    public void testCrosslineSortedGapsUseInlineIncrement() throws Exception {
+        /* Five crosslines stepping by 1, each holding inlines 10, 13 .. 25; the third one misses inline 16 */
+        final int[] inlines = new int[29];
+        final int[] crosslines = new int[29];
+        int trace = 0;
+        for (int crossline = 1; crossline <= 5; crossline++) {
+            for (int inline = 10; inline <= 25; inline += 3) {
+                if (crossline != 3 || inline != 16) {
+                    inlines[trace] = inline;
+                    crosslines[trace++] = crossline;
+                }
+            }
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(inlines, crosslines, SAMPLES));
+        final Geometry geometry = new GeometryDetector(GeometryDetector.keyAt(189), GeometryDetector.keyAt(193))
+                .detect(stream);
+
+        Assert.assertEquals(TraceOrder.BY_CROSSLINE_ASCENDING, geometry.getOrder());
+        Assert.assertEquals(3, geometry.getInlineIncrement());
+        Assert.assertEquals(1, geometry.getCrosslineIncrement());
+        Assert.assertEquals(5, geometry.getSectionCount());
+        Assert.assertEquals(1, geometry.getGapCount());
+
+        final List<LineSection> irregular = geometry.getIrregularSections();
+        Assert.assertEquals(1, irregular.size());
+        Assert.assertEquals(3, irregular.get(0).getLine());
+        stream.close();
+    }
+
+    @Test
+    public void testSectionListIsBounded() {
+        /* Every trace on a new inline: one section per trace */
+        final int traces = Geometry.MAX_SECTIONS + 10;
+        final int split = traces / 2;
+
+        final GeometryAccumulator single = new GeometryAccumulator(TraceOrder.BY_INLINE_ASCENDING);
+        final GeometryAccumulator left = new GeometryAccumulator(TraceOrder.BY_INLINE_ASCENDING);
+        final GeometryAccumulator right = new GeometryAccumulator(TraceOrder.BY_INLINE_ASCENDING);
+        for (int i = 0; i < traces; i++) {
+            single.add(i, i, i, 1);
+            (i < split ? left : right).add(i, i, i, 1);
+        }
+
+        for (GeometryAccumulator stats : new GeometryAccumulator[]{single, left.merge(right)}) {
+            final Geometry geometry = new Geometry(null, null, stats);
+            Assert.assertEquals(traces, geometry.getSectionCount());
+            Assert.assertEquals(Geometry.MAX_SECTIONS, geometry.getSections().size());
+            Assert.assertTrue(geometry.isTruncated());
+            Assert.assertEquals(Geometry.MAX_SECTIONS - 1,
+                    geometry.getSections().get(Geometry.MAX_SECTIONS - 1).getFirstTrace());
+        }
+    }
+
+    private static GeometryAccumulator accumulate(int from, int to) {
+        final GeometryAccumulator accumulator = new GeometryAccumulator(TraceOrder.BY_INLINE_ASCENDING);
+        for (int i = from; i < to; i++) {
+            accumulator.add(i, i * 100L, IRREGULAR[i][0], IRREGULAR[i][1]);
+        }
+
+        return accumulator;
+    }
+
+    private static String describe(Geometry geometry) {
+        return geometry + " " + geometry.getSections();
+    }
+}
@@ -0,0 +1,161 @@
+package sigrun.geometry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.common.BinaryHeader;
+import sigrun.common.SEGYStream;
+import sigrun.common.SyntheticSEGY;
+import sigrun.common.TextHeader;
+import sigrun.common.TraceHeader;
+import sigrun.serialization.FormatEntry;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+public class KeyDiscoveryTest {
+    private static final int XLINES = 37;
+    private static final int SAMPLES = 8;
+
+    @Test
+    public void testFixedLengthFile() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(50, XLINES, SAMPLES));
+        final List<KeyCandidate> candidates = new KeyDiscovery(stream, SAMPLES).discover();
+
+        Assert.assertFalse(candidates.isEmpty());
+
+        final KeyCandidate best = candidates.get(0);
+        Assert.assertEquals(FormatEntry.create(188, 192), best.getInlineKey());
+        Assert.assertEquals(FormatEntry.create(192, 196), best.getCrosslineKey());
+        Assert.assertEquals(1, best.getInlineIncrement());
+        Assert.assertEquals(SyntheticSEGY.XLINE_STEP, best.getCrosslineIncrement());
+        Assert.assertFalse(best.isDescending());
+        Assert.assertEquals(1.0, best.getConfidence(), 1e-9);
+
+        /* Trace sequence numbers grow like crosslines but never repeat */
+        for (KeyCandidate candidate : candidates) {
+            Assert.assertTrue(candidate.getCrosslineKey().posStart != 0 || candidate.getConfidence() < 0.6);
+        }
+
+        final Geometry geometry = best.detector().detect(stream);
+        Assert.assertTrue(geometry.isRegular());
+        stream.close();
+    }
+
+    @Test
+    public void testVariableLengthFile() throws Exception {
+        final int[] samples = new int[600];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = 5 + i % 3;
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(XLINES, samples));
+        final List<KeyCandidate> candidates = new KeyDiscovery(stream, samples[0]).discover();
+
+        Assert.assertFalse(candidates.isEmpty());
+        Assert.assertEquals(FormatEntry.create(188, 192), candidates.get(0).getInlineKey());
+        Assert.assertEquals(FormatEntry.create(192, 196), candidates.get(0).getCrosslineKey());
+        stream.close();
+    }
+
+    @Test
+    public void testDescendingCrosslines() throws Exception {
+        /* Forty inlines of crosslines 300 down to 204 by 4 */
+        final int[] inlines = new int[1000];
+        final int[] crosslines = new int[1000];
+        for (int i = 0; i < inlines.length; i++) {
+            inlines[i] = 1 + i / 25;
+            crosslines[i] = 300 - (i % 25) * 4;
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(inlines, crosslines, SAMPLES));
+        final List<KeyCandidate> candidates = new KeyDiscovery(stream, SAMPLES).discover();
+
+        Assert.assertFalse(candidates.isEmpty());
+
+        final KeyCandidate best = candidates.get(0);
+        Assert.assertEquals(FormatEntry.create(188, 192), best.getInlineKey());
+        Assert.assertEquals(FormatEntry.create(192, 196), best.getCrosslineKey());
+        Assert.assertEquals(4, best.getCrosslineIncrement());
+        Assert.assertTrue(best.isDescending());
+        Assert.assertEquals(TraceOrder.BY_INLINE_DESCENDING, best.getOrder());
+
+        final Geometry geometry = best.detector().detect(stream);
+        Assert.assertEquals(TraceOrder.BY_INLINE_DESCENDING, geometry.getOrder());
+        Assert.assertEquals(40, geometry.getSectionCount());
+        Assert.assertEquals(0, geometry.getReversalCount());
+        Assert.assertTrue(geometry.isRegular());
+        stream.close();
+    }
+
+    @Test
+    public void testCoordinatesOnGridAreNotKeys() throws Exception {
+        /* Keys at bytes 221 and 225, unrotated CDP coordinates that step with them */
+        final int inlines = 40;
+        final File file = SyntheticSEGY.write(inlines, XLINES, SAMPLES);
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            for (int i = 0; i < inlines * XLINES; i++) {
+                final int inline = SyntheticSEGY.inline(i, XLINES);
+                final int xline = SyntheticSEGY.xline(i, XLINES);
+                final long header = TextHeader.TEXT_HEADER_SIZE + BinaryHeader.BIN_HEADER_LENGTH
+                        + (long) i * (TraceHeader.TRACE_HEADER_LENGTH + SAMPLES * 4);
+
+                for (int offset : new int[]{20, 188, 192}) {
+                    raf.seek(header + offset);
+                    raf.writeInt(0);
+                }
+                raf.seek(header + 180);
+                raf.writeInt((500000 + inline * 25) * 100);
+                raf.writeInt((6000000 + xline * 25) * 100);
+                raf.seek(header + 220);
+                raf.writeInt(inline);
+                raf.writeInt(xline);
+            }
+        } finally {
+            raf.close();
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        final KeyCandidate best = new KeyDiscovery(stream, SAMPLES).discover().get(0);
+
+        Assert.assertEquals(FormatEntry.create(220, 224), best.getInlineKey());
+        Assert.assertEquals(FormatEntry.create(224, 228), best.getCrosslineKey());
+        Assert.assertEquals(TraceOrder.BY_INLINE_ASCENDING, best.getOrder());
+        stream.close();
+    }
+
+    @Test
+    public void testCrosslineSortedFile() throws Exception {
+        /* Crosslines 20, 22 .. 92, each holding inlines 100 .. 124 */
+        final int[] inlines = new int[25 * XLINES];
+        final int[] crosslines = new int[25 * XLINES];
+        for (int i = 0; i < inlines.length; i++) {
+            inlines[i] = SyntheticSEGY.FIRST_INLINE + i % 25;
+            crosslines[i] = SyntheticSEGY.FIRST_XLINE + (i / 25) * SyntheticSEGY.XLINE_STEP;
+        }
+
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(inlines, crosslines, SAMPLES));
+        final KeyCandidate best = new KeyDiscovery(stream, SAMPLES).discover().get(0);
+
+        Assert.assertEquals(FormatEntry.create(188, 192), best.getInlineKey());
+        Assert.assertEquals(FormatEntry.create(192, 196), best.getCrosslineKey());
+        Assert.assertEquals(1, best.getInlineIncrement());
+        Assert.assertEquals(SyntheticSEGY.XLINE_STEP, best.getCrosslineIncrement());
+        Assert.assertEquals(TraceOrder.BY_CROSSLINE_ASCENDING, best.getOrder());
+
+        final Geometry geometry = best.detector().detect(stream);
+        Assert.assertEquals(SyntheticSEGY.FIRST_XLINE, geometry.getCrosslineMin());
+        Assert.assertEquals(XLINES, geometry.getSectionCount());
+        Assert.assertTrue(geometry.isRegular());
+        stream.close();
+    }
+
+    @Test
+    public void testTooSmallFile() throws Exception {
+        final SEGYStream stream = SyntheticSEGY.open(SyntheticSEGY.write(1, 1, SAMPLES));
+
+        Assert.assertTrue(new KeyDiscovery(stream, SAMPLES).discover().isEmpty());
+        stream.close();
+    }
+}
@@ -0,0 +1,89 @@
+package sigrun.geometry;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sigrun.common.SEGYStream;
+import sigrun.common.SyntheticSEGY;
+
+import java.io.File;
+import java.util.Arrays;
+
+public class SpatialIndexTest {
+    private static final int INLINES = 30;
+    private static final int XLINES = 25;
+    private static final int SAMPLES = 4;
+
+    @Test
+    public void testNearestAndPolygonQueries() throws Exception {
+        final File file = SyntheticSEGY.write(INLINES, XLINES, SAMPLES);
+        final SEGYStream stream = SyntheticSEGY.open(file);
+        SpatialIndex.sidecarFor(file).deleteOnExit();
+
+        final SpatialIndex index = SpatialIndex.open(stream, file);
+        Assert.assertEquals(INLINES * XLINES, index.size());
+        Assert.assertNotNull(SpatialIndex.load(file));
+        Assert.assertFalse(new File(SpatialIndex.sidecarFor(file).getPath() + ".xy.tmp").exists());
+
+        final double[] xs = new double[INLINES * XLINES];
+        final double[] ys = new double[INLINES * XLINES];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = SyntheticSEGY.cdpX(SyntheticSEGY.inline(i, XLINES), SyntheticSEGY.xline(i, XLINES));
+            ys[i] = SyntheticSEGY.cdpY(SyntheticSEGY.inline(i, XLINES), SyntheticSEGY.xline(i, XLINES));
+        }
+
+        /* Exact positions, points between traces and points far outside the survey */
+        for (int i = 0; i < xs.length; i += 7) {
+            Assert.assertEquals(i, index.nearest(xs[i], ys[i]));
+            assertNearest(index, xs, ys, xs[i] + 4.5, ys[i] - 3.25, 5);
+        }
+        assertNearest(index, xs, ys, -1e6, 7e6, 3);
+        assertNearest(index, xs, ys, 600000, 5000000, 1);
+
+        final long[] all = index.nearest(xs[0], ys[0], xs.length + 10);
+        Assert.assertEquals(xs.length, all.length);
+
+        final double[] polygonX = new double[]{503000, 503600, 503300};
+        final double[] polygonY = new double[]{5999500, 5999500, 6000400};
+        final long[] inside = index.inPolygon(polygonX, polygonY);
+        int expected = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (Arrays.binarySearch(inside, i) >= 0) {
+                expected++;
+            } else {
+                Assert.assertFalse(inTriangle(polygonX, polygonY, xs[i], ys[i]));
+            }
+        }
+        Assert.assertTrue(inside.length > 10);
+        Assert.assertEquals(expected, inside.length);
+        for (long trace : inside) {
+            Assert.assertTrue(inTriangle(polygonX, polygonY, xs[(int) trace], ys[(int) trace]));
+        }
+
+        stream.close();
+    }
+
+    private static void assertNearest(SpatialIndex index, double[] xs, double[] ys, double x, double y, int k) {
+        final double[] distances = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            distances[i] = (xs[i] - x) * (xs[i] - x) + (ys[i] - y) * (ys[i] - y);
+        }
+        final double[] sorted = distances.clone();
+        Arrays.sort(sorted);
+
+        final long[] found = index.nearest(x, y, k);
+        Assert.assertEquals(k, found.length);
+        for (int n = 0; n < k; n++) {
+            Assert.assertEquals(sorted[n], distances[(int) found[n]], 1e-3);
+        }
+    }
+
+    private static boolean inTriangle(double[] px, double[] py, double x, double y) {
+        boolean inside = false;
+        for (int i = 0, j = 2; i < 3; j = i++) {
+            if ((py[i] > y) != (py[j] > y) && x < (px[j] - px[i]) * (y - py[i]) / (py[j] - py[i]) + px[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
@@ -1,5 +1,13 @@
 package sigrun.serialization;
 
+import org.junit.Test;
+import sigrun.common.TraceHeader;
+import sigrun.common.TraceIdentificationCode;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
 @SuppressWarnings({"UnusedDeclaration", "WeakerAccess"})
 public class TraceHeaderReaderTest {
     @SuppressWarnings("MismatchedReadAndWriteOfArray")
@@ -7,4 +15,52 @@ public class TraceHeaderReaderTest {
             0x00, 0x00,
     };
 
+    private static byte[] header() {
+        final ByteBuffer buffer = ByteBuffer.allocate(TraceHeader.TRACE_HEADER_LENGTH);
+        buffer.putInt(0, 17);
+        buffer.putInt(20, 12345);
+        buffer.putShort(28, (short) 1);
+        buffer.putInt(72, -800);
+        buffer.putShort(114, (short) 1500);
+        buffer.putInt(188, 2001);
+        buffer.put(204, (byte) 7).put(209, (byte) 9);
+
+        return buffer.array();
+    }
+
+    @Test
+    public void testReadsOnlyConfiguredFields() {
+        final TraceHeaderFormat format = TraceHeaderFormatBuilder.aTraceHeaderFormat()
+                .withTraceSequenceNumberWLFormat(FormatEntry.create(0, 4))
+                .withTraceIdentificationCodeFormat(FormatEntry.create(28, 30))
+                .withNumberOfSamplesFormat(FormatEntry.create(114, 116))
+                .withInLineNumberFormat(FormatEntry.create(188, 192))
+                .build();
+
+        final TraceHeader header = new TraceHeaderReader(format).read(header());
+
+        assertEquals(17, header.getTraceSequenceNumberWL().intValue());
+        assertEquals(TraceIdentificationCode.SEISMIC_DATA, header.getTraceIdentificationCode());
+        assertEquals(1500, header.getNumberOfSamples().intValue());
+        assertEquals(2001, header.getInLineNumber().intValue());
+        assertNull(header.getEnsembleNumber());
+        assertNull(header.getSourceX());
+    }
+
+    @Test
+    public void testReadsByteRangeFields() {
+        final TraceHeaderFormat format = TraceHeaderFormatBuilder.aTraceHeaderFormat()
+                .withEnsembleNumberFormat(FormatEntry.create(20, 24))
+                .withSourceXFormat(FormatEntry.create(72, 76))
+                .withNumberOfSamplesFormat(FormatEntry.create(114, 116))
+                .withTransductionConstantFormat(FormatEntry.create(204, 210))
+                .build();
+
+        final TraceHeader header = new TraceHeaderReader(format).read(header());
+
+        assertEquals(12345, header.getEnsembleNumber().intValue());
+        assertEquals(-800, header.getSourceX().intValue());
+        assertArrayEquals(new byte[]{7, 0, 0, 0, 0, 9}, header.getTransductionConstant());
+        assertNull(header.getInLineNumber());
+    }
 }